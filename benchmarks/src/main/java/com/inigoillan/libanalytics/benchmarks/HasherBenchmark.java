@@ -0,0 +1,78 @@
+package com.inigoillan.libanalytics.benchmarks;
+
+import com.google.common.hash.Hashing;
+import com.inigoillan.libanalytics.hash.hasher.ByteArrayLongHasher;
+import com.inigoillan.libanalytics.hash.hasher.Guava64BitHasher;
+import com.inigoillan.libanalytics.hash.hasher.Murmur3128Hasher;
+import com.inigoillan.libanalytics.hash.hasher.WyHash64Hasher;
+import com.inigoillan.libanalytics.hash.hasher.XxHash64Hasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hashers implemented in the library against the Guava adapters, per key size.
+ * <br>
+ * Run it with <i>-prof gc</i> to see the allocation rate of each hasher as well
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HasherBenchmark {
+
+    @Param({"8", "16", "32", "64", "256", "1024"})
+    private int keySize;
+
+    @Param({"guava-murmur3_128", "guava-sipHash24", "murmur3_128", "xxHash64", "wyHash64"})
+    private String hasherName;
+
+    private ByteArrayLongHasher hasher;
+    private byte[] key;
+
+    @Setup
+    public void setUp() {
+        key = new byte[keySize];
+        new Random(keySize).nextBytes(key);
+
+        hasher = buildHasher(hasherName);
+    }
+
+    @Benchmark
+    public long hashBytes() {
+        return hasher.hashToLong(key);
+    }
+
+    private static ByteArrayLongHasher buildHasher(String name) {
+        switch (name) {
+            case "guava-murmur3_128":
+                return new Guava64BitHasher(Hashing.murmur3_128());
+            case "guava-sipHash24":
+                return new Guava64BitHasher(Hashing.sipHash24());
+            case "murmur3_128":
+                return new Murmur3128Hasher();
+            case "xxHash64":
+                return new XxHash64Hasher();
+            case "wyHash64":
+                return new WyHash64Hasher();
+            default:
+                throw new IllegalArgumentException("Unknown hasher " + name);
+        }
+    }
+}
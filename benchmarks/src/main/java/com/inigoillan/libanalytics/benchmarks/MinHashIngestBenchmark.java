@@ -0,0 +1,74 @@
+package com.inigoillan.libanalytics.benchmarks;
+
+import com.inigoillan.libanalytics.algorithms.minhash.LongMinHash;
+import com.inigoillan.libanalytics.algorithms.minhash.MinHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a bottom-k signature out of a stream of hashes with {@link MinHash} and {@link LongMinHash}.
+ * The time is reported per hash added, and running it with <i>-prof gc</i> shows the allocations per hash
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinHashIngestBenchmark {
+    private static final int HASHES = 1 << 16;
+
+    @Param({"128", "1024"})
+    private int signatureSize;
+
+    private long[] hashes;
+
+    @Setup
+    public void setUp() {
+        hashes = new long[HASHES];
+
+        Random random = new Random(signatureSize);
+
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = random.nextLong();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HASHES)
+    public MinHash<Long> minHash() {
+        MinHash<Long> minHash = new MinHash<>(signatureSize);
+
+        for (long hash : hashes) {
+            minHash.addHashed(hash);
+        }
+
+        return minHash;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HASHES)
+    public LongMinHash longMinHash() {
+        LongMinHash minHash = new LongMinHash(signatureSize);
+
+        minHash.addHashedBatch(hashes, 0, hashes.length);
+
+        return minHash;
+    }
+}
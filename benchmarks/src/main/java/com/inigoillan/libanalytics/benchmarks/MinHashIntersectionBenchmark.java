@@ -0,0 +1,83 @@
+package com.inigoillan.libanalytics.benchmarks;
+
+import com.inigoillan.libanalytics.algorithms.minhash.LongMinHash;
+import com.inigoillan.libanalytics.algorithms.minhash.MinHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jaccard Index estimation of the intersection of many full minhashes of sets sharing a fifth of their
+ * elements
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinHashIntersectionBenchmark {
+    private static final int SIGNATURE_SIZE = 256;
+
+    @Param({"16", "256"})
+    private int minHashCount;
+
+    private List<MinHash<Long>> minHashes;
+    private List<LongMinHash> longMinHashes;
+
+    @Setup
+    public void setUp() {
+        minHashes = new ArrayList<>();
+        longMinHashes = new ArrayList<>();
+
+        Random random = new Random(minHashCount);
+        long[] shared = new long[SIGNATURE_SIZE * 4];
+
+        for (int i = 0; i < shared.length; i++) {
+            shared[i] = random.nextLong();
+        }
+
+        for (int i = 0; i < minHashCount; i++) {
+            MinHash<Long> minHash = new MinHash<>(SIGNATURE_SIZE);
+            LongMinHash longMinHash = new LongMinHash(SIGNATURE_SIZE);
+
+            for (int j = 0; j < shared.length * 5; j++) {
+                long hash = j < shared.length ? shared[j] : random.nextLong();
+
+                minHash.addHashed(hash);
+                longMinHash.addHashed(hash);
+            }
+
+            longMinHash.freeze();
+
+            minHashes.add(minHash);
+            longMinHashes.add(longMinHash);
+        }
+    }
+
+    @Benchmark
+    public float minHash() {
+        return MinHash.estimateJaccardIndex(minHashes);
+    }
+
+    @Benchmark
+    public float longMinHash() {
+        return LongMinHash.estimateJaccardIndex(longMinHashes);
+    }
+}
@@ -0,0 +1,78 @@
+package com.inigoillan.libanalytics.benchmarks;
+
+import com.inigoillan.libanalytics.algorithms.minhash.LongMinHash;
+import com.inigoillan.libanalytics.algorithms.minhash.MinHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jaccard Index estimation between two full minhashes of two sets sharing half of their elements
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinHashJaccardBenchmark {
+    @Param({"128", "1024"})
+    private int signatureSize;
+
+    private MinHash<Long> minHash1;
+    private MinHash<Long> minHash2;
+    private LongMinHash longMinHash1;
+    private LongMinHash longMinHash2;
+
+    @Setup
+    public void setUp() {
+        minHash1 = new MinHash<>(signatureSize);
+        minHash2 = new MinHash<>(signatureSize);
+        longMinHash1 = new LongMinHash(signatureSize);
+        longMinHash2 = new LongMinHash(signatureSize);
+
+        Random random = new Random(signatureSize);
+
+        for (int i = 0; i < signatureSize * 20; i++) {
+            long hash = random.nextLong();
+            int sets = i % 3;
+
+            if (sets != 1) {
+                minHash1.addHashed(hash);
+                longMinHash1.addHashed(hash);
+            }
+
+            if (sets != 2) {
+                minHash2.addHashed(hash);
+                longMinHash2.addHashed(hash);
+            }
+        }
+
+        longMinHash1.freeze();
+        longMinHash2.freeze();
+    }
+
+    @Benchmark
+    public float minHash() {
+        return minHash1.estimateJaccardIndex(minHash2);
+    }
+
+    @Benchmark
+    public float longMinHash() {
+        return longMinHash1.estimateJaccardIndex(longMinHash2);
+    }
+}
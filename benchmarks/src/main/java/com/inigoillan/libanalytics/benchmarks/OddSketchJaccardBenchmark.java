@@ -0,0 +1,62 @@
+package com.inigoillan.libanalytics.benchmarks;
+
+import com.inigoillan.libanalytics.algorithms.oddsketch.OddSketch;
+import com.inigoillan.libanalytics.hash.Divisible;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jaccard Index estimate between two odd sketches, per sketch size.
+ * <br>
+ * Run it with <i>-prof gc</i>: the estimate is expected to allocate nothing, so <i>gc.alloc.rate.norm</i> should
+ * stay at 0 bytes per operation
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OddSketchJaccardBenchmark {
+
+    @Param({"1024", "16384", "262144"})
+    private int sketchSize;
+
+    private OddSketch<Divisible> sketch;
+    private OddSketch<Divisible> otherSketch;
+
+    @Setup
+    public void setUp() {
+        sketch = new OddSketch<>(sketchSize);
+        otherSketch = new OddSketch<>(sketchSize);
+
+        Random random = new Random(sketchSize);
+
+        for (int i = 0; i < sketchSize / 4; i++) {
+            long hash = random.nextLong();
+
+            sketch.addHashed(hash);
+            otherSketch.addHashed(i % 2 == 0 ? hash : random.nextLong());
+        }
+    }
+
+    @Benchmark
+    public double estimateJaccardIndex() {
+        return sketch.estimateJaccardIndex(otherSketch);
+    }
+}
@@ -0,0 +1,167 @@
+package com.inigoillan.libanalytics.benchmarks;
+
+import com.inigoillan.libanalytics.algorithms.oddsketch.OddSketch;
+import com.inigoillan.libanalytics.algorithms.oddsketch.StripedOddSketch;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how adding hashes to a shared odd sketch scales with the number of writing threads: a
+ * {@link StripedOddSketch} with a stripe per thread, one hash at a time and in batches, against a plain
+ * {@link OddSketch} behind a single lock. The throughput is reported in hashes added per microsecond, summed over
+ * the threads.
+ * <br>
+ * Small sketches are the ones exposed to false sharing, as every flip of a stripe writes the same few lines
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StripedOddSketchScalingBenchmark {
+    private static final int MAX_THREADS = 4;
+    private static final int BATCH_SIZE = 1024;
+
+    @Param({"64", "65536"})
+    private int sketchSize;
+
+    private StripedOddSketch<Divisible> stripedSketch;
+    private OddSketch<Divisible> lockedSketch;
+
+    @Setup
+    public void setUp() {
+        stripedSketch = new StripedOddSketch<>(BucketingStrategy.forWidth(sketchSize), MAX_THREADS);
+        lockedSketch = new OddSketch<>(BucketingStrategy.forWidth(sketchSize));
+    }
+
+    /**
+     * The hashes added by each thread
+     */
+    @State(Scope.Thread)
+    public static class ThreadHashes {
+        private static final AtomicInteger SEEDS = new AtomicInteger();
+
+        private long[] hashes;
+        private int position = 0;
+
+        @Setup
+        public void setUp() {
+            Random random = new Random(SEEDS.incrementAndGet());
+            hashes = new long[BATCH_SIZE * 64];
+
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = random.nextLong();
+            }
+        }
+
+        private long nextHash() {
+            position = (position + 1) & (hashes.length - 1);
+
+            return hashes[position];
+        }
+
+        private int nextBatch() {
+            position = (position + BATCH_SIZE) & (hashes.length - 1);
+
+            return position;
+        }
+    }
+
+    //region One thread
+
+    @Benchmark
+    @Threads(1)
+    public void striped1(ThreadHashes hashes) {
+        stripedSketch.addHashed(hashes.nextHash());
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void stripedBatch1(ThreadHashes hashes) {
+        stripedSketch.addHashedBatch(hashes.hashes, hashes.nextBatch(), BATCH_SIZE);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void locked1(ThreadHashes hashes) {
+        addLocked(hashes.nextHash());
+    }
+
+    //endregion
+
+
+    //region Two threads
+
+    @Benchmark
+    @Threads(2)
+    public void striped2(ThreadHashes hashes) {
+        stripedSketch.addHashed(hashes.nextHash());
+    }
+
+    @Benchmark
+    @Threads(2)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void stripedBatch2(ThreadHashes hashes) {
+        stripedSketch.addHashedBatch(hashes.hashes, hashes.nextBatch(), BATCH_SIZE);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void locked2(ThreadHashes hashes) {
+        addLocked(hashes.nextHash());
+    }
+
+    //endregion
+
+
+    //region Four threads
+
+    @Benchmark
+    @Threads(MAX_THREADS)
+    public void striped4(ThreadHashes hashes) {
+        stripedSketch.addHashed(hashes.nextHash());
+    }
+
+    @Benchmark
+    @Threads(MAX_THREADS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void stripedBatch4(ThreadHashes hashes) {
+        stripedSketch.addHashedBatch(hashes.hashes, hashes.nextBatch(), BATCH_SIZE);
+    }
+
+    @Benchmark
+    @Threads(MAX_THREADS)
+    public void locked4(ThreadHashes hashes) {
+        addLocked(hashes.nextHash());
+    }
+
+    //endregion
+
+    private void addLocked(long hash) {
+        synchronized (lockedSketch) {
+            lockedSketch.addHashed(hash);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.inigoillan.libanalytics.algorithms;
+
+import com.google.common.base.MoreObjects;
+import com.inigoillan.libanalytics.algorithms.countminsketch.CountMinSketch;
+import com.inigoillan.libanalytics.algorithms.minhash.LongMinHash;
+import com.inigoillan.libanalytics.algorithms.minhash.bBitMinHash;
+import com.inigoillan.libanalytics.algorithms.oddsketch.OddSketch;
+import com.inigoillan.libanalytics.hash.hasher.Hasher128;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Feeds several sketches maintained over the same stream of elements, hashing each element only once.
+ * <br>
+ * Every element is hashed into 128 bits, <i>h1</i> and <i>h2</i>, and the bits are distributed to the registered
+ * sketches:
+ * <ul>
+ *     <li>{@link OddSketch} gets <i>h1</i> to select its bucket</li>
+ *     <li>{@link LongMinHash} gets <i>h2</i> as its comparable value</li>
+ *     <li>{@link CountMinSketch} derives its row indices from <i>h1</i> and <i>h2</i> with double hashing</li>
+ *     <li>{@link bBitMinHash} position <i>i</i> keeps the low bits of the minimum of <i>h1 + i * h2</i>
+ *     seen so far</li>
+ * </ul>
+ * As the sketches themselves, this class is not thread safe
+ *
+ * @param <E> The type of the elements
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class FanOutIngestor<E> {
+    private final Hasher128<E> hasher;
+    private final long[] hash = new long[2];
+
+    private OddSketch<?>[] oddSketches = new OddSketch<?>[0];
+    private LongMinHash[] minHashes = new LongMinHash[0];
+    private CountMinSketch<?>[] countMinSketches = new CountMinSketch<?>[0];
+    private bBitMinHash<?>[] bBitMinHashes = new bBitMinHash<?>[0];
+    private long[][] bBitMinimums = new long[0][];
+
+    //region ctors
+
+    public FanOutIngestor(@Nonnull Hasher128<E> hasher) {
+        this.hasher = hasher;
+    }
+
+    //endregion
+
+
+    //region register
+
+    @Nonnull
+    public FanOutIngestor<E> register(@Nonnull OddSketch<?> sketch) {
+        oddSketches = append(oddSketches, sketch);
+
+        return this;
+    }
+
+    @Nonnull
+    public FanOutIngestor<E> register(@Nonnull LongMinHash minHash) {
+        minHashes = append(minHashes, minHash);
+
+        return this;
+    }
+
+    @Nonnull
+    public FanOutIngestor<E> register(@Nonnull CountMinSketch<?> sketch) {
+        countMinSketches = append(countMinSketches, sketch);
+
+        return this;
+    }
+
+    /**
+     * Registers a b bit minhash. Its positions are only set from the elements added after the registration
+     *
+     * @param minHash The minhash to register
+     * @return This ingestor
+     */
+    @Nonnull
+    public FanOutIngestor<E> register(@Nonnull bBitMinHash<?> minHash) {
+        long[] minimums = new long[minHash.getSetSize()];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+
+        bBitMinHashes = append(bBitMinHashes, minHash);
+        bBitMinimums = append(bBitMinimums, minimums);
+
+        return this;
+    }
+
+    private static <T> T[] append(T[] array, T element) {
+        T[] newArray = Arrays.copyOf(array, array.length + 1);
+        newArray[array.length] = element;
+
+        return newArray;
+    }
+
+    //endregion
+
+
+    //region addElement
+
+    /**
+     * Hashes the element and adds it to all the registered sketches
+     *
+     * @param element The element to add
+     */
+    public void addElement(@Nonnull E element) {
+        hasher.hashTo128(element, hash);
+
+        addHashed(hash[0], hash[1]);
+    }
+
+    /**
+     * Adds an already hashed element to all the registered sketches
+     *
+     * @param hash1 The first 64 bits of the hash of the element
+     * @param hash2 The last 64 bits of the hash of the element
+     */
+    public void addHashed(long hash1, long hash2) {
+        for (OddSketch<?> sketch : oddSketches) {
+            sketch.addHashed(hash1);
+        }
+
+        for (LongMinHash minHash : minHashes) {
+            minHash.addHashed(hash2);
+        }
+
+        for (CountMinSketch<?> sketch : countMinSketches) {
+            sketch.addSingleHashed(1, hash1, hash2);
+        }
+
+        for (int j = 0; j < bBitMinHashes.length; j++) {
+            long[] minimums = bBitMinimums[j];
+
+            for (int i = 0; i < minimums.length; i++) {
+                long positionHash = hash1 + i * hash2;
+
+                if (positionHash < minimums[i]) {
+                    minimums[i] = positionHash;
+                    bBitMinHashes[j].setHashed(i, positionHash);
+                }
+            }
+        }
+    }
+
+    //endregion
+
+
+    //region toString
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this.getClass())
+                .add("hasher", hasher)
+                .add("odd sketches", oddSketches.length)
+                .add("minhashes", minHashes.length)
+                .add("count-min sketches", countMinSketches.length)
+                .add("b bit minhashes", bBitMinHashes.length)
+                .toString();
+    }
+
+    //endregion
+}
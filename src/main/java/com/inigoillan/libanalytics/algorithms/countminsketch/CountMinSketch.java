@@ -2,8 +2,11 @@ package com.inigoillan.libanalytics.algorithms.countminsketch;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
 import com.inigoillan.libanalytics.hash.Divisible;
 import com.inigoillan.libanalytics.hash.SignificantBits;
+import com.inigoillan.libanalytics.metrics.SketchKind;
+import com.inigoillan.libanalytics.metrics.SketchMetrics;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -24,20 +27,50 @@ public class CountMinSketch<K extends Divisible> {
 
     private ArrayList<long[]> sketch;
 
+    // Same rows than in the sketch list, kept as an array so the hot paths don't go through the list
+    private long[][] rows;
+
+    private BucketingStrategy bucketing;
+
     //endregion
 
 
     //region ctors
 
+    /**
+     * Constructor. Hashes are mapped into columns with the {@link BucketingStrategy#modulo(int)} strategy
+     *
+     * @param numRows Number of rows of the sketch
+     * @param numCols Number of columns of the sketch
+     */
     public CountMinSketch(@Nonnegative int numRows, @Nonnegative int numCols) {
-        this.setSketch(Lists.newArrayList());
+        this(numRows, BucketingStrategy.modulo(numCols));
+    }
+
+    /**
+     * Constructor. The number of columns of the sketch is the width of the bucketing strategy used to map primitive
+     * hashes into columns, e.g. <i>new CountMinSketch&lt;&gt;(numRows, BucketingStrategy.forWidth(numCols))</i>
+     *
+     * @param numRows   Number of rows of the sketch
+     * @param bucketing The strategy mapping hashes into columns of the sketch
+     */
+    public CountMinSketch(@Nonnegative int numRows, @Nonnull BucketingStrategy bucketing) {
+        int numCols = bucketing.getWidth();
+
+        this.bucketing = bucketing;
+
+        ArrayList<long[]> sketch = Lists.newArrayList();
 
         for (int i = 0; i < numRows; i++) {
             long[] array = new long[numCols];
             Arrays.fill(array, 0l);
 
-            this.getSketch().add(array);
+            sketch.add(array);
         }
+
+        this.setSketch(sketch);
+
+        SketchMetrics.getListener().onAllocated(SketchKind.COUNT_MIN_SKETCH, (long) numRows * numCols * Long.BYTES);
     }
 
     //endregion
@@ -68,16 +101,109 @@ public class CountMinSketch<K extends Divisible> {
                 "The number of hashes has to be of the same size than the number of columns in the sketch");
 
         int numRows = getNumRows();
-        int numCols = getNumCols();
+        BucketingStrategy bucketing = this.bucketing;
+
+        for (int i = 0; i < numRows; i++) {
+            rows[i][hashes[i].bucket(bucketing)] += count;
+        }
+
+        SketchMetrics.getListener().onElementsAdded(SketchKind.COUNT_MIN_SKETCH, count);
+    }
+
+    /**
+     * Given one primitive 64 bits hash per row, increments the count in the sketch.
+     *
+     * @param hashes The hashes used to select the buckets to increment the count in the sketch
+     *
+     * @see CountMinSketch#addHashed(long, long[])
+     */
+    public void addHashed(@Nonnull long[] hashes) {
+        addHashed(1, hashes);
+    }
+
+    /**
+     * Given one primitive 64 bits hash per row, adds them to the sketch <i>count</i> times. The hashes are mapped into
+     * columns with the bucketing strategy of the sketch. As no hash objects are involved, the array can be reused
+     * between calls
+     *
+     * @param count  Number of times to add the hashes to the sketch
+     * @param hashes The hashes used to select the buckets to add the count in the sketch
+     */
+    public void addHashed(long count, @Nonnull long[] hashes) {
+        Preconditions.checkArgument(hashes.length == this.getNumRows(),
+                "The number of hashes has to be of the same size than the number of rows in the sketch");
+
+        int numRows = getNumRows();
+        BucketingStrategy bucketing = this.bucketing;
+
+        for (int i = 0; i < numRows; i++) {
+            int j = bucketing.bucket(hashes[i]);
+
+            rows[i][j] += count;
+        }
+
+        SketchMetrics.getListener().onElementsAdded(SketchKind.COUNT_MIN_SKETCH, count);
+    }
+
+    /**
+     * Adds a batch of elements to the sketch in one tight loop. Each element is represented by one primitive 64 bits
+     * hash per row, laid out consecutively, so <i>length</i> has to be a multiple of the number of rows
+     *
+     * @param hashes The hashes of the elements, <i>numRows</i> consecutive hashes per element
+     * @param offset Position of the first hash to add
+     * @param length Number of hashes to add
+     */
+    public void addHashedBatch(@Nonnull long[] hashes, int offset, int length) {
+        Preconditions.checkPositionIndexes(offset, offset + length, hashes.length);
+        Preconditions.checkArgument(length % this.getNumRows() == 0,
+                "The number of hashes has to be a multiple of the number of rows in the sketch");
+
+        int numRows = getNumRows();
+        BucketingStrategy bucketing = this.bucketing;
+        long[][] rows = this.rows;
+
+        for (int i = offset; i < offset + length; i += numRows) {
+            for (int row = 0; row < numRows; row++) {
+                rows[row][bucketing.bucket(hashes[i + row])]++;
+            }
+        }
+
+        SketchMetrics.getListener().onElementsAdded(SketchKind.COUNT_MIN_SKETCH, length / numRows);
+    }
+
+    /**
+     * Given one primitive 32 bits hash per row, increments the count in the sketch.
+     *
+     * @param hashes The hashes used to select the buckets to increment the count in the sketch
+     *
+     * @see CountMinSketch#addHashed(long, int[])
+     */
+    public void addHashed(@Nonnull int[] hashes) {
+        addHashed(1, hashes);
+    }
+
+    /**
+     * Given one primitive 32 bits hash per row, adds them to the sketch <i>count</i> times. The hashes are mapped into
+     * columns with the bucketing strategy of the sketch. As no hash objects are involved, the array can be reused
+     * between calls
+     *
+     * @param count  Number of times to add the hashes to the sketch
+     * @param hashes The hashes used to select the buckets to add the count in the sketch
+     */
+    public void addHashed(long count, @Nonnull int[] hashes) {
+        Preconditions.checkArgument(hashes.length == this.getNumRows(),
+                "The number of hashes has to be of the same size than the number of rows in the sketch");
+
+        int numRows = getNumRows();
+        BucketingStrategy bucketing = this.bucketing;
 
         for (int i = 0; i < numRows; i++) {
-            K hash = hashes[i];
+            int j = bucketing.bucket(hashes[i]);
 
-            Number j = hash.mod(numCols);
-            long localCount = this.getSketch().get(i)[j.intValue()];
-            localCount += count;
-            this.getSketch().get(i)[j.intValue()] = localCount;
+            rows[i][j] += count;
         }
+
+        SketchMetrics.getListener().onElementsAdded(SketchKind.COUNT_MIN_SKETCH, count);
     }
 
     //endregion
@@ -95,29 +221,219 @@ public class CountMinSketch<K extends Divisible> {
         Preconditions.checkArgument(hashes.length == this.getSketch().size(),
                 "The number of hashes has to be of the same size than the number of columns in the sketch");
 
+        long start = SketchMetrics.startEstimate();
+        long min = Long.MAX_VALUE;
+
+        BucketingStrategy bucketing = this.bucketing;
+
+        for (int i = 0; i < hashes.length; i++) {
+            long val = rows[i][hashes[i].bucket(bucketing)];
+
+            if (min > val) {
+                min = val;
+            }
+        }
+
+        SketchMetrics.onEstimate(SketchKind.COUNT_MIN_SKETCH, start);
+
+        return min;
+    }
+
+    /**
+     * Queries the sketch to estimate the frequency of the given element represented by one primitive 64 bits hash per
+     * row
+     *
+     * @param hashes The hashes to use
+     * @return Returns the estimation for the point query
+     */
+    public long estimatePointQuery(@Nonnull long[] hashes) {
+        Preconditions.checkArgument(hashes.length == this.getNumRows(),
+                "The number of hashes has to be of the same size than the number of rows in the sketch");
+
+        long start = SketchMetrics.startEstimate();
         long min = Long.MAX_VALUE;
 
-        int numCols = getNumCols();
+        BucketingStrategy bucketing = this.bucketing;
 
         for (int i = 0; i < hashes.length; i++) {
-            K hash = hashes[i];
+            long val = rows[i][bucketing.bucket(hashes[i])];
+
+            if (min > val) {
+                min = val;
+            }
+        }
+
+        SketchMetrics.onEstimate(SketchKind.COUNT_MIN_SKETCH, start);
 
-            long val = this.getSketch().get(i)[hash.mod(numCols)];
+        return min;
+    }
+
+    /**
+     * Queries the sketch to estimate the frequency of the given element represented by one primitive 32 bits hash per
+     * row
+     *
+     * @param hashes The hashes to use
+     * @return Returns the estimation for the point query
+     */
+    public long estimatePointQuery(@Nonnull int[] hashes) {
+        Preconditions.checkArgument(hashes.length == this.getNumRows(),
+                "The number of hashes has to be of the same size than the number of rows in the sketch");
+
+        long start = SketchMetrics.startEstimate();
+        long min = Long.MAX_VALUE;
+
+        BucketingStrategy bucketing = this.bucketing;
+
+        for (int i = 0; i < hashes.length; i++) {
+            long val = rows[i][bucketing.bucket(hashes[i])];
 
             if (min > val) {
                 min = val;
             }
         }
 
+        SketchMetrics.onEstimate(SketchKind.COUNT_MIN_SKETCH, start);
+
         return min;
     }
 
     //endregion
 
 
-    //region
+    //region Single hash
+
+    /**
+     * Increments the count of the element represented by a single 64 bits hash. The index for each row is derived
+     * from the two 32 bits halves of the hash with double hashing, <i>h1 + i * h2</i>, as described by Kirsch and
+     * Mitzenmacher in <a href="https://www.eecs.harvard.edu/~michaelm/postscripts/rsa2008.pdf">Less Hashing, Same
+     * Performance</a>, so only one hash has to be computed per element regardless of the number of rows.
+     * <br>
+     * The second half is made odd before using it, as a zero <i>h2</i> would map the element to the same column in
+     * every row
+     *
+     * @param hash The hash of the element
+     *
+     * @see CountMinSketch#addSingleHashed(long, long)
+     */
+    public void addSingleHashed(long hash) {
+        addSingleHashed(1, hash);
+    }
+
+    /**
+     * Adds the element represented by a single 64 bits hash to the sketch <i>count</i> times
+     *
+     * @param count Number of times to add the element to the sketch
+     * @param hash  The hash of the element
+     *
+     * @see CountMinSketch#addSingleHashed(long)
+     */
+    public void addSingleHashed(long count, long hash) {
+        int hash1 = (int) hash;
+        // Odd, so a zero half doesn't send the element to the same column of every row
+        int hash2 = (int) (hash >>> 32) | 1;
+
+        BucketingStrategy bucketing = this.bucketing;
+        long[][] rows = this.rows;
+
+        for (int i = 0; i < rows.length; i++) {
+            rows[i][bucketing.bucket(hash1 + i * hash2)] += count;
+        }
+
+        SketchMetrics.getListener().onElementsAdded(SketchKind.COUNT_MIN_SKETCH, count);
+    }
+
+    /**
+     * Adds the element represented by a single 128 bits hash to the sketch <i>count</i> times. The index for each row
+     * is derived from the two 64 bits halves of the hash with double hashing, <i>h1 + i * h2</i>, with <i>h2</i>
+     * made odd
+     *
+     * @param count Number of times to add the element to the sketch
+     * @param hash1 The first 64 bits of the hash of the element
+     * @param hash2 The last 64 bits of the hash of the element
+     *
+     * @see CountMinSketch#addSingleHashed(long)
+     */
+    public void addSingleHashed(long count, long hash1, long hash2) {
+        long step = hash2 | 1;
+
+        BucketingStrategy bucketing = this.bucketing;
+        long[][] rows = this.rows;
+
+        for (int i = 0; i < rows.length; i++) {
+            rows[i][bucketing.bucket(hash1 + i * step)] += count;
+        }
+
+        SketchMetrics.getListener().onElementsAdded(SketchKind.COUNT_MIN_SKETCH, count);
+    }
 
+    /**
+     * Adds a batch of elements, each one represented by a single 64 bits hash, in one tight loop
+     *
+     * @param hashes The hashes of the elements
+     * @param offset Position of the first hash to add
+     * @param length Number of hashes to add
+     *
+     * @see CountMinSketch#addSingleHashed(long)
+     */
+    public void addSingleHashedBatch(@Nonnull long[] hashes, int offset, int length) {
+        Preconditions.checkPositionIndexes(offset, offset + length, hashes.length);
 
+        for (int i = offset; i < offset + length; i++) {
+            addSingleHashed(1, hashes[i]);
+        }
+    }
+
+    /**
+     * Queries the sketch to estimate the frequency of the element represented by a single 64 bits hash
+     *
+     * @param hash The hash of the element
+     * @return Returns the estimation for the point query
+     *
+     * @see CountMinSketch#addSingleHashed(long)
+     */
+    public long estimatePointQuerySingleHashed(long hash) {
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32) | 1;
+
+        BucketingStrategy bucketing = this.bucketing;
+        long[][] rows = this.rows;
+        long start = SketchMetrics.startEstimate();
+        long min = Long.MAX_VALUE;
+
+        for (int i = 0; i < rows.length; i++) {
+            min = Math.min(min, rows[i][bucketing.bucket(hash1 + i * hash2)]);
+        }
+
+        SketchMetrics.onEstimate(SketchKind.COUNT_MIN_SKETCH, start);
+
+        return min;
+    }
+
+    /**
+     * Queries the sketch to estimate the frequency of the element represented by a single 128 bits hash
+     *
+     * @param hash1 The first 64 bits of the hash of the element
+     * @param hash2 The last 64 bits of the hash of the element
+     * @return Returns the estimation for the point query
+     *
+     * @see CountMinSketch#addSingleHashed(long, long, long)
+     */
+    public long estimatePointQuerySingleHashed(long hash1, long hash2) {
+        long step = hash2 | 1;
+
+        BucketingStrategy bucketing = this.bucketing;
+        long[][] rows = this.rows;
+        long start = SketchMetrics.startEstimate();
+        long min = Long.MAX_VALUE;
+
+        for (int i = 0; i < rows.length; i++) {
+            min = Math.min(min, rows[i][bucketing.bucket(hash1 + i * step)]);
+        }
+
+        SketchMetrics.onEstimate(SketchKind.COUNT_MIN_SKETCH, start);
+
+        return min;
+    }
 
     //endregion
 
@@ -126,11 +442,11 @@ public class CountMinSketch<K extends Divisible> {
     //region Getters and Setters
 
     protected int getNumRows() {
-        return getSketch().size();
+        return rows.length;
     }
 
     protected int getNumCols() {
-        return getSketch().get(0).length;
+        return rows[0].length;
     }
 
     protected ArrayList<long[]> getSketch() {
@@ -139,6 +455,20 @@ public class CountMinSketch<K extends Divisible> {
 
     protected void setSketch(ArrayList<long[]> sketch) {
         this.sketch = sketch;
+        this.rows = sketch.toArray(new long[sketch.size()][]);
+
+        if (!sketch.isEmpty() && bucketing.getWidth() != sketch.get(0).length) {
+            this.bucketing = bucketing.withWidth(sketch.get(0).length);
+        }
+    }
+
+    /**
+     * Gets the strategy used to map hashes into columns of the sketch
+     *
+     * @return The bucketing strategy
+     */
+    protected BucketingStrategy getBucketingStrategy() {
+        return bucketing;
     }
 
     //endregion
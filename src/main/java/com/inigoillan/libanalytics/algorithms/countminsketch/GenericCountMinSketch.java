@@ -0,0 +1,114 @@
+package com.inigoillan.libanalytics.algorithms.countminsketch;
+
+import com.google.common.base.MoreObjects;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import com.inigoillan.libanalytics.hash.hasher.LongHasher;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Adds support for adding a generic element to the Count-Min sketch using a given {@link LongHasher}.
+ * <br>
+ * Each element is hashed only once, and the index for every row is derived from that single hash
+ *
+ * @param <E> The type of the elements added to the sketch
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ *
+ * @see CountMinSketch#addSingleHashed(long)
+ */
+public class GenericCountMinSketch<E> extends CountMinSketch<Divisible> {
+    private LongHasher<E> hasher;
+
+    //region ctors
+
+    public GenericCountMinSketch(@Nonnegative int numRows, @Nonnegative int numCols, @Nonnull LongHasher<E> hasher) {
+        super(numRows, numCols);
+
+        this.hasher = hasher;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param numRows   Number of rows of the sketch
+     * @param bucketing The strategy mapping the hashes into the columns of each row
+     * @param hasher    The hasher of the elements
+     */
+    public GenericCountMinSketch(@Nonnegative int numRows, @Nonnull BucketingStrategy bucketing,
+                                 @Nonnull LongHasher<E> hasher) {
+        super(numRows, bucketing);
+
+        this.hasher = hasher;
+    }
+
+    //endregion
+
+
+    //region addElement
+
+    /**
+     * Increments the count of the element in the sketch
+     *
+     * @param element The element to add
+     */
+    public void addElement(@Nonnull E element) {
+        addSingleHashed(1, hasher.hashToLong(element));
+    }
+
+    /**
+     * Adds the element to the sketch <i>count</i> times
+     *
+     * @param count   Number of times to add the element
+     * @param element The element to add
+     */
+    public void addElement(long count, @Nonnull E element) {
+        addSingleHashed(count, hasher.hashToLong(element));
+    }
+
+    //endregion
+
+
+    //region estimatePointQuery
+
+    /**
+     * Queries the sketch to estimate the frequency of the given element
+     *
+     * @param element The element to query
+     * @return Returns the estimation for the point query
+     */
+    public long estimateElementPointQuery(@Nonnull E element) {
+        return estimatePointQuerySingleHashed(hasher.hashToLong(element));
+    }
+
+    //endregion
+
+
+    //region Getters and setters
+
+    protected LongHasher<E> getHasher() {
+        return hasher;
+    }
+
+    protected void setHasher(@Nonnull LongHasher<E> hasher) {
+        this.hasher = hasher;
+    }
+
+    //endregion
+
+
+    //region toString
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this.getClass())
+                .add("rows", this.getNumRows())
+                .add("columns", this.getNumCols())
+                .add("hasher", this.getHasher())
+                .toString();
+    }
+
+    //endregion
+}
@@ -0,0 +1,716 @@
+package com.inigoillan.libanalytics.algorithms.minhash;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.inigoillan.libanalytics.algorithms.Mergeable;
+import com.inigoillan.libanalytics.collections.LongHashSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * MinHash implementation specialized for primitive 64 bits hashes.
+ * <br>
+ * It behaves as {@link MinHash} does, keeping the <i>k</i> smallest distinct hashes added, but it keeps them in a
+ * primitive array instead of a tree of boxed hashes, so adding a hash doesn't allocate any object:
+ * <ul>
+ *     <li>While hashes are being added the array is a max-heap, so the biggest hash kept, the one to evict, is at
+ *     the root, and a hash not smaller than it is discarded with a single comparison. A primitive hash set next to
+ *     the heap discards the hashes already kept</li>
+ *     <li>Once frozen with {@link #freeze()} the array is sorted in ascending order and the hash set is released,
+ *     taking 8 bytes per hash. Adding a hash to a frozen minhash turns the array into a heap again</li>
+ * </ul>
+ * The estimates, the merges, the getters and equals don't change the minhash, so a minhash no longer taking hashes
+ * can be read from many threads at once. They read the sorted hashes of a frozen minhash in place, and sort a copy of
+ * them otherwise, so freeze the minhashes once they're done taking hashes if they're read many times
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ *
+ * @see MinHash
+ */
+public class LongMinHash implements Mergeable<LongMinHash> {
+    // Minhashes merged in a single heap by the multi-way estimation before splitting them across the pool
+    private static final int CHUNK_MIN_HASHES = 32;
+
+    //region Variables
+
+    private long[] values;
+    private int size = 0;
+
+    // The hashes in the heap, null while the minhash is frozen
+    private LongHashSet members;
+
+    //endregion
+
+
+    //region ctors
+
+    public LongMinHash(int maxSize) {
+        Preconditions.checkArgument(maxSize > 0);
+
+        this.values = new long[maxSize];
+        this.members = new LongHashSet(maxSize);
+    }
+
+    //endregion
+
+
+    //region addHashed
+
+    /**
+     * Adds the 64 bits hash to the set
+     *
+     * @param hash The hash to add to the set
+     */
+    public void addHashed(long hash) {
+        int maxSize = values.length;
+
+        if (members == null) {
+            if ((size == maxSize && hash >= values[size - 1]) || Arrays.binarySearch(values, 0, size, hash) >= 0) {
+                return;
+            }
+
+            thaw();
+        }
+
+        if (size == maxSize && hash >= values[0]) {
+            return;
+        }
+
+        if (members.contains(hash)) {
+            return;
+        }
+
+        // The root leaves the set before the hash joins it, so the set never holds more than maxSize hashes
+        if (size < maxSize) {
+            siftUp(size++, hash);
+        } else {
+            members.remove(values[0]);
+            siftDown(0, hash, size);
+        }
+
+        members.add(hash);
+    }
+
+    /**
+     * Adds the 32 bits hash to the set. The hash is taken as unsigned, as in the other sketches
+     *
+     * @param hash The hash to add to the set
+     */
+    public void addHashed(int hash) {
+        addHashed(Integer.toUnsignedLong(hash));
+    }
+
+    /**
+     * Adds a batch of 64 bits hashes to the set in one tight loop
+     *
+     * @param hashes The hashes to add to the set
+     * @param offset Position of the first hash to add
+     * @param length Number of hashes to add
+     */
+    public void addHashedBatch(@Nonnull long[] hashes, int offset, int length) {
+        Preconditions.checkPositionIndexes(offset, offset + length, hashes.length);
+
+        for (int i = offset; i < offset + length; i++) {
+            addHashed(hashes[i]);
+        }
+    }
+
+    //endregion
+
+
+    //region Heap
+
+    /**
+     * Moves the hash up from the position until its parent isn't smaller
+     */
+    private void siftUp(int position, long hash) {
+        long[] values = this.values;
+
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+
+            if (values[parent] >= hash) {
+                break;
+            }
+
+            values[position] = values[parent];
+            position = parent;
+        }
+
+        values[position] = hash;
+    }
+
+    /**
+     * Moves the hash down from the position until none of its children within the heap size is bigger
+     */
+    private void siftDown(int position, long hash, int heapSize) {
+        long[] values = this.values;
+        int child;
+
+        while ((child = 2 * position + 1) < heapSize) {
+            if (child + 1 < heapSize && values[child + 1] > values[child]) {
+                child++;
+            }
+
+            if (values[child] <= hash) {
+                break;
+            }
+
+            values[position] = values[child];
+            position = child;
+        }
+
+        values[position] = hash;
+    }
+
+    /**
+     * Freezes the minhash, sorting the heap in ascending order in place and releasing the hash set of its members.
+     * Nothing is done if the minhash is already frozen
+     */
+    public void freeze() {
+        if (members == null) {
+            return;
+        }
+
+        for (int end = size - 1; end > 0; end--) {
+            long max = values[0];
+
+            siftDown(0, values[end], end);
+            values[end] = max;
+        }
+
+        members = null;
+    }
+
+    /**
+     * Turns the sorted hashes of a frozen minhash back into a heap. Reversed, they are already a max-heap
+     */
+    private void thaw() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            long value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+
+        members = new LongHashSet(values.length);
+
+        for (int i = 0; i < size; i++) {
+            members.add(values[i]);
+        }
+    }
+
+    /**
+     * Whether the minhash is frozen, keeping its hashes sorted
+     *
+     * @return True if the minhash is frozen
+     */
+    public boolean isFrozen() {
+        return members == null;
+    }
+
+    //endregion
+
+
+    //region merge
+
+    /**
+     * Merges both minhashes into a new frozen one keeping the smallest distinct hashes of both, up to the smaller
+     * maximum size. Neither minhash is modified
+     *
+     * @param minHash The minhash to merge with
+     * @return A new minhash, holding the merge of both
+     */
+    @Nonnull
+    @Override
+    public LongMinHash merge(@Nonnull LongMinHash minHash) {
+        long[] values = this.getSortedValues();
+        long[] otherValues = minHash.getSortedValues();
+
+        int maxSize = Math.min(minHash.getMaxSize(), this.getMaxSize());
+        LongMinHash newMinHash = new LongMinHash(maxSize);
+        long[] merged = newMinHash.values;
+        int size = 0;
+
+        for (int i = 0, j = 0; size < maxSize && (i < this.size || j < minHash.size); ) {
+            long value;
+
+            if (j == minHash.size || (i < this.size && values[i] < otherValues[j])) {
+                value = values[i++];
+            } else if (i == this.size || otherValues[j] < values[i]) {
+                value = otherValues[j++];
+            } else {
+                value = values[i++];
+                j++;
+            }
+
+            merged[size++] = value;
+        }
+
+        newMinHash.size = size;
+        newMinHash.members = null;
+
+        return newMinHash;
+    }
+
+    //endregion
+
+
+    //region estimateJaccardIndex
+
+    /**
+     * Estimates the Jaccard Index between this minhash and the one provided in the parameter with the bottom-k
+     * estimator: out of the <i>k</i> smallest hashes of the union of both sets, the fraction that is in both sets,
+     * where <i>k</i> is the smaller of both maximum sizes.
+     * <br>
+     * The sorted hashes of both minhashes are walked together once, stopping after the <i>k</i>
+     * smallest hashes of the union. A run of hashes of one set smaller than the next hash of the other one is
+     * skipped with a galloping search, so sets of very different sizes or barely overlapping cost about
+     * <i>O(log k)</i> per run instead of a step per hash
+     *
+     * @param minHash The MinHash against which to estimate the Jaccard Index
+     *
+     * @return the Jaccard Index as a [0..1] value. Note this method doesn't cause any changes in the hashes kept
+     */
+    public float estimateJaccardIndex(@Nonnull LongMinHash minHash) {
+        if (this.size == 0 || minHash.size == 0) {
+            return 0;
+        }
+
+        return estimateJaccardIndex(this.getSortedValues(), this.size, minHash.getSortedValues(), minHash.size,
+                Math.min(this.getMaxSize(), minHash.getMaxSize()));
+    }
+
+    /**
+     * Bottom-k Jaccard Index estimation of two sorted arrays of distinct hashes, neither of them empty
+     */
+    private static float estimateJaccardIndex(long[] values, int size, long[] otherValues, int otherSize, int k) {
+        // Hashes of each array walked, and hashes of the union walked
+        int i = 0, j = 0, unionSize = 0, intersectionCounter = 0;
+
+        while (unionSize < k && i < size && j < otherSize) {
+            long value = values[i];
+            long otherValue = otherValues[j];
+
+            if (value == otherValue) {
+                intersectionCounter++;
+                unionSize++;
+                i++;
+                j++;
+            } else if (value < otherValue) {
+                // Most runs are a single hash long, so the search only starts on the second one
+                int end = i + 1 < size && values[i + 1] < otherValue ?
+                        gallop(values, i + 2, Math.min(size, i + k - unionSize), otherValue) : i + 1;
+                unionSize += Math.min(end - i, k - unionSize);
+                i = end;
+            } else {
+                int end = j + 1 < otherSize && otherValues[j + 1] < value ?
+                        gallop(otherValues, j + 2, Math.min(otherSize, j + k - unionSize), value) : j + 1;
+                unionSize += Math.min(end - j, k - unionSize);
+                j = end;
+            }
+        }
+
+        // Once an array runs out, the rest of the union are hashes of the other one only
+        unionSize += Math.min(k - unionSize, (size - i) + (otherSize - j));
+
+        return (float) intersectionCounter / unionSize;
+    }
+
+    /**
+     * Finds the first position in [from, to) whose hash isn't smaller than the key, or <i>to</i> if there is none,
+     * probing positions at exponentially growing distances before binary searching the last gap
+     */
+    private static int gallop(long[] values, int from, int to, long key) {
+        int low = from;
+        int step = 1;
+
+        while (low < to && values[low] < key) {
+            from = low + 1;
+            low += step;
+            step <<= 1;
+        }
+
+        int high = Math.min(low, to);
+
+        // values[from - 1] < key, and values[high] >= key if high < to
+        while (from < high) {
+            int middle = (from + high) >>> 1;
+
+            if (values[middle] < key) {
+                from = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return from;
+    }
+
+    //endregion
+
+
+    //region Multi-way estimateJaccardIndex
+
+    /**
+     * Estimates the Jaccard Index of all the given minhashes with the bottom-k estimator: out of the <i>k</i>
+     * smallest hashes of the union of all the sets, the fraction that is in every set, where <i>k</i> is the
+     * smallest of the maximum sizes.
+     * <br>
+     * The sorted minhashes are merged with a primitive heap, stopping after the <i>k</i> smallest hashes of the
+     * union, in <i>O(k log n)</i> for <i>n</i> minhashes. The minhashes aren't modified
+     *
+     * @param minHashes The minhashes, at least one
+     * @return the Jaccard Index as a [0..1] value, 0 if any of the minhashes is empty
+     */
+    public static float estimateJaccardIndex(@Nonnull List<LongMinHash> minHashes) {
+        return estimateJaccardIndex(minHashes, null);
+    }
+
+    /**
+     * Estimates the Jaccard Index of all the given minhashes as {@link #estimateJaccardIndex(List)} does, splitting
+     * the minhashes in chunks merged in parallel in the pool.
+     * <br>
+     * Every chunk keeps the <i>k</i> smallest hashes of the union of its minhashes, along with the ones among them
+     * in all of its minhashes. Any hash among the <i>k</i> smallest of the whole union is among the <i>k</i>
+     * smallest of the union of its chunk, so the chunks are combined merging their unions and intersecting their
+     * intersections
+     *
+     * @param minHashes The minhashes, at least one
+     * @param pool      The pool merging the chunks, or null to merge all the minhashes in the calling thread
+     * @return the Jaccard Index as a [0..1] value, 0 if any of the minhashes is empty
+     */
+    public static float estimateJaccardIndex(@Nonnull List<LongMinHash> minHashes, @Nullable ForkJoinPool pool) {
+        Preconditions.checkArgument(minHashes.size() > 0, "At least a minhash is needed");
+
+        long[][] signatures = new long[minHashes.size()][];
+        int[] sizes = new int[signatures.length];
+        int k = Integer.MAX_VALUE;
+        int i = 0;
+
+        for (LongMinHash minHash : minHashes) {
+            if (minHash.size == 0) {
+                return 0;
+            }
+
+            signatures[i] = minHash.getSortedValues();
+            sizes[i++] = minHash.size;
+            k = Math.min(k, minHash.getMaxSize());
+        }
+
+        UnionBottomK bottomK = pool == null || signatures.length <= CHUNK_MIN_HASHES ?
+                UnionBottomK.merge(signatures, sizes, 0, signatures.length, k) :
+                pool.invoke(new UnionBottomKTask(signatures, sizes, 0, signatures.length, k));
+
+        return bottomK.estimateJaccardIndex();
+    }
+
+    //endregion
+
+
+    //region Getters and Setters
+
+    /**
+     * Gets a copy of the hashes kept in the set, sorted in ascending order
+     *
+     * @return The hashes in the set
+     */
+    public long[] getValues() {
+        return members == null ? Arrays.copyOf(values, size) : getSortedValues();
+    }
+
+    /**
+     * Gets the hashes kept in the set sorted in ascending order, without modifying the minhash: the hashes of a
+     * frozen minhash in place, or a sorted copy of the heap otherwise. Only the first {@link #getSize()} positions
+     * hold hashes
+     *
+     * @return The sorted hashes. Note they aren't a copy if the minhash is frozen
+     */
+    private long[] getSortedValues() {
+        if (members == null) {
+            return values;
+        }
+
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+
+        return sorted;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    protected int getMaxSize() {
+        return values.length;
+    }
+
+    /**
+     * Gets the admission threshold of the set: once it's full, the biggest hash kept. Hashes not smaller than the
+     * threshold don't change the set, so batches can be filtered with it before being added
+     * minhash
+     *
+     * @return The threshold, or {@link Long#MAX_VALUE} while the set isn't full. In that case a hash equal to
+     * {@link Long#MAX_VALUE} could still be added
+     */
+    public long getThreshold() {
+        if (size < values.length) {
+            return Long.MAX_VALUE;
+        }
+
+        return members == null ? values[size - 1] : values[0];
+    }
+
+    //endregion
+
+
+    //region toString, HashCode and Equals
+
+    @Override
+    public String toString() {
+        return toStringHelper().toString();
+    }
+
+    protected MoreObjects.ToStringHelper toStringHelper() {
+        return MoreObjects.toStringHelper(this.getClass())
+                .add("sketch max size", this.getMaxSize())
+                .add("sketch elements", Arrays.toString(this.getValues()));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(this.getValues()) + this.getMaxSize();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LongMinHash))
+            return false;
+
+        if (o == this)
+            return true;
+
+        LongMinHash minHash = ((LongMinHash) o);
+
+        if (this.getMaxSize() != minHash.getMaxSize() || this.size != minHash.size)
+            return false;
+
+        long[] values = this.getSortedValues();
+        long[] otherValues = minHash.getSortedValues();
+
+        for (int i = 0; i < size; i++) {
+            if (values[i] != otherValues[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    //endregion
+
+
+    //region Inner classes
+
+    /**
+     * The <i>k</i> smallest hashes of the union of some minhashes, and those of them in all the minhashes, both
+     * sorted
+     */
+    private static final class UnionBottomK {
+        private final long[] union;
+        private final int unionSize;
+        private final long[] intersection;
+        private final int intersectionSize;
+
+        private UnionBottomK(long[] union, int unionSize, long[] intersection, int intersectionSize) {
+            this.union = union;
+            this.unionSize = unionSize;
+            this.intersection = intersection;
+            this.intersectionSize = intersectionSize;
+        }
+
+        /**
+         * Merges the sorted hashes of the minhashes in [from, to) with a min-heap of the minhashes keyed by their
+         * next hash, popping every minhash holding the smallest hash at once
+         */
+        private static UnionBottomK merge(long[][] signatures, int[] sizes, int from, int to, int k) {
+            int count = to - from;
+            int[] heap = new int[count];
+            int[] positions = new int[count];
+            long[] heads = new long[count];
+            int heapSize = 0;
+
+            for (int i = 0; i < count; i++) {
+                heads[i] = signatures[from + i][0];
+                heapSize = pushSource(heap, heapSize, heads, i);
+            }
+
+            long[] union = new long[k];
+            long[] intersection = new long[k];
+            int unionSize = 0;
+            int intersectionSize = 0;
+
+            while (unionSize < k && heapSize > 0) {
+                long hash = heads[heap[0]];
+                int holders = 0;
+
+                // Every minhash holds a hash at most once, so the ones holding it are popped one each
+                while (heapSize > 0 && heads[heap[0]] == hash) {
+                    int source = heap[0];
+                    int position = ++positions[source];
+
+                    holders++;
+
+                    if (position < sizes[from + source]) {
+                        heads[source] = signatures[from + source][position];
+                    } else {
+                        heap[0] = heap[--heapSize];
+                    }
+
+                    siftDownSource(heap, heapSize, heads, 0);
+                }
+
+                union[unionSize++] = hash;
+
+                if (holders == count) {
+                    intersection[intersectionSize++] = hash;
+                }
+            }
+
+            return new UnionBottomK(union, unionSize, intersection, intersectionSize);
+        }
+
+        private static int pushSource(int[] heap, int heapSize, long[] heads, int source) {
+            int position = heapSize;
+            long head = heads[source];
+
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+
+                if (heads[heap[parent]] <= head) {
+                    break;
+                }
+
+                heap[position] = heap[parent];
+                position = parent;
+            }
+
+            heap[position] = source;
+
+            return heapSize + 1;
+        }
+
+        private static void siftDownSource(int[] heap, int heapSize, long[] heads, int position) {
+            if (heapSize == 0) {
+                return;
+            }
+
+            int source = heap[position];
+            long head = heads[source];
+            int child;
+
+            while ((child = 2 * position + 1) < heapSize) {
+                if (child + 1 < heapSize && heads[heap[child + 1]] < heads[heap[child]]) {
+                    child++;
+                }
+
+                if (heads[heap[child]] >= head) {
+                    break;
+                }
+
+                heap[position] = heap[child];
+                position = child;
+            }
+
+            heap[position] = source;
+        }
+
+        /**
+         * Combines the bottom-k of two disjoint groups of minhashes: the <i>k</i> smallest of both unions, and the
+         * hashes in both intersections up to the biggest hash of the combined union
+         */
+        private UnionBottomK combine(UnionBottomK other, int k) {
+            long[] union = new long[k];
+            int unionSize = 0;
+
+            for (int i = 0, j = 0; unionSize < k && (i < this.unionSize || j < other.unionSize); ) {
+                if (j == other.unionSize || (i < this.unionSize && this.union[i] < other.union[j])) {
+                    union[unionSize++] = this.union[i++];
+                } else if (i == this.unionSize || other.union[j] < this.union[i]) {
+                    union[unionSize++] = other.union[j++];
+                } else {
+                    union[unionSize++] = this.union[i++];
+                    j++;
+                }
+            }
+
+            long maxHash = union[unionSize - 1];
+            long[] intersection = new long[Math.min(this.intersectionSize, other.intersectionSize)];
+            int intersectionSize = 0;
+
+            for (int i = 0, j = 0; i < this.intersectionSize && j < other.intersectionSize; ) {
+                long hash = this.intersection[i];
+                long otherHash = other.intersection[j];
+
+                if (hash > maxHash || otherHash > maxHash) {
+                    break;
+                }
+
+                if (hash == otherHash) {
+                    intersection[intersectionSize++] = hash;
+                }
+
+                i += hash <= otherHash ? 1 : 0;
+                j += otherHash <= hash ? 1 : 0;
+            }
+
+            return new UnionBottomK(union, unionSize, intersection, intersectionSize);
+        }
+
+        private float estimateJaccardIndex() {
+            return (float) intersectionSize / unionSize;
+        }
+    }
+
+    /**
+     * Merges a range of minhashes, splitting it in halves until there are few enough minhashes to merge them in one
+     * heap
+     */
+    private static final class UnionBottomKTask extends RecursiveTask<UnionBottomK> {
+        private final long[][] signatures;
+        private final int[] sizes;
+        private final int from;
+        private final int to;
+        private final int k;
+
+        private UnionBottomKTask(long[][] signatures, int[] sizes, int from, int to, int k) {
+            this.signatures = signatures;
+            this.sizes = sizes;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+        }
+
+        @Override
+        protected UnionBottomK compute() {
+            if (to - from <= CHUNK_MIN_HASHES) {
+                return UnionBottomK.merge(signatures, sizes, from, to, k);
+            }
+
+            int middle = (from + to) >>> 1;
+            UnionBottomKTask left = new UnionBottomKTask(signatures, sizes, from, middle, k);
+            UnionBottomKTask right = new UnionBottomKTask(signatures, sizes, middle, to, k);
+
+            right.fork();
+            UnionBottomK leftBottomK = left.compute();
+
+            return leftBottomK.combine(right.join(), k);
+        }
+    }
+
+    //endregion
+}
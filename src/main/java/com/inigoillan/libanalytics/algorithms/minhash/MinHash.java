@@ -7,9 +7,15 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.inigoillan.libanalytics.algorithms.Mergeable;
+import com.inigoillan.libanalytics.metrics.SketchKind;
+import com.inigoillan.libanalytics.metrics.SketchMetrics;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.TreeSet;
 
 /**
@@ -33,6 +39,9 @@ public class MinHash<K extends Comparable> implements Mergeable<MinHash<K>> {
     private TreeSet<K> treeSet = new TreeSet<K>();
     private int maxSize;
 
+    // The biggest hash kept once the set is full, null until then
+    private K threshold;
+
     //endregion
 
 
@@ -50,15 +59,22 @@ public class MinHash<K extends Comparable> implements Mergeable<MinHash<K>> {
     //region addHashed
 
     /**
-     * Adds the element to the set
+     * Adds the element to the set. Once the set is full, a hash not smaller than the threshold is discarded with a
+     * single comparison, without touching the set
      *
      * @param hash The Hash to add to the set
      */
-
+    @SuppressWarnings("unchecked")
     public void addHashed(@Nonnull K hash) {
-        getTreeSet().add(hash);
+        SketchMetrics.getListener().onElementsAdded(SketchKind.MIN_HASH, 1);
 
-        removeExtra();
+        if (threshold != null && hash.compareTo(threshold) >= 0) {
+            return;
+        }
+
+        if (getTreeSet().add(hash)) {
+            removeExtra();
+        }
     }
 
     //endregion
@@ -76,6 +92,8 @@ public class MinHash<K extends Comparable> implements Mergeable<MinHash<K>> {
         newMinHash.mergeHelper(minHash);
         newMinHash.mergeHelper(this);
 
+        SketchMetrics.getListener().onMerge(SketchKind.MIN_HASH);
+
         return newMinHash;
 
     }
@@ -97,6 +115,14 @@ public class MinHash<K extends Comparable> implements Mergeable<MinHash<K>> {
         while (getTreeSet().size() > getMaxSize()) {
             getTreeSet().pollLast();
         }
+
+        updateThreshold();
+    }
+
+    private void updateThreshold() {
+        TreeSet<K> treeSet = getTreeSet();
+
+        this.threshold = treeSet != null && treeSet.size() >= getMaxSize() ? treeSet.last() : null;
     }
 
     //endregion
@@ -105,34 +131,77 @@ public class MinHash<K extends Comparable> implements Mergeable<MinHash<K>> {
     //region estimateJaccardIndex
 
     /**
-     * Estimates the Jaccard Index between this minhash and the one provided in the parameter
+     * Estimates the Jaccard Index between this minhash and the one provided in the parameter with the bottom-k
+     * estimator: out of the <i>k</i> smallest hashes of the union of both sets, the fraction that is in both sets,
+     * where <i>k</i> is the smaller of both maximum sizes.
+     * <br>
+     * Both sorted sets are walked together once, stopping after the <i>k</i> smallest hashes of the union
      *
      * @param minHash The MinHash against which to estimate the Jaccard Index
      *
      * @return the Jaccard Index as a [0..1] value. Note this method doesn't cause any changes in the internal state of the class
      */
     public float estimateJaccardIndex(@Nonnull MinHash<K> minHash) {
-        if (this.getTreeSet().size() == 0 || minHash.getTreeSet().size() == 0) {
+        long start = SketchMetrics.startEstimate();
+        float jaccardIndex = computeJaccardIndex(minHash);
+        SketchMetrics.onEstimate(SketchKind.MIN_HASH, start);
+
+        return jaccardIndex;
+    }
+
+    @SuppressWarnings("unchecked")
+    private float computeJaccardIndex(MinHash<K> minHash) {
+        TreeSet<K> hashes = this.getTreeSet();
+        TreeSet<K> otherHashes = minHash.getTreeSet();
+
+        if (hashes.size() == 0 || otherHashes.size() == 0) {
             return 0;
         }
 
-        MinHash<K> smallerMinHash = minHash.getTreeSet().size() > this.getTreeSet().size() ? this : minHash;
-        MinHash<K> otherMinHash = this == smallerMinHash ? minHash : this;
+        int k = Math.min(this.getMaxSize(), minHash.getMaxSize());
+        Iterator<K> iterator = hashes.iterator();
+        Iterator<K> otherIterator = otherHashes.iterator();
+        K hash = iterator.next();
+        K otherHash = otherIterator.next();
+
+        // Hashes of each set walked, and hashes of the union walked
+        int i = 0, j = 0, unionSize = 0, intersectionCounter = 0;
 
-        int intersectionCounter = 0;
+        while (unionSize < k && hash != null && otherHash != null) {
+            int comparison = hash.compareTo(otherHash);
 
-        for (Comparable hash : smallerMinHash.getTreeSet()) {
-            if (otherMinHash.getTreeSet().contains(hash)) {
+            if (comparison == 0) {
                 intersectionCounter++;
             }
+
+            if (comparison <= 0) {
+                hash = iterator.hasNext() ? iterator.next() : null;
+                i++;
+            }
+
+            if (comparison >= 0) {
+                otherHash = otherIterator.hasNext() ? otherIterator.next() : null;
+                j++;
+            }
+
+            unionSize++;
         }
 
-        return (float) intersectionCounter / smallerMinHash.getTreeSet().size();
+        // Once a set runs out, the rest of the union are hashes of the other one only
+        unionSize += Math.min(k - unionSize, (hashes.size() - i) + (otherHashes.size() - j));
+
+        return (float) intersectionCounter / unionSize;
     }
 
 
     /**
-     * Gets the estimated Jaccard Index
+     * Gets the estimated Jaccard Index of all the minhashes with the bottom-k estimator: out of the <i>k</i>
+     * smallest hashes of the union of all the sets, the fraction that is in every set, where <i>k</i> is the smallest
+     * of the maximum sizes.
+     * <br>
+     * The sorted sets are merged with a heap of their iterators, stopping after the <i>k</i> smallest hashes of the
+     * union, in <i>O(k log n)</i> for <i>n</i> minhashes. For primitive hashes and many minhashes, see
+     * {@link LongMinHash#estimateJaccardIndex(List, java.util.concurrent.ForkJoinPool)}
      *
      * @param hashes The MinHashes against to which estimate the Jaccard Index.
      * @return the Jaccard Index as a [0..1] value
@@ -145,42 +214,40 @@ public class MinHash<K extends Comparable> implements Mergeable<MinHash<K>> {
             return 0.0f;
         }
 
-        TreeSet<T> all = new TreeSet<T>();
-        int mink = Integer.MAX_VALUE;
-        int maxs = Integer.MIN_VALUE;
+        PriorityQueue<Cursor<T>> cursors = new PriorityQueue<>();
+        int k = Integer.MAX_VALUE;
 
-        for(MinHash hash :hashes) {
-            all.addAll(hash.getTreeSet());
-            mink = Math.min(mink, hash.getMaxSize());
-            maxs = Math.max(maxs, hash.getTreeSet().size());
+        for (MinHash<T> hash : hashes) {
+            cursors.add(new Cursor<>(hash.getTreeSet().iterator()));
+            k = Math.min(k, hash.getMaxSize());
         }
 
-        mink = maxs < mink ? maxs : mink;
+        int minHashes = cursors.size();
+        int unionSize = 0;
         int result = 0;
 
-        for(int i = 0; i < mink; i++) {
-            Comparable l;
+        while (unionSize < k && !cursors.isEmpty()) {
+            T hash = cursors.peek().head;
+            int holders = 0;
 
-            try {
-                l = all.pollFirst();
-            } catch(NullPointerException e) {
-                //This can happen if k is larger than
-                //the number of insertions.
-                break;
-            }
+            // Every minhash holds a hash at most once, so the ones holding it are polled one each
+            while (!cursors.isEmpty() && cursors.peek().compareTo(hash) == 0) {
+                Cursor<T> cursor = cursors.poll();
+                holders++;
 
-            boolean allContain = true;
-            for(MinHash h : hashes) {
-                if(!h.getTreeSet().contains(l)) {
-                    allContain = false;
-                    break;
+                if (cursor.advance()) {
+                    cursors.add(cursor);
                 }
             }
-            if(allContain) {
-                result += 1;
+
+            unionSize++;
+
+            if (holders == minHashes) {
+                result++;
             }
         }
-        return ((float)result)/mink;
+
+        return ((float) result) / unionSize;
     }
 
     /**
@@ -205,6 +272,8 @@ public class MinHash<K extends Comparable> implements Mergeable<MinHash<K>> {
 
     protected void setTreeSet(TreeSet<K> treeSet) {
         this.treeSet = treeSet;
+
+        updateThreshold();
     }
 
     protected int getMaxSize() {
@@ -213,6 +282,19 @@ public class MinHash<K extends Comparable> implements Mergeable<MinHash<K>> {
 
     protected void setMaxSize(int size) {
         this.maxSize = size;
+
+        updateThreshold();
+    }
+
+    /**
+     * Gets the admission threshold of the set: once it's full, the biggest hash kept. Hashes not smaller than the
+     * threshold don't change the set, so batches can be filtered with it before being added
+     *
+     * @return The threshold, or null while the set isn't full and any hash can be added
+     */
+    @Nullable
+    public K getThreshold() {
+        return threshold;
     }
 
 
@@ -253,5 +335,41 @@ public class MinHash<K extends Comparable> implements Mergeable<MinHash<K>> {
 
     //endregion
 
-}
 
+    //region Cursor class
+
+    /**
+     * The next hash of a sorted set being merged, ordered by it
+     */
+    private static final class Cursor<T extends Comparable> implements Comparable<Cursor<T>> {
+        private final Iterator<T> iterator;
+        private T head;
+
+        private Cursor(Iterator<T> iterator) {
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+
+        private boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+
+            head = iterator.next();
+
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compareTo(T hash) {
+            return head.compareTo(hash);
+        }
+
+        @Override
+        public int compareTo(@Nonnull Cursor<T> cursor) {
+            return compareTo(cursor.head);
+        }
+    }
+
+    //endregion
+}
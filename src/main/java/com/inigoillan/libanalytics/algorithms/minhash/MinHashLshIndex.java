@@ -0,0 +1,577 @@
+package com.inigoillan.libanalytics.algorithms.minhash;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.inigoillan.libanalytics.collections.LongIntHashMap;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Locality-sensitive hashing index finding the signatures similar to a given one without scanning all of them.
+ * <br>
+ * The signatures are MinHash signatures of a fixed size, where position <i>i</i> keeps the minimum of the
+ * <i>i</i>-th hash function over the elements of the set, e.g. built with {@link #newSignature(int)} and
+ * {@link #addToSignature(long[], long, long)}. Two sets share a position with a probability equal to their Jaccard
+ * Index, <i>s</i>.
+ * <br>
+ * The first <i>bands * rows</i> positions are split into <i>bands</i> bands of <i>rows</i> positions, and each band
+ * is hashed into its own table. The signatures sharing a whole band with the query are the candidates, which happens
+ * with probability <i>1 - (1 - s<sup>rows</sup>)<sup>bands</sup></i>, an S-curve whose threshold is around
+ * <i>(1 / bands)<sup>1 / rows</sup></i>. The candidates are then ranked by the fraction of positions of the whole
+ * signature they share with the query.
+ * <br>
+ * The band tables use open addressing over primitive arrays, and the signatures sharing a band value are chained
+ * through an array of slots, so inserting and querying don't allocate. As the rest of the library, the index is not
+ * thread safe
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class MinHashLshIndex {
+    private static final int NO_SLOT = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    //region Variables
+
+    private final int signatureSize;
+    private final int bands;
+    private final int rows;
+
+    private final BandTable[] tables;
+    private final LongIntHashMap slotsById = new LongIntHashMap(INITIAL_CAPACITY, NO_SLOT);
+
+    // Slot s keeps its id in ids[s], its signature from signatures[s * signatureSize], and the next slot sharing
+    // band b with it in nextInBand[s * bands + b]
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] signatures;
+    private int[] nextInBand;
+
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount = 0;
+    private int usedSlots = 0;
+
+    // Stamps the slots already visited by the current query
+    private int[] visited = new int[INITIAL_CAPACITY];
+    private int queryStamp = 0;
+
+    //endregion
+
+
+    //region ctors
+
+    /**
+     * Constructor
+     *
+     * @param signatureSize The number of positions of the signatures
+     * @param bands         The number of bands
+     * @param rows          The number of positions per band. <i>bands * rows</i> can't exceed the signature size
+     */
+    public MinHashLshIndex(@Nonnegative int signatureSize, @Nonnegative int bands, @Nonnegative int rows) {
+        Preconditions.checkArgument(bands > 0 && rows > 0, "The number of bands and rows need to be positive");
+        Preconditions.checkArgument((long) bands * rows <= signatureSize,
+                "The bands don't fit in the signature size");
+
+        this.signatureSize = signatureSize;
+        this.bands = bands;
+        this.rows = rows;
+
+        this.signatures = new long[INITIAL_CAPACITY * signatureSize];
+        this.nextInBand = new int[INITIAL_CAPACITY * bands];
+        this.tables = new BandTable[bands];
+
+        for (int band = 0; band < bands; band++) {
+            tables[band] = new BandTable(band);
+        }
+    }
+
+    /**
+     * Creates an index whose bands and rows put the threshold of its S-curve as close as possible to the given
+     * similarity
+     *
+     * @param signatureSize The number of positions of the signatures
+     * @param threshold     The Jaccard Index from which the signatures should be found
+     * @return The index
+     */
+    @Nonnull
+    public static MinHashLshIndex forThreshold(@Nonnegative int signatureSize, double threshold) {
+        Preconditions.checkArgument(signatureSize > 0, "The signature size needs to be positive");
+        Preconditions.checkArgument(threshold > 0 && threshold < 1, "The threshold needs to be in (0, 1)");
+
+        int bestRows = 1;
+        double bestError = Double.MAX_VALUE;
+
+        for (int rows = 1; rows <= signatureSize; rows++) {
+            int bands = signatureSize / rows;
+            double error = Math.abs(Math.pow(1.0 / bands, 1.0 / rows) - threshold);
+
+            if (error < bestError) {
+                bestError = error;
+                bestRows = rows;
+            }
+        }
+
+        return new MinHashLshIndex(signatureSize, signatureSize / bestRows, bestRows);
+    }
+
+    //endregion
+
+
+    //region Signatures
+
+    /**
+     * Creates an empty signature, every position set to the maximum value
+     *
+     * @param signatureSize The number of positions
+     * @return The signature
+     */
+    @Nonnull
+    public static long[] newSignature(@Nonnegative int signatureSize) {
+        long[] signature = new long[signatureSize];
+        Arrays.fill(signature, Long.MAX_VALUE);
+
+        return signature;
+    }
+
+    /**
+     * Adds an element to the signature, given the 128 bits hash of the element. The hash function of position
+     * <i>i</i> is <i>hash1 + i * hash2</i>, following the double hashing scheme
+     *
+     * @param signature The signature to update
+     * @param hash1     The first 64 bits of the hash of the element
+     * @param hash2     The last 64 bits of the hash of the element
+     */
+    public static void addToSignature(@Nonnull long[] signature, long hash1, long hash2) {
+        for (int i = 0; i < signature.length; i++) {
+            long positionHash = hash1 + i * hash2;
+
+            if (positionHash < signature[i]) {
+                signature[i] = positionHash;
+            }
+        }
+    }
+
+    //endregion
+
+
+    //region Insert and remove
+
+    /**
+     * Inserts a signature into the index. The signature is copied
+     *
+     * @param id        The id of the signature, unique in the index
+     * @param signature The signature
+     * @throws IllegalArgumentException If the id is already in the index, or the signature is of a different size
+     */
+    public void insert(long id, @Nonnull long[] signature) {
+        checkSignature(signature);
+        Preconditions.checkArgument(!slotsById.containsKey(id), "The id %s is already in the index", id);
+
+        int slot = allocateSlot();
+
+        ids[slot] = id;
+        System.arraycopy(signature, 0, signatures, slot * signatureSize, signatureSize);
+        slotsById.put(id, slot);
+
+        for (int band = 0; band < bands; band++) {
+            tables[band].add(bandHash(signature, 0, band), slot);
+        }
+    }
+
+    /**
+     * Removes a signature from the index
+     *
+     * @param id The id of the signature
+     * @return Whether the signature was in the index
+     */
+    public boolean remove(long id) {
+        int slot = slotsById.remove(id);
+
+        if (slot == NO_SLOT) {
+            return false;
+        }
+
+        for (int band = 0; band < bands; band++) {
+            tables[band].remove(bandHash(signatures, slot * signatureSize, band), slot);
+        }
+
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+
+        freeSlots[freeSlotCount++] = slot;
+
+        return true;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+
+        if (usedSlots == ids.length) {
+            int capacity = ids.length * 2;
+
+            ids = Arrays.copyOf(ids, capacity);
+            signatures = Arrays.copyOf(signatures, Math.multiplyExact(capacity, signatureSize));
+            nextInBand = Arrays.copyOf(nextInBand, Math.multiplyExact(capacity, bands));
+            visited = Arrays.copyOf(visited, capacity);
+        }
+
+        return usedSlots++;
+    }
+
+    //endregion
+
+
+    //region Query
+
+    /**
+     * Finds the signatures in the index most similar to the given one, among the ones sharing at least a band with
+     * it. They are written into the arrays from the most similar to the least, as many as the arrays fit
+     *
+     * @param signature    The signature to look for
+     * @param threshold    The minimum similarity, the fraction of positions shared, of the results
+     * @param ids          The array to write the ids of the results into
+     * @param similarities The array to write the similarities of the results into, the same length as the ids
+     * @return The number of results written
+     */
+    public int query(@Nonnull long[] signature, double threshold, @Nonnull long[] ids, @Nonnull double[] similarities) {
+        checkSignature(signature);
+        Preconditions.checkArgument(ids.length == similarities.length,
+                "The arrays of ids and similarities need the same length");
+
+        if (ids.length == 0) {
+            return 0;
+        }
+
+        int stamp = nextQueryStamp();
+        int found = 0;
+
+        for (int band = 0; band < bands; band++) {
+            int slot = tables[band].head(bandHash(signature, 0, band));
+
+            for (; slot != NO_SLOT; slot = nextInBand[slot * bands + band]) {
+                if (visited[slot] == stamp) {
+                    continue;
+                }
+
+                visited[slot] = stamp;
+
+                double similarity = similarity(signature, slot);
+
+                if (similarity < threshold) {
+                    continue;
+                }
+
+                if (found < ids.length) {
+                    ids[found] = this.ids[slot];
+                    similarities[found] = similarity;
+                    siftUp(ids, similarities, found++);
+                } else if (similarity > similarities[0]) {
+                    ids[0] = this.ids[slot];
+                    similarities[0] = similarity;
+                    siftDown(ids, similarities, 0, found);
+                }
+            }
+        }
+
+        // Heap sort: moving the least similar to the end leaves the results from the most similar to the least
+        for (int last = found - 1; last > 0; last--) {
+            swap(ids, similarities, 0, last);
+            siftDown(ids, similarities, 0, last);
+        }
+
+        return found;
+    }
+
+    /**
+     * Runs a batch of queries, passing their results to the consumer
+     *
+     * @param signatures The signatures to look for
+     * @param threshold  The minimum similarity, the fraction of positions shared, of the results
+     * @param limit      The maximum number of results per query
+     * @param consumer   The consumer of the results of each query, from the most similar to the least
+     */
+    public void queryBatch(@Nonnull long[][] signatures, double threshold, @Nonnegative int limit,
+                           @Nonnull ResultConsumer consumer) {
+        long[] ids = new long[limit];
+        double[] similarities = new double[limit];
+
+        for (int query = 0; query < signatures.length; query++) {
+            int found = query(signatures[query], threshold, ids, similarities);
+
+            for (int i = 0; i < found; i++) {
+                consumer.accept(query, ids[i], similarities[i]);
+            }
+        }
+    }
+
+    private double similarity(long[] signature, int slot) {
+        int offset = slot * signatureSize;
+        int equal = 0;
+
+        for (int i = 0; i < signatureSize; i++) {
+            if (signatures[offset + i] == signature[i]) {
+                equal++;
+            }
+        }
+
+        return (double) equal / signatureSize;
+    }
+
+    private int nextQueryStamp() {
+        if (++queryStamp == 0) {
+            Arrays.fill(visited, 0);
+            queryStamp = 1;
+        }
+
+        return queryStamp;
+    }
+
+    private static void siftUp(long[] ids, double[] similarities, int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+
+            if (similarities[parent] <= similarities[position]) {
+                return;
+            }
+
+            swap(ids, similarities, parent, position);
+            position = parent;
+        }
+    }
+
+    private static void siftDown(long[] ids, double[] similarities, int position, int heapSize) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+
+            if (left < heapSize && similarities[left] < similarities[smallest]) {
+                smallest = left;
+            }
+
+            if (right < heapSize && similarities[right] < similarities[smallest]) {
+                smallest = right;
+            }
+
+            if (smallest == position) {
+                return;
+            }
+
+            swap(ids, similarities, position, smallest);
+            position = smallest;
+        }
+    }
+
+    private static void swap(long[] ids, double[] similarities, int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+
+        double similarity = similarities[i];
+        similarities[i] = similarities[j];
+        similarities[j] = similarity;
+    }
+
+    //endregion
+
+
+    //region Helper methods
+
+    private void checkSignature(long[] signature) {
+        Preconditions.checkArgument(signature.length == signatureSize,
+                "The signature has %s positions instead of %s", signature.length, signatureSize);
+    }
+
+    /**
+     * Hashes the positions of a band of the signature starting at the offset
+     */
+    private long bandHash(long[] signature, int offset, int band) {
+        long hash = band * 0x9E3779B97F4A7C15L;
+        int from = offset + band * rows;
+
+        for (int i = from; i < from + rows; i++) {
+            hash = (hash ^ signature[i]) * 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 32;
+        }
+
+        return hash;
+    }
+
+    //endregion
+
+
+    //region Getters
+
+    /**
+     * @return The number of signatures in the index
+     */
+    public int size() {
+        return slotsById.size();
+    }
+
+    public boolean contains(long id) {
+        return slotsById.containsKey(id);
+    }
+
+    public int getSignatureSize() {
+        return signatureSize;
+    }
+
+    public int getBands() {
+        return bands;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    //endregion
+
+
+    //region toString
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this.getClass())
+                .add("signature size", signatureSize)
+                .add("bands", bands)
+                .add("rows", rows)
+                .add("size", size())
+                .toString();
+    }
+
+    //endregion
+
+
+    //region Inner classes
+
+    /**
+     * Consumer of the results of {@link #queryBatch(long[][], double, int, ResultConsumer)}
+     */
+    @FunctionalInterface
+    public interface ResultConsumer {
+        /**
+         * @param query      The position of the query in the batch
+         * @param id         The id of the signature found
+         * @param similarity The fraction of positions shared by the signature and the query
+         */
+        void accept(int query, long id, double similarity);
+    }
+
+    /**
+     * Table of a band, mapping each band hash to the first slot of the chain of signatures sharing it. It uses open
+     * addressing with linear probing. A hash whose chain became empty keeps its entry until the table is resized
+     */
+    private final class BandTable {
+        private static final int EMPTY = -2;
+
+        private final int band;
+
+        private long[] hashes = new long[INITIAL_CAPACITY];
+        private int[] heads = new int[INITIAL_CAPACITY];
+        private int entries = 0;
+
+        private BandTable(int band) {
+            this.band = band;
+
+            Arrays.fill(heads, EMPTY);
+        }
+
+        private int head(long hash) {
+            int position = find(hash);
+
+            return heads[position] == EMPTY ? NO_SLOT : heads[position];
+        }
+
+        private void add(long hash, int slot) {
+            if (2 * (entries + 1) > hashes.length) {
+                resize();
+            }
+
+            int position = find(hash);
+
+            if (heads[position] == EMPTY) {
+                hashes[position] = hash;
+                heads[position] = NO_SLOT;
+                entries++;
+            }
+
+            nextInBand[slot * bands + band] = heads[position];
+            heads[position] = slot;
+        }
+
+        private void remove(long hash, int slot) {
+            int position = find(hash);
+            int current = heads[position];
+
+            if (current == slot) {
+                heads[position] = nextInBand[slot * bands + band];
+                return;
+            }
+
+            while (current != NO_SLOT && current != EMPTY) {
+                int next = nextInBand[current * bands + band];
+
+                if (next == slot) {
+                    nextInBand[current * bands + band] = nextInBand[slot * bands + band];
+                    return;
+                }
+
+                current = next;
+            }
+        }
+
+        /**
+         * Finds the position of the hash, or the empty position where it would go
+         */
+        private int find(long hash) {
+            int mask = hashes.length - 1;
+            int position = (int) (hash ^ (hash >>> 32)) & mask;
+
+            while (heads[position] != EMPTY && hashes[position] != hash) {
+                position = (position + 1) & mask;
+            }
+
+            return position;
+        }
+
+        /**
+         * Rehashes the entries whose chain isn't empty into a table sized for them
+         */
+        private void resize() {
+            long[] oldHashes = hashes;
+            int[] oldHeads = heads;
+
+            int liveEntries = 0;
+
+            for (int head : oldHeads) {
+                if (head >= 0) {
+                    liveEntries++;
+                }
+            }
+
+            int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, liveEntries) * 4 - 1) << 1);
+
+            hashes = new long[capacity];
+            heads = new int[capacity];
+            Arrays.fill(heads, EMPTY);
+            entries = 0;
+
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHeads[i] >= 0) {
+                    int position = find(oldHashes[i]);
+
+                    hashes[position] = oldHashes[i];
+                    heads[position] = oldHeads[i];
+                    entries++;
+                }
+            }
+        }
+    }
+
+    //endregion
+}
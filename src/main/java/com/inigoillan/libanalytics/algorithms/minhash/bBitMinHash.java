@@ -3,6 +3,8 @@ package com.inigoillan.libanalytics.algorithms.minhash;
 import com.google.common.base.Preconditions;
 import com.inigoillan.libanalytics.collections.PackedBitsSet;
 import com.inigoillan.libanalytics.hash.Hash;
+import com.inigoillan.libanalytics.metrics.SketchKind;
+import com.inigoillan.libanalytics.metrics.SketchMetrics;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -20,12 +22,48 @@ public class bBitMinHash<K extends Hash> {
     public bBitMinHash(@Nonnegative int bitsSize, @Nonnegative int setSize) {
         this.bitsSet = new PackedBitsSet(bitsSize, setSize);
         this.bitsSize = bitsSize;
+
+        SketchMetrics.getListener().onAllocated(SketchKind.B_BIT_MIN_HASH, ((long) bitsSize * setSize + 7) / 8);
     }
 
     public void setHashed(@Nonnegative int position, @Nonnull K hash) {
         int bits = hash.getLeastSignificantBits(bitsSize).intValue();
 
         bitsSet.setIthBits(position, bits);
+        SketchMetrics.getListener().onElementsAdded(SketchKind.B_BIT_MIN_HASH, 1);
+    }
+
+    /**
+     * Sets the least significant bits of a primitive 64 bits hash in the given position
+     *
+     * @param position The position in the set
+     * @param hash     The minimum hash for that position
+     */
+    public void setHashed(@Nonnegative int position, long hash) {
+        int bits = (int) (hash & ((1L << bitsSize) - 1));
+
+        bitsSet.setIthBits(position, bits);
+        SketchMetrics.getListener().onElementsAdded(SketchKind.B_BIT_MIN_HASH, 1);
+    }
+
+    /**
+     * Sets the least significant bits of a primitive 32 bits hash in the given position
+     *
+     * @param position The position in the set
+     * @param hash     The minimum hash for that position
+     */
+    public void setHashed(@Nonnegative int position, int hash) {
+        int bits = hash & ((1 << bitsSize) - 1);
+
+        bitsSet.setIthBits(position, bits);
+        SketchMetrics.getListener().onElementsAdded(SketchKind.B_BIT_MIN_HASH, 1);
+    }
+
+    /**
+     * @return The number of positions of the minhash
+     */
+    public int getSetSize() {
+        return bitsSet.getSetSize();
     }
 
     public float estimateJaccardIndex(bBitMinHash<K> minHash) {
@@ -34,14 +72,10 @@ public class bBitMinHash<K extends Hash> {
         Preconditions.checkArgument(minHash.bitsSet.getSetSize() == this.bitsSet.getSetSize(),
                 "You can't estimate the Jaccard Index for bBitMinHashes of different set sizes");
 
+        long start = SketchMetrics.startEstimate();
         int size = this.bitsSet.getSetSize();
-        int equalsFound = 0;
-
-        for (int i = 0; i < size; i++) {
-            if (this.bitsSet.getIthBits(i) == minHash.bitsSet.getIthBits(i)) {
-                equalsFound++;
-            }
-        }
+        int equalsFound = this.bitsSet.countEqualPositions(minHash.bitsSet);
+        SketchMetrics.onEstimate(SketchKind.B_BIT_MIN_HASH, start);
 
         return (float) equalsFound / size;
     }
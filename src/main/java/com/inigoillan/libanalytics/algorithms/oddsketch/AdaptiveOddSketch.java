@@ -0,0 +1,395 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.inigoillan.libanalytics.collections.BitUtils;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import com.inigoillan.libanalytics.metrics.SketchKind;
+import com.inigoillan.libanalytics.metrics.SketchMetrics;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Odd sketch for the long tail of sketches getting just a few elements, which only allocates memory for its odd bins
+ * while they are few.
+ * <br>
+ * The sketch starts sparse: the odd bins are kept in a sorted primitive array, and flipping a bin adds it to or
+ * removes it from the array. Once the array would take more memory than the words of the sketch, that is, once there
+ * are more than <i>size / 32</i> odd bins, the sketch turns dense and behaves as a plain {@link OddSketch} from then
+ * on. A sketch of <i>size</i> bins taking <i>k</i> elements takes at most <i>4 * k</i> bytes instead of
+ * <i>size / 8</i> while sparse.
+ * <br>
+ * The estimates, merges and Jaccard Index work across sparse and dense adaptive sketches, and the Jaccard Index also
+ * against any other odd sketch. As for every odd sketch, merges need both sketches to be of the same class, so an
+ * adaptive sketch can't be merged with a plain {@link OddSketch}.
+ * Flipping a bin of a sparse sketch costs <i>O(log k)</i> to find it and <i>O(k)</i> to move the rest of the bins
+ *
+ * @param <K> The type of {@link Divisible} elements this sketch accepts
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class AdaptiveOddSketch<K extends Divisible> extends OddSketch<K> {
+    private static final int INITIAL_CAPACITY = 8;
+
+    //region Variables
+
+    // The odd bins in ascending order while the sketch is sparse, null once it's dense
+    private int[] oddBuckets;
+    private int oddBucketCount = 0;
+
+    //endregion
+
+
+    //region ctors
+
+    /**
+     * Constructor. Hashes are mapped into buckets with the {@link BucketingStrategy#modulo(int)} strategy
+     *
+     * @param size The size of the sketch
+     */
+    public AdaptiveOddSketch(int size) {
+        this(BucketingStrategy.modulo(size));
+    }
+
+    /**
+     * Constructor. The sketch starts sparse
+     *
+     * @param bucketing The strategy mapping hashes into buckets of the sketch
+     * @see OddSketch#OddSketch(BucketingStrategy)
+     */
+    public AdaptiveOddSketch(@Nonnull BucketingStrategy bucketing) {
+        super(bucketing, false);
+
+        this.oddBuckets = new int[Math.min(INITIAL_CAPACITY, getMaxSparseBuckets(this.getSize()))];
+
+        SketchMetrics.getListener().onAllocated(SketchKind.ODD_SKETCH, (long) oddBuckets.length * Integer.BYTES);
+    }
+
+    //endregion
+
+
+    //region xor
+
+    /**
+     * Flips (XOR) the bit in the ith position of the sketch, turning the sketch dense when the odd bins don't fit
+     * the sparse array anymore
+     *
+     * @param index The posistion in the sketch to be flipped
+     */
+    @Override
+    protected void xorIthBit(int index) {
+        if (oddBuckets == null) {
+            super.xorIthBit(index);
+            return;
+        }
+
+        if (index < 0 || index >= this.getSize()) {
+            throw new IllegalArgumentException(index < 0 ? "The index needs to be positive" :
+                    "Index has to be in the bounds set in the size parameter");
+        }
+
+        int position = Arrays.binarySearch(oddBuckets, 0, oddBucketCount, index);
+
+        if (position >= 0) {
+            System.arraycopy(oddBuckets, position + 1, oddBuckets, position, oddBucketCount - position - 1);
+            oddBucketCount--;
+            return;
+        }
+
+        if (oddBucketCount == oddBuckets.length) {
+            int maxBuckets = getMaxSparseBuckets(this.getSize());
+
+            if (oddBucketCount == maxBuckets) {
+                toDense();
+                super.xorIthBit(index);
+                return;
+            }
+
+            oddBuckets = Arrays.copyOf(oddBuckets, Math.min(maxBuckets, oddBuckets.length + (oddBuckets.length >> 1)));
+
+            SketchMetrics.getListener().onAllocated(SketchKind.ODD_SKETCH, (long) oddBuckets.length * Integer.BYTES);
+        }
+
+        position = -position - 1;
+
+        System.arraycopy(oddBuckets, position, oddBuckets, position + 1, oddBucketCount - position);
+        oddBuckets[position] = index;
+        oddBucketCount++;
+    }
+
+    /**
+     * XORs the given bins into the bins of this sketch, folding them first when there are more than the size of
+     * this sketch. A sparse sketch flips the odd bins one by one, unless the result might not fit the sparse array,
+     * in which case it turns dense first
+     *
+     * @param otherWords The words holding the bins
+     * @param otherSize  The number of bins in the words, not smaller than the size of this sketch
+     */
+    @Override
+    protected void xorFoldedWords(@Nonnull long[] otherWords, int otherSize) {
+        int size = this.getSize();
+
+        if (oddBuckets != null &&
+                oddBucketCount + BitUtils.cardinality(otherWords, otherWords.length) > getMaxSparseBuckets(size)) {
+            toDense();
+        }
+
+        if (oddBuckets == null) {
+            super.xorFoldedWords(otherWords, otherSize);
+            return;
+        }
+
+        for (int i = 0; i < otherWords.length; i++) {
+            for (long word = otherWords[i]; word != 0; word &= word - 1) {
+                xorIthBit(((i << 6) + Long.numberOfTrailingZeros(word)) % size);
+            }
+        }
+    }
+
+    private void toDense() {
+        long[] words = new long[getWordCount(this.getSize())];
+
+        for (int i = 0; i < oddBucketCount; i++) {
+            int bucket = oddBuckets[i];
+            words[bucket >>> 6] |= 1L << bucket;
+        }
+
+        oddBuckets = null;
+        oddBucketCount = 0;
+
+        super.setWords(words);
+
+        SketchMetrics.getListener().onAllocated(SketchKind.ODD_SKETCH, (long) words.length * Long.BYTES);
+    }
+
+    //endregion
+
+
+    //region Merge code
+
+    /**
+     * XORs this sketch into the target. A sparse sketch flips its odd bins in the target one by one, folding them
+     * when the target is smaller, instead of building its words
+     *
+     * @param target The sketch to merge this sketch into
+     */
+    @Override
+    protected void xorInto(@Nonnull OddSketch<K> target) {
+        if (oddBuckets == null) {
+            super.xorInto(target);
+            return;
+        }
+
+        int targetSize = target.getSize();
+
+        for (int i = 0; i < oddBucketCount; i++) {
+            target.xorIthBit(oddBuckets[i] % targetSize);
+        }
+
+        target.incrementElementsAdded(this.getElementsAdded());
+
+        reportMergedInto(target);
+    }
+
+    //endregion
+
+
+    //region Jaccard index
+
+    /**
+     * Computes the symmetric difference without building the words of the sparse sketches: two sparse sketches
+     * walk their odd bins together, and a sparse sketch against a dense one looks its odd bins up in the words of
+     * the other
+     */
+    @Override
+    protected int computeSymmetricDifference(@Nonnull OddSketch<K> other) {
+        AdaptiveOddSketch<K> adaptiveOther = other instanceof AdaptiveOddSketch ? (AdaptiveOddSketch<K>) other : null;
+        boolean otherSparse = adaptiveOther != null && adaptiveOther.isSparse();
+
+        if (this.isSparse() && otherSparse) {
+            return countSymmetricDifference(oddBuckets, oddBucketCount,
+                    adaptiveOther.oddBuckets, adaptiveOther.oddBucketCount);
+        } else if (this.isSparse()) {
+            return countSymmetricDifference(oddBuckets, oddBucketCount, other.getWords(), other.getOddBins());
+        } else if (otherSparse) {
+            return countSymmetricDifference(adaptiveOther.oddBuckets, adaptiveOther.oddBucketCount,
+                    this.getWords(), this.getOddBins());
+        }
+
+        return super.computeSymmetricDifference(other);
+    }
+
+    private static int countSymmetricDifference(int[] buckets, int count, int[] otherBuckets, int otherCount) {
+        int common = 0;
+
+        for (int i = 0, j = 0; i < count && j < otherCount; ) {
+            int bucket = buckets[i];
+            int otherBucket = otherBuckets[j];
+
+            if (bucket == otherBucket) {
+                common++;
+            }
+
+            i += bucket <= otherBucket ? 1 : 0;
+            j += otherBucket <= bucket ? 1 : 0;
+        }
+
+        return count + otherCount - 2 * common;
+    }
+
+    private static int countSymmetricDifference(int[] buckets, int count, long[] words, int oddBins) {
+        int common = 0;
+
+        for (int i = 0; i < count; i++) {
+            int bucket = buckets[i];
+            common += (int) (words[bucket >>> 6] >>> bucket) & 1;
+        }
+
+        return count + oddBins - 2 * common;
+    }
+
+    //endregion
+
+
+    //region Getters and setters
+
+    /**
+     * Whether the sketch still keeps its odd bins in a sparse array
+     *
+     * @return True while the sketch is sparse
+     */
+    public boolean isSparse() {
+        return oddBuckets != null;
+    }
+
+    /**
+     * Sets the size of the sketch. The bins beyond the new size are discarded, and the new bins, if any, are even
+     *
+     * @param size New size of the sketch
+     */
+    @Override
+    protected void setSize(int size) {
+        if (oddBuckets != null) {
+            int count = 0;
+
+            while (count < oddBucketCount && oddBuckets[count] < size) {
+                count++;
+            }
+
+            oddBucketCount = count;
+        }
+
+        super.setSize(size);
+    }
+
+    /**
+     * Gets the words of the sketch
+     *
+     * @return The words of the sketch. While the sketch is sparse they are built on every call, otherwise they
+     * aren't a copy
+     */
+    @Override
+    protected long[] getWords() {
+        if (oddBuckets == null) {
+            return super.getWords();
+        }
+
+        long[] words = new long[getWordCount(this.getSize())];
+
+        for (int i = 0; i < oddBucketCount; i++) {
+            int bucket = oddBuckets[i];
+            words[bucket >>> 6] |= 1L << bucket;
+        }
+
+        return words;
+    }
+
+    /**
+     * Sets the words backing the sketch. The sketch turns sparse if the odd bins fit the sparse array, releasing the
+     * words it held while dense, and dense otherwise, keeping the given array without copying it. Either way, the
+     * bits beyond the size of the sketch are cleared in the given array
+     * <br>
+     * Tipically, you would use this method in case you are building a (de)serialization mechanism for this class
+     *
+     * @param words The words of the sketch
+     */
+    @Override
+    protected void setWords(@Nonnull long[] words) {
+        Preconditions.checkArgument(words.length == getWordCount(this.getSize()),
+                "The number of words doesn't match the size of the sketch");
+
+        int size = this.getSize();
+
+        if (size % Long.SIZE != 0) {
+            words[words.length - 1] &= (1L << size) - 1;
+        }
+
+        int oddBins = BitUtils.cardinality(words, words.length);
+
+        if (oddBins > getMaxSparseBuckets(size)) {
+            oddBuckets = null;
+            oddBucketCount = 0;
+
+            super.setWords(words);
+            return;
+        }
+
+        releaseWords();
+
+        oddBuckets = new int[Math.max(oddBins, Math.min(INITIAL_CAPACITY, getMaxSparseBuckets(size)))];
+        oddBucketCount = 0;
+
+        SketchMetrics.getListener().onAllocated(SketchKind.ODD_SKETCH, (long) oddBuckets.length * Integer.BYTES);
+
+        for (int i = 0; i < words.length; i++) {
+            for (long word = words[i]; word != 0; word &= word - 1) {
+                oddBuckets[oddBucketCount++] = (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+    }
+
+    @Override
+    protected int getOddBins() {
+        return oddBuckets == null ? super.getOddBins() : oddBucketCount;
+    }
+
+    /**
+     * Gets the most odd bins a sparse sketch keeps, taking as much memory as the words of a dense one
+     */
+    private static int getMaxSparseBuckets(int size) {
+        return getWordCount(size) * 2;
+    }
+
+    //endregion
+
+
+    //region toString and Clone
+
+    @Override
+    protected MoreObjects.ToStringHelper toStringHelper() {
+        return super.toStringHelper()
+                .add("sparse", this.isSparse());
+    }
+
+    @Nonnull
+    @Override
+    public AdaptiveOddSketch<K> clone() {
+        AdaptiveOddSketch<K> sketch = new AdaptiveOddSketch<>(this.getBucketingStrategy());
+
+        if (oddBuckets == null) {
+            sketch.setWords(super.getWords().clone());
+        } else {
+            sketch.oddBuckets = Arrays.copyOf(oddBuckets, oddBuckets.length);
+            sketch.oddBucketCount = oddBucketCount;
+        }
+
+        sketch.setElementsAdded(this.getElementsAdded());
+
+        return sketch;
+    }
+
+    //endregion
+}
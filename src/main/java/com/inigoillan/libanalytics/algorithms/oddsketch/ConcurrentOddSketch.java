@@ -0,0 +1,201 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.google.common.base.Preconditions;
+import com.inigoillan.libanalytics.collections.BitUtils;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Odd sketch that many threads can add elements to at the same time, without locks.
+ * <br>
+ * The bins are kept in an {@link AtomicLongArray} and flipped with compare and set, while the elements added and
+ * the odd bins are counted in {@link LongAdder}s, so the threads don't contend on a single counter. The estimates
+ * can run while elements are being added: they see every flip completed before they started, and maybe some of
+ * the ones happening meanwhile
+ *
+ * @param <K> The type of {@link Divisible} elements this sketch accepts
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class ConcurrentOddSketch<K extends Divisible> extends OddSketch<K> {
+
+    //region Variables
+
+    private AtomicLongArray words;
+
+    private final LongAdder elementsAdded = new LongAdder();
+    private final LongAdder oddBins = new LongAdder();
+
+    //endregion
+
+
+    //region ctors
+
+    /**
+     * Constructor. Hashes are mapped into buckets with the {@link BucketingStrategy#modulo(int)} strategy
+     *
+     * @param size The size of the sketch
+     */
+    public ConcurrentOddSketch(int size) {
+        this(BucketingStrategy.modulo(size));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param bucketing The strategy mapping hashes into buckets of the sketch
+     * @see OddSketch#OddSketch(BucketingStrategy)
+     */
+    public ConcurrentOddSketch(@Nonnull BucketingStrategy bucketing) {
+        super(bucketing, false);
+
+        this.words = new AtomicLongArray(getWordCount(this.getSize()));
+    }
+
+    //endregion
+
+
+    //region xor
+
+    /**
+     * Flips (XOR) the bit in the ith position of the sketch atomically
+     *
+     * @param index The posistion in the sketch to be flipped
+     */
+    @Override
+    protected void xorIthBit(int index) {
+        if (index < 0 || index >= this.getSize()) {
+            throw new IllegalArgumentException(index < 0 ? "The index needs to be positive" :
+                    "Index has to be in the bounds set in the size parameter");
+        }
+
+        int wordIndex = index >>> 6;
+        long mask = 1L << index;
+        long word = words.get(wordIndex);
+
+        while (!words.compareAndSet(wordIndex, word, word ^ mask)) {
+            word = words.get(wordIndex);
+        }
+
+        oddBins.add((word & mask) == 0 ? 1 : -1);
+    }
+
+    /**
+     * XORs the given bins into this sketch word by word, atomically for each word
+     */
+    @Override
+    protected void xorFoldedWords(@Nonnull long[] otherWords, int otherSize) {
+        long[] folded = new long[words.length()];
+
+        if (this.getSize() == otherSize) {
+            System.arraycopy(otherWords, 0, folded, 0, folded.length);
+        } else {
+            for (int from = 0; from < otherSize; from += this.getSize()) {
+                BitUtils.xorBits(folded, otherWords, from, Math.min(this.getSize(), otherSize - from));
+            }
+        }
+
+        for (int i = 0; i < folded.length; i++) {
+            if (folded[i] == 0) {
+                continue;
+            }
+
+            long word = words.get(i);
+
+            while (!words.compareAndSet(i, word, word ^ folded[i])) {
+                word = words.get(i);
+            }
+
+            oddBins.add(Long.bitCount(word ^ folded[i]) - Long.bitCount(word));
+        }
+    }
+
+    //endregion
+
+
+    //region Getters and setters
+
+    /**
+     * Gets a snapshot of the words backing the sketch. Bin <i>i</i> is the bit <i>i % 64</i> of the word
+     * <i>i / 64</i>
+     *
+     * @return A copy of the words of the sketch
+     */
+    @Override
+    protected long[] getWords() {
+        long[] snapshot = new long[words.length()];
+
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = words.get(i);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Replaces the words backing the sketch with a copy of the given ones. It isn't atomic with respect to elements
+     * being added at the same time
+     * <br>
+     * Tipically, you would use this method in case you are building a (de)serialization mechanism for this class
+     *
+     * @param words The words of the sketch
+     */
+    @Override
+    protected void setWords(@Nonnull long[] words) {
+        Preconditions.checkArgument(words.length == getWordCount(this.getSize()),
+                "The number of words doesn't match the size of the sketch");
+
+        if (this.getSize() % Long.SIZE != 0) {
+            words[words.length - 1] &= (1L << this.getSize()) - 1;
+        }
+
+        this.words = new AtomicLongArray(words);
+
+        oddBins.reset();
+        oddBins.add(BitUtils.cardinality(words, words.length));
+    }
+
+    @Override
+    protected int getOddBins() {
+        return (int) oddBins.sum();
+    }
+
+    @Override
+    protected int getElementsAdded() {
+        return (int) elementsAdded.sum();
+    }
+
+    @Override
+    protected void setElementsAdded(int elements) {
+        elementsAdded.reset();
+        elementsAdded.add(elements);
+    }
+
+    @Override
+    protected void incrementElementsAdded(int elements) {
+        elementsAdded.add(elements);
+    }
+
+    //endregion
+
+
+    //region Clone
+
+    @Nonnull
+    @Override
+    public ConcurrentOddSketch<K> clone() {
+        ConcurrentOddSketch<K> sketch = new ConcurrentOddSketch<>(this.getBucketingStrategy());
+
+        sketch.setWords(this.getWords());
+        sketch.setElementsAdded(this.getElementsAdded());
+
+        return sketch;
+    }
+
+    //endregion
+}
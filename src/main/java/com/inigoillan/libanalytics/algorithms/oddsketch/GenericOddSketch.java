@@ -1,20 +1,33 @@
 package com.inigoillan.libanalytics.algorithms.oddsketch;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
 import com.inigoillan.libanalytics.hash.Hash;
 import com.inigoillan.libanalytics.hash.hasher.Hasher;
+import com.inigoillan.libanalytics.hash.hasher.IntHasher;
+import com.inigoillan.libanalytics.hash.hasher.LongHasher;
 
 import javax.annotation.Nonnull;
 import java.util.Objects;
 
 /**
  * Adds support for adding a generic element to the Odd sketch using a given {@link Hasher}
+ * <br>
+ * Elements are hashed with {@link #hash(Object)} and added as {@link Hash} objects by default. Sketches built with
+ * primitive hashing, where the hasher is also a {@link LongHasher} or an {@link IntHasher}, hash elements into
+ * primitive values mapped into buckets with the {@link BucketingStrategy} of the sketch instead, so adding an element
+ * doesn't allocate any intermediate hash object. Both ways place elements in different buckets, so sketches of
+ * either kind can't be merged or compared with each other, and trying to throws an {@link IllegalArgumentException}
  *
  * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
  * @since  1.0
  */
 public class GenericOddSketch<E, K extends Hash> extends OddSketch<K> {
     private Hasher<E, K> hasher;
+    private final boolean primitiveHashing;
+    private LongHasher<E> longHasher;
+    private IntHasher<E> intHasher;
 
     //region constructor
 
@@ -24,9 +37,34 @@ public class GenericOddSketch<E, K extends Hash> extends OddSketch<K> {
      * @param size The size of the sketch
      */
     public GenericOddSketch(int size, @Nonnull Hasher<E, K> hasher) {
-        super(size);
+        this(BucketingStrategy.modulo(size), hasher, false);
+    }
 
-        this.hasher = hasher;
+    /**
+     * Constructor
+     *
+     * @param bucketing The strategy mapping hashes into buckets of the sketch
+     * @see OddSketch#OddSketch(BucketingStrategy)
+     */
+    public GenericOddSketch(@Nonnull BucketingStrategy bucketing, @Nonnull Hasher<E, K> hasher) {
+        this(bucketing, hasher, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param bucketing        The strategy mapping hashes into buckets of the sketch
+     * @param hasher           The hasher of the elements
+     * @param primitiveHashing Whether to hash the elements into primitive values, skipping {@link #hash(Object)}.
+     *                         The hasher needs to be a {@link LongHasher} or an {@link IntHasher} then
+     * @see OddSketch#OddSketch(BucketingStrategy)
+     */
+    public GenericOddSketch(@Nonnull BucketingStrategy bucketing, @Nonnull Hasher<E, K> hasher,
+                            boolean primitiveHashing) {
+        super(bucketing);
+
+        this.primitiveHashing = primitiveHashing;
+        this.setHasher(hasher);
     }
 
     //endregion
@@ -40,7 +78,13 @@ public class GenericOddSketch<E, K extends Hash> extends OddSketch<K> {
      * @param element
      */
     public void addElement(@Nonnull E element) {
-        this.addHashed(hash(element));
+        if (longHasher != null) {
+            this.addHashed(longHasher.hashToLong(element));
+        } else if (intHasher != null) {
+            this.addHashed(intHasher.hashToInt(element));
+        } else {
+            this.addHashed(hash(element));
+        }
     }
 
     protected K hash(@Nonnull E element) {
@@ -50,14 +94,63 @@ public class GenericOddSketch<E, K extends Hash> extends OddSketch<K> {
     //endregion
 
 
+    //region Batch
+
+    /**
+     * Generic sketches flip their bins like plain odd sketches, so a batch can flip the words directly unless a
+     * subclass overrides the flips
+     *
+     * @return True if a batch can flip the words directly
+     */
+    @Override
+    protected boolean flipsWordsInPlace() {
+        return getClass() == GenericOddSketch.class;
+    }
+
+    //endregion
+
+
+    //region Compatibility
+
+    /**
+     * Generic sketches are only compatible with other generic sketches hashing the elements the same way, that is,
+     * into hash objects or into primitive values
+     *
+     * @param other The other sketch
+     * @return True if the other sketch isn't generic or hashes the elements the same way
+     */
+    @Override
+    protected boolean isHashingCompatible(@Nonnull OddSketch<K> other) {
+        return !(other instanceof GenericOddSketch) ||
+                ((GenericOddSketch<?, ?>) other).isPrimitiveHashing() == this.isPrimitiveHashing();
+    }
+
+    //endregion
+
+
     //region Getters and setters
 
     protected Hasher<E, K> getHasher() {
         return this.hasher;
     }
 
+    /**
+     * Whether the elements are hashed into primitive values
+     *
+     * @return True if the sketch was built with primitive hashing
+     */
+    protected boolean isPrimitiveHashing() {
+        return this.primitiveHashing;
+    }
+
+    @SuppressWarnings("unchecked")
     protected void setHasher(@Nonnull Hasher<E, K> hasher) {
+        Preconditions.checkArgument(!primitiveHashing || hasher instanceof LongHasher || hasher instanceof IntHasher,
+                "Primitive hashing needs a LongHasher or an IntHasher");
+
         this.hasher = hasher;
+        this.longHasher = primitiveHashing && hasher instanceof LongHasher ? (LongHasher<E>) hasher : null;
+        this.intHasher = primitiveHashing && longHasher == null ? (IntHasher<E>) hasher : null;
     }
 
     //endregion
@@ -75,18 +168,21 @@ public class GenericOddSketch<E, K extends Hash> extends OddSketch<K> {
 
         GenericOddSketch sketch = (GenericOddSketch) o;
 
-        return this.getHasher().equals(((GenericOddSketch) o).getHasher()) && super.equals(o);
+        return this.getHasher().equals(sketch.getHasher()) &&
+                this.isPrimitiveHashing() == sketch.isPrimitiveHashing() &&
+                super.equals(o);
     }
 
 
     @Override
     protected MoreObjects.ToStringHelper toStringHelper() {
         return super.toStringHelper()
-                .add("hashed object", this.getHasher());
+                .add("hashed object", this.getHasher())
+                .add("primitive hashing", this.isPrimitiveHashing());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.getHasher(), super.hashCode());
+        return Objects.hash(this.getHasher(), this.isPrimitiveHashing(), super.hashCode());
     }
 }
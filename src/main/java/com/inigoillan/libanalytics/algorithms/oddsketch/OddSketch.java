@@ -3,10 +3,22 @@ package com.inigoillan.libanalytics.algorithms.oddsketch;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.inigoillan.libanalytics.algorithms.Mergeable;
+import com.inigoillan.libanalytics.collections.BitUtils;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
 import com.inigoillan.libanalytics.hash.Divisible;
+import com.inigoillan.libanalytics.metrics.SketchKind;
+import com.inigoillan.libanalytics.metrics.SketchMetrics;
 import org.apache.log4j.Logger;
 
 import javax.annotation.Nonnull;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Objects;
 
@@ -24,32 +36,64 @@ import java.util.Objects;
 public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>, Cloneable {
     private static final Logger LOG = Logger.getLogger(OddSketch.class);
 
+    private static final int STREAM_CHUNK_BYTES = 8192;
+
     //region Variables
 
-    private BitSet sketch;
+    private long[] words;
 
     private int size;
     private int elementsAdded = 0;
 
+    // Number of bits set in the words, updated on every flip so estimating the set size doesn't scan the sketch
+    private int oddBins = 0;
+
+    private BucketingStrategy bucketing;
+
     //endregion
 
 
     //region ctors
 
     /**
-     * Constructor
+     * Constructor. Hashes are mapped into buckets with the {@link BucketingStrategy#modulo(int)} strategy
      *
      * @param size The size of the sketch
      */
     public OddSketch(int size) {
-        Preconditions.checkArgument(size >= 0);
+        this(BucketingStrategy.modulo(size));
+    }
+
+    /**
+     * Constructor. The size of the sketch is the width of the bucketing strategy used to map hashes into
+     * buckets, e.g. <i>new OddSketch&lt;&gt;(BucketingStrategy.forWidth(size))</i>
+     *
+     * @param bucketing The strategy mapping hashes into buckets of the sketch
+     */
+    public OddSketch(@Nonnull BucketingStrategy bucketing) {
+        this(bucketing, true);
+    }
+
+    /**
+     * Constructor for subclasses keeping the bins somewhere else than the words array of this class. Those pass
+     * <i>false</i> and override the accessors of the words, the odd bins and the elements added, along with
+     * {@link #xorIthBit(int)} and {@link #xorFoldedWords(long[], int)}
+     *
+     * @param bucketing     The strategy mapping hashes into buckets of the sketch
+     * @param allocateWords Whether to allocate the words array of this class
+     */
+    protected OddSketch(@Nonnull BucketingStrategy bucketing, boolean allocateWords) {
+        int size = bucketing.getWidth();
 
-        this.setSize(size);
+        Preconditions.checkArgument(size >= 0);
 
-        BitSet sketch = new BitSet(size);
-        sketch.clear();
+        this.bucketing = bucketing;
+        this.size = size;
+        this.words = allocateWords ? new long[getWordCount(size)] : null;
 
-        this.setSketch(sketch);
+        if (allocateWords) {
+            SketchMetrics.getListener().onAllocated(SketchKind.ODD_SKETCH, (long) getWordCount(size) * Long.BYTES);
+        }
     }
 
     //endregion
@@ -64,11 +108,125 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
         int bucket = getBucket(hashed);
 
         xorIthBit(bucket);
-        elementsAdded++;
+        incrementElementsAdded(1);
+        SketchMetrics.getListener().onElementsAdded(SketchKind.ODD_SKETCH, 1);
+    }
+
+    /**
+     * Adds a 64 bits hash to the sketch without having to wrap it into a {@link Divisible} object
+     *
+     * @param hashed The hash of the element to add
+     */
+    public void addHashed(long hashed) {
+        xorIthBit(getBucket(hashed));
+        incrementElementsAdded(1);
+        SketchMetrics.getListener().onElementsAdded(SketchKind.ODD_SKETCH, 1);
     }
 
+    /**
+     * Adds a 32 bits hash to the sketch without having to wrap it into a {@link Divisible} object
+     *
+     * @param hashed The hash of the element to add
+     */
+    public void addHashed(int hashed) {
+        xorIthBit(getBucket(hashed));
+        incrementElementsAdded(1);
+        SketchMetrics.getListener().onElementsAdded(SketchKind.ODD_SKETCH, 1);
+    }
+
+    /**
+     * Adds a batch of 64 bits hashes to the sketch in one tight loop.
+     * <br>
+     * When {@link #flipsWordsInPlace()} holds, the bins are flipped right on the words and the odd bins are counted
+     * in a local variable, so the random misses of the flips overlap instead of waiting on each other through the
+     * fields of the sketch.
+     * <br>
+     * If a hash falls out of the sketch, the hashes before it stay added and are accounted for before throwing
+     *
+     * @param hashes The hashes of the elements to add
+     * @param offset Position of the first hash to add
+     * @param length Number of hashes to add
+     */
+    public void addHashedBatch(@Nonnull long[] hashes, int offset, int length) {
+        Preconditions.checkPositionIndexes(offset, offset + length, hashes.length);
+
+        if (words != null && flipsWordsInPlace()) {
+            xorWordsBatch(hashes, offset, length);
+            countElementsAdded(length);
+        } else {
+            int i = offset;
+
+            try {
+                for (; i < offset + length; i++) {
+                    xorIthBit(getBucket(hashes[i]));
+                }
+            } finally {
+                countElementsAdded(i - offset);
+            }
+        }
+    }
+
+    /**
+     * Whether the bins of this sketch are flipped only in the words of this class, so a batch can flip them there
+     * without going through {@link #xorIthBit(int)}.
+     * <br>
+     * Only plain odd sketches do it by default: subclasses overriding {@link #xorIthBit(int)} get their flips, and
+     * subclasses that don't can override this to return true
+     *
+     * @return True if a batch can flip the words directly
+     */
+    protected boolean flipsWordsInPlace() {
+        return getClass() == OddSketch.class;
+    }
+
+    private void xorWordsBatch(long[] hashes, int offset, int length) {
+        long[] words = this.words;
+        int size = this.size;
+        int oddBins = this.oddBins;
+
+        for (int i = offset; i < offset + length; i++) {
+            int index = getBucket(hashes[i]);
+
+            if (index < 0 || index >= size) {
+                this.oddBins = oddBins;
+                countElementsAdded(i - offset);
+                throw new IllegalArgumentException("Index has to be in the bounds set in the size parameter");
+            }
+
+            int wordIndex = index >>> 6;
+            long word = words[wordIndex] ^ (1L << index);
+            words[wordIndex] = word;
+
+            oddBins += ((int) (word >>> index) & 1) * 2 - 1;
+        }
+
+        this.oddBins = oddBins;
+    }
+
+    /**
+     * Gets the bucket for a hash object using the {@link BucketingStrategy} of the sketch, the same one a primitive
+     * hash with the same bits gets
+     *
+     * @param hash The hash
+     * @return The bucket in the sketch
+     * @see Divisible#bucket(BucketingStrategy)
+     */
     protected int getBucket(K hash) {
-        return hash.mod(size);
+        return hash.bucket(bucketing);
+    }
+
+    /**
+     * Gets the bucket for a primitive hash using the {@link BucketingStrategy} of the sketch
+     *
+     * @param hash The hash
+     * @return The bucket in the sketch
+     */
+    protected int getBucket(long hash) {
+        return bucketing.bucket(hash);
+    }
+
+    protected int getBucket(int hash) {
+        return bucketing.bucket(hash);
     }
 
     /**
@@ -77,10 +235,22 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
      * @param index The posistion in the sketch to be flipped
      */
     protected void xorIthBit(int index) {
-        Preconditions.checkArgument(index >= 0, "The index needs to be positive");
-        Preconditions.checkArgument(index < size, "Index has to be in the bounds set in the size parameter");
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException(index < 0 ? "The index needs to be positive" :
+                    "Index has to be in the bounds set in the size parameter");
+        }
 
-        sketch.flip(index);
+        int wordIndex = index >>> 6;
+        long word = words[wordIndex] ^ (1L << index);
+        words[wordIndex] = word;
+
+        // +1 if the bit is now odd, -1 if it went back to even
+        oddBins += ((int) (word >>> index) & 1) * 2 - 1;
+    }
+
+    private void countElementsAdded(int elements) {
+        incrementElementsAdded(elements);
+        SketchMetrics.getListener().onElementsAdded(SketchKind.ODD_SKETCH, elements);
     }
 
     //endregion
@@ -95,7 +265,11 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
      * @return Returns the estimated set size
      */
     public int estimateSetSize() {
-        return this.estimateSetSizeMarkovApproximation();
+        long start = SketchMetrics.startEstimate();
+        int estimate = this.estimateSetSizeMarkovApproximation();
+        SketchMetrics.onEstimate(SketchKind.ODD_SKETCH, start);
+
+        return estimate;
     }
 
     /**
@@ -113,16 +287,20 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
      * @return The set size estimated by the Odd sketch using the Markov Chain Model
      */
     protected int estimateSetSizeMarkovApproximation() {
-        int z = sketch.cardinality();
+        int z = getOddBins();
 
-        LOG.debug(String.format("Sketch cardinality is %d", z));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Sketch cardinality is %d", z));
+        }
 
         double numerator = Math.log(1.0 - (2.0 * z / size));
         double denominator = Math.log(1.0 - (2.0 / size));
 
         double sizeEstimation = numerator / denominator;
 
-        LOG.debug(String.format("When computing set size, the numerator is %f, denominator is %f and estimation is %f", numerator, denominator, sizeEstimation));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("When computing set size, the numerator is %f, denominator is %f and estimation is %f", numerator, denominator, sizeEstimation));
+        }
 
         return (int) Math.round(sizeEstimation);
     }
@@ -142,15 +320,19 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
      * @return The set size estimated by the Odd sketch using the Markov Chain Model
      */
     protected int estimateSetSizePoissonApproximation() {
-        int z = sketch.cardinality();
+        int z = getOddBins();
 
-        LOG.debug(String.format("Sketch cardinality is %d", z));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Sketch cardinality is %d", z));
+        }
 
         double ln = Math.log(1.0 - (2.0 * z / size));
 
         double sizeEstimation = -size * ln / 2;
 
-        LOG.debug(String.format("Set size estimation is %f", sizeEstimation));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Set size estimation is %f", sizeEstimation));
+        }
 
         return (int) Math.round(sizeEstimation);
     }
@@ -178,6 +360,7 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
      */
     public double estimateJaccardIndex(@Nonnull OddSketch<K> other) {
         Preconditions.checkArgument(other.getSize() == this.getSize());
+        checkHashingCompatible(other);
 
         if (this.getElementsAdded() == 0) {
             if (other.getElementsAdded() == 0)
@@ -189,10 +372,25 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
                 return 0.0;
         }
 
+        long start = SketchMetrics.startEstimate();
         int symmetricDifference = computeSymmetricDifference(other);
+        double jaccardIndex = computeJaccardIndex(symmetricDifference, this.getSize(), this.getElementsAdded());
+        SketchMetrics.onEstimate(SketchKind.ODD_SKETCH, start);
+
+        return jaccardIndex;
+    }
 
+    /**
+     * Computes the Jaccard Index estimation out of the symmetric difference between two sketches
+     *
+     * @param symmetricDifference The number of bins that differ between both sketches
+     * @param size                The size of the sketches
+     * @param elementsAdded       The elements added to the first sketch, which can't be 0
+     * @return The Jaccard Index as a [0..1] value
+     */
+    protected static double computeJaccardIndex(int symmetricDifference, int size, int elementsAdded) {
         int k = elementsAdded;
-        int n = this.getSize();
+        int n = size;
 
         double inner = 1.0 - (2.0 * symmetricDifference / n);
 
@@ -216,15 +414,19 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
      * the symmetric difference is going to be the set
      * <math xmlns="http://www.w3.org/1998/Math/MathML"><mi>S</mi><mo>=</mo><mfenced open="{" close="}"><mrow><mn>1</mn><mo>,</mo><mo>&#160;</mo><mn>2</mn><mo>,</mo><mo>&#160;</mo><mn>5</mn><mo>,</mo><mo>&#160;</mo><mn>6</mn></mrow></mfenced></math>
      *
+     * <br><br>
+     * The XOR of both sketches is counted word by word, so no temporary sketch is allocated
+     *
      * @param other
      * @return
      */
     protected int computeSymmetricDifference(@Nonnull OddSketch<K> other) {
-        BitSet sketch = (BitSet) this.getSketch().clone();
+        long[] words = this.getWords();
+        long[] otherWords = other.getWords();
 
-        sketch.xor(other.getSketch());
+        Preconditions.checkArgument(words.length == otherWords.length);
 
-        return sketch.cardinality();
+        return BitUtils.xorCardinality(words, otherWords, words.length);
     }
 
     //endregion
@@ -242,8 +444,7 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
     }
 
     /**
-     * Sets the size of the sketch. Take into account, you should instantiate a new sketch with the
-     * {@link #setSketch(BitSet)} method in case the new size is bigger than the old one.
+     * Sets the size of the sketch. The bits beyond the new size are discarded, and the new bins, if any, are even.
      * <br>
      * Tipically, you would use this method in case you are building a (de)serialization mechanism for this class
      *
@@ -251,26 +452,94 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
      */
     protected void setSize(int size) {
         this.size = size;
+
+        if (bucketing.getWidth() != size) {
+            this.bucketing = bucketing.withWidth(size);
+        }
+
+        this.setWords(Arrays.copyOf(this.getWords(), getWordCount(size)));
+
+        SketchMetrics.getListener().onAllocated(SketchKind.ODD_SKETCH, (long) getWordCount(size) * Long.BYTES);
     }
 
     /**
-     * Gets the sketch in the form of a {@link BitSet}
+     * Gets the strategy used to map hashes into buckets of the sketch
+     *
+     * @return The bucketing strategy
+     */
+    protected BucketingStrategy getBucketingStrategy() {
+        return this.bucketing;
+    }
+
+    /**
+     * Gets a copy of the sketch in the form of a {@link BitSet}
      *
      * @return The sketch representation
      */
     protected BitSet getSketch() {
-        return this.sketch;
+        return BitSet.valueOf(this.getWords());
     }
 
     /**
-     * Sets the underlying sketch
+     * Sets the underlying sketch from a {@link BitSet}. The bits beyond the size of the sketch are discarded
      * <br>
      * Tipically, you would use this method in case you are building a (de)serialization mechanism for this class
      *
      * @param sketch The representation of the underlying sketch
      */
     protected void setSketch(@Nonnull BitSet sketch) {
-        this.sketch = sketch;
+        this.setWords(Arrays.copyOf(sketch.toLongArray(), getWordCount(this.getSize())));
+    }
+
+    /**
+     * Gets the words backing the sketch. Bin <i>i</i> is the bit <i>i % 64</i> of the word <i>i / 64</i>
+     *
+     * @return The words of the sketch. Note this isn't a copy
+     */
+    protected long[] getWords() {
+        return this.words;
+    }
+
+    /**
+     * Sets the words backing the sketch, without copying them. The array needs
+     * <i>ceil(size / 64)</i> positions, and the bits beyond the size of the sketch are cleared
+     * <br>
+     * Tipically, you would use this method in case you are building a (de)serialization mechanism for this class
+     *
+     * @param words The words of the sketch
+     */
+    protected void setWords(@Nonnull long[] words) {
+        Preconditions.checkArgument(words.length == getWordCount(this.getSize()),
+                "The number of words doesn't match the size of the sketch");
+
+        if (this.getSize() % Long.SIZE != 0) {
+            words[words.length - 1] &= (1L << this.getSize()) - 1;
+        }
+
+        this.words = words;
+        this.oddBins = BitUtils.cardinality(words, words.length);
+    }
+
+    /**
+     * Drops the words backing the sketch, for subclasses keeping the bins somewhere else meanwhile, like a sparse
+     * {@link AdaptiveOddSketch}. The words have to be set again before using them
+     */
+    protected void releaseWords() {
+        this.words = null;
+        this.oddBins = 0;
+    }
+
+    /**
+     * Gets the number of odd bins, that is, the number of bits set in the sketch
+     *
+     * @return The number of odd bins
+     */
+    protected int getOddBins() {
+        return this.oddBins;
+    }
+
+    protected static int getWordCount(int size) {
+        return (size + Long.SIZE - 1) >>> 6;
     }
 
     /**
@@ -284,53 +553,299 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
         this.elementsAdded = elements;
     }
 
+    /**
+     * Accounts for elements added to the sketch
+     *
+     * @param elements Number of elements added
+     */
+    protected void incrementElementsAdded(int elements) {
+        this.elementsAdded += elements;
+    }
+
     //endregion
 
 
     //region Merge code
 
+    /**
+     * Merges this sketch with the given one into a new sketch of the smaller of both sizes. Neither sketch is modified
+     *
+     * @param oddSketch The sketch to merge with
+     * @return A new sketch, holding the merge of both
+     */
     @Override
     public OddSketch<K> merge(OddSketch<K> oddSketch) {
         Preconditions.checkArgument(this.getClass().equals(oddSketch.getClass()),
                 "You can't merge different type odd sketches");
+        checkHashingCompatible(oddSketch);
 
         OddSketch<K> smallerSketch = getSmallerSketch(this, oddSketch);
+        OddSketch<K> biggerSketch = this == smallerSketch ? oddSketch : this;
 
+        // The clone may be of a parent class, e.g. for subclasses not overriding clone(), so its type isn't checked
         OddSketch<K> newSketch = smallerSketch.clone();
-        OddSketch<K> biggerSketch = this == smallerSketch ? oddSketch : this;
+        biggerSketch.checkFoldableInto(newSketch);
+        biggerSketch.xorInto(newSketch);
+
+        return newSketch;
+    }
+
+    /**
+     * Merges this sketch into the target, which is updated in place. This sketch is left untouched.
+     * <br>
+     * When the target is smaller, this sketch is folded into it on the fly: every chunk of target size of this
+     * sketch words is XORed into the target words, which is equivalent to reducing the buckets of this sketch
+     * modulo the target size
+     *
+     * @param target The sketch to merge this sketch into. It can't be bigger than this sketch
+     */
+    public void mergeInto(@Nonnull OddSketch<K> target) {
+        checkMergeableInto(target);
+        xorInto(target);
+    }
 
-        int smallerSize = smallerSketch.getSize();
-        biggerSketch.fold(smallerSize);
+    /**
+     * XORs the bins of this sketch into the target, folding them when the target is smaller, and accounts for the
+     * elements of this sketch in it. The target is already known to be mergeable
+     *
+     * @param target The sketch to merge this sketch into
+     */
+    protected void xorInto(@Nonnull OddSketch<K> target) {
+        target.xorFoldedWords(this.getWords(), this.getSize());
+        target.incrementElementsAdded(this.getElementsAdded());
 
-        mergeSameSizedSketches(newSketch, biggerSketch);
+        reportMergedInto(target);
+    }
 
-        return newSketch;
+    /**
+     * Reports the merge of this sketch into the target to the {@link SketchMetrics} listener, along with the fold if
+     * the target is smaller
+     *
+     * @param target The sketch this sketch was merged into
+     */
+    protected void reportMergedInto(@Nonnull OddSketch<K> target) {
+        SketchMetrics.getListener().onMerge(SketchKind.ODD_SKETCH);
+
+        if (target.getSize() != this.getSize()) {
+            SketchMetrics.getListener().onFold(SketchKind.ODD_SKETCH, this.getSize(), target.getSize());
+        }
+    }
+
+    /**
+     * XORs the given bins into the bins of this sketch, folding them first when there are more than the size of
+     * this sketch
+     *
+     * @param otherWords The words holding the bins
+     * @param otherSize  The number of bins in the words, not smaller than the size of this sketch
+     */
+    protected void xorFoldedWords(@Nonnull long[] otherWords, int otherSize) {
+        int size = this.getSize();
+
+        if (size == otherSize) {
+            BitUtils.xor(words, otherWords, words.length);
+        } else {
+            for (int from = 0; from < otherSize; from += size) {
+                BitUtils.xorBits(words, otherWords, from, Math.min(size, otherSize - from));
+            }
+        }
+
+        this.oddBins = BitUtils.cardinality(words, words.length);
+    }
+
+    /**
+     * Checks this sketch can be merged into the target
+     *
+     * @param target The sketch to merge this sketch into
+     * @throws IllegalArgumentException If the sketches are of different types, the target is bigger or their
+     * buckets are incompatible
+     */
+    protected void checkMergeableInto(@Nonnull OddSketch<K> target) {
+        Preconditions.checkArgument(this.getClass().equals(target.getClass()),
+                "You can't merge different type odd sketches");
+        checkHashingCompatible(target);
+        checkFoldableInto(target);
+    }
+
+    /**
+     * Checks the elements of both sketches are mapped into buckets the same way, so their bins can be merged or
+     * compared. Both sketches are asked, as either of them may hash its elements in its own way
+     *
+     * @param other The other sketch
+     * @throws IllegalArgumentException If the sketches map the elements into buckets in different ways
+     */
+    private void checkHashingCompatible(OddSketch<K> other) {
+        Preconditions.checkArgument(this.isHashingCompatible(other) && other.isHashingCompatible(this),
+                "You can't merge or compare odd sketches mapping elements into buckets in different ways");
+    }
+
+    /**
+     * Whether this sketch maps its elements into buckets the same way as the other sketch. Plain odd sketches take
+     * hashes, so they are compatible with any sketch, and subclasses hashing the elements themselves override it
+     *
+     * @param other The other sketch
+     * @return True if the bins of both sketches can be merged or compared
+     */
+    protected boolean isHashingCompatible(@Nonnull OddSketch<K> other) {
+        return true;
+    }
+
+    private void checkFoldableInto(OddSketch<K> target) {
+        Preconditions.checkArgument(target.getSize() <= this.getSize(),
+                "You can't merge an odd sketch into a bigger one");
+        checkBucketingCompatible(target);
+    }
+
+    private void checkBucketingCompatible(OddSketch<K> oddSketch) {
+        BucketingStrategy bucketing = this.getBucketingStrategy();
+        BucketingStrategy otherBucketing = oddSketch.getBucketingStrategy();
+
+        Preconditions.checkArgument(bucketing.getClass().equals(otherBucketing.getClass()),
+                "You can't merge odd sketches using different bucketing strategies");
+        Preconditions.checkArgument(this.getSize() == oddSketch.getSize() || bucketing.isFoldable(),
+                "You can't merge different sized odd sketches whose buckets can't be folded");
     }
 
     private OddSketch<K> getSmallerSketch(OddSketch<K> oddSketch1, OddSketch<K> oddSketch2) {
         return oddSketch1.getSize() <= oddSketch2.getSize() ? oddSketch1 : oddSketch2;
     }
 
-    private void fold(int size) {
-        Preconditions.checkArgument(this.getSize() >= size);
+    //endregion
+
+
+    //region Serialization
+
+    // The buffers are moved through Buffer, as the ByteBuffer overrides returning ByteBuffer don't exist before Java 9
+
+    /**
+     * Gets the number of bytes taken by the sketch once serialized
+     *
+     * @return The serialized size of the sketch in bytes
+     */
+    public long getSerializedSize() {
+        return OddSketchFormat.getSizeInBytes(this.getSize());
+    }
+
+    /**
+     * Writes the sketch at the position of the buffer, which is moved past it. The format, described in
+     * {@link OddSketchFormat}, is a little endian header with the format version, the size, the bucketing strategy
+     * and the elements added, followed by the raw words
+     *
+     * @param buffer The buffer to write the sketch to
+     * @throws IllegalArgumentException If the buffer doesn't have room for the sketch, or the bucketing strategy of
+     * the sketch isn't one of the built-in ones
+     */
+    public void writeTo(@Nonnull ByteBuffer buffer) {
+        Preconditions.checkArgument(buffer.remaining() >= this.getSerializedSize(),
+                "The buffer doesn't have room for the sketch");
+
+        long[] words = this.getWords();
+
+        OddSketchFormat.writeHeader(buffer, this.getBucketingStrategy(), this.getElementsAdded(), this.getOddBins());
+        ((Buffer) buffer).position(buffer.position() + OddSketchFormat.HEADER_BYTES);
 
-        BitSet newSketch = new BitSet(size);
+        buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(words);
+        ((Buffer) buffer).position(buffer.position() + words.length * Long.BYTES);
+    }
 
-        for (int i = 0; size * i < this.getSize(); i++) {
-            int sizeTo = size * (i + 1) < this.getSize() ? size * (i + 1) : this.getSize();
+    /**
+     * Writes the sketch to the stream, in the same format as {@link #writeTo(ByteBuffer)}
+     *
+     * @param stream The stream to write the sketch to
+     * @throws IOException If the stream fails
+     */
+    public void writeTo(@Nonnull OutputStream stream) throws IOException {
+        long[] words = this.getWords();
+        ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(STREAM_CHUNK_BYTES, this.getSerializedSize()))
+                .order(ByteOrder.LITTLE_ENDIAN);
 
-            BitSet subSketch = this.getSketch().get(size * i, sizeTo);
+        OddSketchFormat.writeHeader(chunk, this.getBucketingStrategy(), this.getElementsAdded(), this.getOddBins());
+        ((Buffer) chunk).position(OddSketchFormat.HEADER_BYTES);
 
-            newSketch.xor(subSketch);
+        for (long word : words) {
+            if (chunk.remaining() < Long.BYTES) {
+                stream.write(chunk.array(), 0, chunk.position());
+                ((Buffer) chunk).clear();
+            }
+
+            chunk.putLong(word);
         }
 
-        this.setSize(size);
-        this.setSketch(newSketch);
+        stream.write(chunk.array(), 0, chunk.position());
     }
 
-    private void mergeSameSizedSketches(OddSketch<K> sketch1, OddSketch<K> sketch2) {
-        sketch1.getSketch().xor(sketch2.getSketch());
-        sketch1.setElementsAdded(sketch1.getElementsAdded() + sketch2.getElementsAdded());
+    /**
+     * Reads a sketch written by {@link #writeTo(ByteBuffer)} at the position of the buffer, which is moved past it,
+     * copying it into the heap
+     *
+     * @param buffer The buffer holding the sketch
+     * @return The sketch
+     * @throws IllegalArgumentException If the buffer doesn't hold a sketch
+     */
+    @Nonnull
+    public static <K extends Divisible> OddSketch<K> readFrom(@Nonnull ByteBuffer buffer) {
+        BucketingStrategy bucketing = OddSketchFormat.readBucketing(buffer);
+        OddSketch<K> sketch = new OddSketch<>(bucketing);
+
+        long[] words = new long[getWordCount(sketch.getSize())];
+        ByteBuffer wordsBuffer = buffer.duplicate();
+        ((Buffer) wordsBuffer).position(buffer.position() + OddSketchFormat.HEADER_BYTES);
+        wordsBuffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(words);
+
+        sketch.setWords(words);
+        sketch.setElementsAdded(OddSketchFormat.readInt(buffer, OddSketchFormat.ELEMENTS_ADDED_OFFSET));
+
+        ((Buffer) buffer).position((int) (buffer.position() + sketch.getSerializedSize()));
+
+        return sketch;
+    }
+
+    /**
+     * Reads a sketch written by {@link #writeTo(OutputStream)} from the stream
+     *
+     * @param stream The stream holding the sketch
+     * @return The sketch
+     * @throws IOException If the stream fails or ends before the whole sketch is read
+     * @throws IllegalArgumentException If the stream doesn't hold a sketch
+     */
+    @Nonnull
+    public static <K extends Divisible> OddSketch<K> readFrom(@Nonnull InputStream stream) throws IOException {
+        DataInputStream input = new DataInputStream(stream);
+
+        byte[] header = new byte[OddSketchFormat.HEADER_BYTES];
+        input.readFully(header);
+
+        int size = OddSketchFormat.checkHeader(ByteBuffer.wrap(header));
+
+        ByteBuffer sketchBuffer = ByteBuffer.allocate((int) OddSketchFormat.getSizeInBytes(size));
+        sketchBuffer.put(header);
+        input.readFully(sketchBuffer.array(), OddSketchFormat.HEADER_BYTES,
+                sketchBuffer.capacity() - OddSketchFormat.HEADER_BYTES);
+        ((Buffer) sketchBuffer).clear();
+
+        return readFrom(sketchBuffer);
+    }
+
+    /**
+     * Creates a read-only sketch over the sketch written by {@link #writeTo(ByteBuffer)} at the position of the
+     * buffer, which is moved past it. The bytes aren't copied, so the sketch can be compared with others, e.g. with
+     * {@link #estimateJaccardIndex(OddSketch)}, right on the bytes received. Adding elements to it or merging into
+     * it throws an {@link UnsupportedOperationException}
+     *
+     * @param buffer The buffer holding the sketch
+     * @return A read-only sketch over the buffer
+     * @throws IllegalArgumentException If the buffer doesn't hold a sketch, or its words don't match the header
+     */
+    @Nonnull
+    public static <K extends Divisible> OddSketch<K> wrap(@Nonnull ByteBuffer buffer) {
+        BucketingStrategy bucketing = OddSketchFormat.readBucketing(buffer);
+        OffHeapOddSketch<K> sketch = new OffHeapOddSketch<>(buffer.asReadOnlyBuffer(), bucketing);
+
+        // The odd bins are read from the header from now on, so they're checked against the words once here
+        sketch.checkWords();
+
+        ((Buffer) buffer).position((int) (buffer.position() + sketch.getSerializedSize()));
+
+        return sketch;
     }
 
     //endregion
@@ -340,7 +855,7 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.getSize(), this.getSketch(), this.getElementsAdded());
+        return Objects.hash(this.getSize(), Arrays.hashCode(this.getWords()), this.getElementsAdded());
     }
 
     @Override
@@ -352,6 +867,7 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
         return MoreObjects.toStringHelper(this.getClass())
                     .add("size", this.getSize())
                     .add("elements added", this.getElementsAdded())
+                    .add("bucketing", this.getBucketingStrategy())
                     .add("sketch", this.getSketch());
     }
 
@@ -367,7 +883,8 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
 
         return this.getSize() == sketch.getSize() &&
                 this.getElementsAdded() == sketch.getElementsAdded() &&
-                this.getSketch().equals(sketch.getSketch());
+                this.getBucketingStrategy().equals(sketch.getBucketingStrategy()) &&
+                Arrays.equals(this.getWords(), sketch.getWords());
     }
 
     //endregion
@@ -377,9 +894,9 @@ public class OddSketch<K extends Divisible> implements Mergeable<OddSketch<K>>,
 
     @Nonnull
     public OddSketch<K> clone() {
-        OddSketch<K> sketch = new OddSketch<>(this.getSize());
+        OddSketch<K> sketch = new OddSketch<>(this.getBucketingStrategy());
 
-        sketch.setSketch((BitSet) this.getSketch().clone());
+        sketch.setWords(this.getWords().clone());
         sketch.setElementsAdded(this.getElementsAdded());
 
         return sketch;
@@ -0,0 +1,150 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.google.common.base.Preconditions;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Binary layout of an odd sketch, shared by the off-heap sketches and the serialized ones. All the values are
+ * little endian:
+ * <pre>
+ * offset  size  field
+ *      0     4  magic, "ODSK"
+ *      4     2  format version
+ *      6     1  bucketing strategy: 0 modulo, 1 mask, 2 multiply-shift
+ *      7     1  reserved, 0
+ *      8     4  size of the sketch, in bins
+ *     12     4  elements added
+ *     16     4  odd bins
+ *     20     4  reserved, 0
+ *     24        ceil(size / 64) words, bin i being the bit i % 64 of word i / 64
+ * </pre>
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+final class OddSketchFormat {
+    static final int MAGIC = 0x4B53444F;
+    static final short VERSION = 1;
+
+    static final int VERSION_OFFSET = 4;
+    static final int BUCKETING_OFFSET = 6;
+    static final int SIZE_OFFSET = 8;
+    static final int ELEMENTS_ADDED_OFFSET = 12;
+    static final int ODD_BINS_OFFSET = 16;
+    static final int HEADER_BYTES = 24;
+
+    private static final byte MODULO = 0;
+    private static final byte MASK = 1;
+    private static final byte MULTIPLY_SHIFT = 2;
+
+    private OddSketchFormat() {}
+
+    /**
+     * @param size The size of the sketch
+     * @return The number of bytes taken by a sketch of the given size, header included
+     */
+    static long getSizeInBytes(@Nonnegative int size) {
+        return HEADER_BYTES + (long) OddSketch.getWordCount(size) * Long.BYTES;
+    }
+
+    /**
+     * Writes the header of an odd sketch at the position of the buffer, which isn't moved
+     */
+    static void writeHeader(@Nonnull ByteBuffer buffer, @Nonnull BucketingStrategy bucketing, int elementsAdded,
+                            int oddBins) {
+        ByteBuffer header = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        header.putInt(0, MAGIC);
+        header.putShort(VERSION_OFFSET, VERSION);
+        header.put(BUCKETING_OFFSET, getBucketingCode(bucketing));
+        header.put(BUCKETING_OFFSET + 1, (byte) 0);
+        header.putInt(SIZE_OFFSET, bucketing.getWidth());
+        header.putInt(ELEMENTS_ADDED_OFFSET, elementsAdded);
+        header.putInt(ODD_BINS_OFFSET, oddBins);
+        header.putInt(ODD_BINS_OFFSET + Integer.BYTES, 0);
+    }
+
+    /**
+     * Validates the header at the position of the buffer, which isn't moved, and reads the bucketing strategy of the
+     * sketch
+     *
+     * @param buffer The buffer holding the sketch
+     * @return The bucketing strategy, whose width is the size of the sketch
+     * @throws IllegalArgumentException If the buffer doesn't hold a sketch in this format
+     */
+    @Nonnull
+    static BucketingStrategy readBucketing(@Nonnull ByteBuffer buffer) {
+        ByteBuffer header = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        int size = checkHeader(header);
+
+        Preconditions.checkArgument(header.remaining() >= getSizeInBytes(size), "The odd sketch is truncated");
+
+        return getBucketing(header.get(BUCKETING_OFFSET), size);
+    }
+
+    /**
+     * Validates the header at the position of the buffer, which isn't moved, without checking the words follow it
+     *
+     * @param buffer The buffer holding the header
+     * @return The size of the sketch
+     * @throws IllegalArgumentException If the buffer doesn't hold the header of a sketch in this format
+     */
+    static int checkHeader(@Nonnull ByteBuffer buffer) {
+        ByteBuffer header = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        Preconditions.checkArgument(header.remaining() >= HEADER_BYTES && header.getInt(0) == MAGIC,
+                "The buffer doesn't hold an odd sketch");
+        Preconditions.checkArgument(header.getShort(VERSION_OFFSET) == VERSION,
+                "Unsupported odd sketch format version %s", header.getShort(VERSION_OFFSET));
+
+        int size = header.getInt(SIZE_OFFSET);
+
+        Preconditions.checkArgument(size >= 0, "Negative odd sketch size %s", size);
+
+        return size;
+    }
+
+    /**
+     * Reads an int of the header at the position of the buffer, which isn't moved
+     *
+     * @param buffer The buffer holding the sketch
+     * @param offset The offset of the field in the header
+     * @return The value of the field
+     */
+    static int readInt(@Nonnull ByteBuffer buffer, int offset) {
+        return buffer.slice().order(ByteOrder.LITTLE_ENDIAN).getInt(offset);
+    }
+
+    private static byte getBucketingCode(BucketingStrategy bucketing) {
+        int width = bucketing.getWidth();
+
+        if (bucketing.equals(BucketingStrategy.modulo(width))) {
+            return MODULO;
+        } else if (BucketingStrategy.isPowerOfTwo(width) && bucketing.equals(BucketingStrategy.mask(width))) {
+            return MASK;
+        } else if (bucketing.equals(BucketingStrategy.multiplyShift(width))) {
+            return MULTIPLY_SHIFT;
+        }
+
+        throw new IllegalArgumentException("Unsupported bucketing strategy " + bucketing);
+    }
+
+    private static BucketingStrategy getBucketing(byte code, int size) {
+        switch (code) {
+            case MODULO:
+                return BucketingStrategy.modulo(size);
+            case MASK:
+                return BucketingStrategy.mask(size);
+            case MULTIPLY_SHIFT:
+                return BucketingStrategy.multiplyShift(size);
+            default:
+                throw new IllegalArgumentException("Unknown bucketing strategy " + code);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.google.common.base.Preconditions;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import com.inigoillan.libanalytics.metrics.SketchKind;
+import com.inigoillan.libanalytics.metrics.SketchMetrics;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Odd sketch keeping its bins outside of the Java heap, in a direct {@link ByteBuffer} or in a file mapped into
+ * memory, so big sketches aren't scanned by the garbage collector.
+ * <br>
+ * The buffer holds the sketch in the {@link OddSketchFormat} layout, header included, and every operation reads
+ * and writes it in place: flips, the symmetric difference and the folds of a merge. As the header keeps the
+ * elements added and the odd bins up to date, a sketch in a file is reopened with {@link #open(Path)} without
+ * scanning it.
+ * <br>
+ * The size of an off-heap sketch is fixed when it's created. The sketches created by
+ * {@link OddSketch#wrap(ByteBuffer)} are off-heap sketches over a read-only buffer
+ *
+ * @param <K> The type of {@link Divisible} elements this sketch accepts
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class OffHeapOddSketch<K extends Divisible> extends OddSketch<K> {
+
+    //region Variables
+
+    // The buffer given to the constructor, kept to flush it when it's mapped from a file
+    private final ByteBuffer source;
+
+    private final ByteBuffer buffer;
+    private final LongBuffer words;
+
+    //endregion
+
+
+    //region ctors
+
+    /**
+     * Constructor over a buffer already holding a sketch
+     *
+     * @param buffer    The buffer, starting at the header of the sketch
+     * @param bucketing The bucketing strategy read from the header
+     */
+    protected OffHeapOddSketch(@Nonnull ByteBuffer buffer, @Nonnull BucketingStrategy bucketing) {
+        super(bucketing, false);
+
+        this.source = buffer;
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        // Moved through Buffer, as the ByteBuffer overrides returning ByteBuffer don't exist before Java 9
+        ByteBuffer wordsBuffer = this.buffer.duplicate();
+        ((Buffer) wordsBuffer).position(OddSketchFormat.HEADER_BYTES);
+        ((Buffer) wordsBuffer).limit(OddSketchFormat.HEADER_BYTES + getWordCount(this.getSize()) * Long.BYTES);
+
+        this.words = wordsBuffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    //endregion
+
+
+    //region Factories
+
+    /**
+     * Creates an empty sketch in a new direct buffer
+     *
+     * @param bucketing The strategy mapping hashes into buckets of the sketch
+     * @return The sketch
+     */
+    @Nonnull
+    public static <K extends Divisible> OffHeapOddSketch<K> allocateDirect(@Nonnull BucketingStrategy bucketing) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(toBufferSize(bucketing.getWidth()));
+
+        OddSketchFormat.writeHeader(buffer, bucketing, 0, 0);
+        SketchMetrics.getListener().onAllocated(SketchKind.ODD_SKETCH, buffer.capacity());
+
+        return new OffHeapOddSketch<>(buffer, bucketing);
+    }
+
+    /**
+     * Creates an empty sketch in a new file, mapped into memory
+     *
+     * @param file      The file to create. It can't exist already
+     * @param bucketing The strategy mapping hashes into buckets of the sketch
+     * @return The sketch
+     * @throws IOException If the file can't be created or mapped
+     */
+    @Nonnull
+    public static <K extends Divisible> OffHeapOddSketch<K> create(@Nonnull Path file,
+                                                                   @Nonnull BucketingStrategy bucketing)
+            throws IOException {
+        int bytes = toBufferSize(bucketing.getWidth());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+
+            OddSketchFormat.writeHeader(buffer, bucketing, 0, 0);
+            SketchMetrics.getListener().onAllocated(SketchKind.ODD_SKETCH, bytes);
+
+            return new OffHeapOddSketch<>(buffer, bucketing);
+        }
+    }
+
+    /**
+     * Opens a sketch stored in a file, mapping it into memory. The changes to the sketch are written back to the file
+     *
+     * @param file The file holding the sketch
+     * @return The sketch
+     * @throws IOException If the file can't be read or mapped
+     * @throws IllegalArgumentException If the file doesn't hold a sketch
+     */
+    @Nonnull
+    public static <K extends Divisible> OffHeapOddSketch<K> open(@Nonnull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            BucketingStrategy bucketing = OddSketchFormat.readBucketing(buffer);
+
+            return new OffHeapOddSketch<>(buffer, bucketing);
+        }
+    }
+
+    private static int toBufferSize(int size) {
+        long bytes = OddSketchFormat.getSizeInBytes(size);
+
+        Preconditions.checkArgument(bytes <= Integer.MAX_VALUE, "The sketch doesn't fit in a buffer");
+
+        return (int) bytes;
+    }
+
+    //endregion
+
+
+    //region xor
+
+    @Override
+    protected void xorIthBit(int index) {
+        if (index < 0 || index >= this.getSize()) {
+            throw new IllegalArgumentException(index < 0 ? "The index needs to be positive" :
+                    "Index has to be in the bounds set in the size parameter");
+        }
+
+        int wordIndex = index >>> 6;
+        long word = words.get(wordIndex) ^ (1L << index);
+        words.put(wordIndex, word);
+
+        // +1 if the bit is now odd, -1 if it went back to even
+        setOddBins(getOddBins() + ((int) (word >>> index) & 1) * 2 - 1);
+    }
+
+    @Override
+    protected void xorFoldedWords(@Nonnull long[] otherWords, int otherSize) {
+        xorFoldedWords(LongBuffer.wrap(otherWords), otherSize);
+    }
+
+    /**
+     * XORs this sketch into the target, folding the buffer of this sketch directly into the buffer of the target
+     * when it's off-heap too
+     *
+     * @param target The sketch to merge this sketch into
+     */
+    @Override
+    protected void xorInto(@Nonnull OddSketch<K> target) {
+        if (!(target instanceof OffHeapOddSketch)) {
+            super.xorInto(target);
+            return;
+        }
+
+        ((OffHeapOddSketch<K>) target).xorFoldedWords(this.words, this.getSize());
+        target.incrementElementsAdded(this.getElementsAdded());
+
+        reportMergedInto(target);
+    }
+
+    private void xorFoldedWords(LongBuffer otherWords, int otherSize) {
+        int size = this.getSize();
+
+        for (int from = 0; from < otherSize; from += size) {
+            int length = Math.min(size, otherSize - from);
+
+            for (int i = 0; i * Long.SIZE < length; i++) {
+                long bits = readWord(otherWords, from + i * Long.SIZE);
+                int remainingBits = length - i * Long.SIZE;
+
+                if (remainingBits < Long.SIZE) {
+                    bits &= (1L << remainingBits) - 1;
+                }
+
+                words.put(i, words.get(i) ^ bits);
+            }
+        }
+
+        setOddBins(countOddBins());
+    }
+
+    /**
+     * Reads the 64 bits starting at the given bit of the words
+     */
+    private static long readWord(LongBuffer words, int bit) {
+        int wordIndex = bit >>> 6;
+        int shift = bit & 63;
+        long value = words.get(wordIndex) >>> shift;
+
+        if (shift != 0 && wordIndex + 1 < words.limit()) {
+            value |= words.get(wordIndex + 1) << (Long.SIZE - shift);
+        }
+
+        return value;
+    }
+
+    /**
+     * Checks that the words in the buffer agree with its header: no bits set beyond the size of the sketch, and as
+     * many bits set as odd bins in the header. The bits are counted once, on a single pass over the words
+     *
+     * @throws IllegalArgumentException If the words don't match the header
+     */
+    void checkWords() {
+        int size = this.getSize();
+
+        if (size % Long.SIZE != 0) {
+            Preconditions.checkArgument((words.get(words.limit() - 1) & -(1L << size)) == 0,
+                    "The sketch has bits set beyond its size");
+        }
+
+        Preconditions.checkArgument(countOddBins() == getOddBins(),
+                "The odd bins in the header don't match the bits set in the sketch");
+    }
+
+    private int countOddBins() {
+        int oddBins = 0;
+
+        for (int i = 0; i < words.limit(); i++) {
+            oddBins += Long.bitCount(words.get(i));
+        }
+
+        return oddBins;
+    }
+
+    //endregion
+
+
+    //region Jaccard index
+
+    /**
+     * Computes the symmetric difference reading the words of both sketches in place
+     */
+    @Override
+    protected int computeSymmetricDifference(@Nonnull OddSketch<K> other) {
+        Preconditions.checkArgument(other.getSize() == this.getSize());
+
+        int symmetricDifference = 0;
+
+        if (other instanceof OffHeapOddSketch) {
+            LongBuffer otherWords = ((OffHeapOddSketch<K>) other).words;
+
+            for (int i = 0; i < words.limit(); i++) {
+                symmetricDifference += Long.bitCount(words.get(i) ^ otherWords.get(i));
+            }
+        } else {
+            long[] otherWords = other.getWords();
+
+            for (int i = 0; i < words.limit(); i++) {
+                symmetricDifference += Long.bitCount(words.get(i) ^ otherWords[i]);
+            }
+        }
+
+        return symmetricDifference;
+    }
+
+    //endregion
+
+
+    //region Getters and setters
+
+    /**
+     * The size of an off-heap sketch can't change
+     *
+     * @param size New size of the sketch
+     * @throws UnsupportedOperationException If the size differs from the current one
+     */
+    @Override
+    protected void setSize(int size) {
+        if (size != this.getSize()) {
+            throw new UnsupportedOperationException("The size of an off-heap odd sketch is fixed");
+        }
+    }
+
+    /**
+     * Gets a copy of the words of the sketch in the heap
+     *
+     * @return A copy of the words of the sketch
+     */
+    @Override
+    protected long[] getWords() {
+        long[] copy = new long[words.limit()];
+
+        words.duplicate().get(copy);
+
+        return copy;
+    }
+
+    /**
+     * Copies the given words into the buffer. The bits beyond the size of the sketch are cleared
+     *
+     * @param words The words of the sketch
+     */
+    @Override
+    protected void setWords(@Nonnull long[] words) {
+        Preconditions.checkArgument(words.length == getWordCount(this.getSize()),
+                "The number of words doesn't match the size of the sketch");
+
+        this.words.duplicate().put(words);
+
+        if (this.getSize() % Long.SIZE != 0) {
+            int last = words.length - 1;
+
+            this.words.put(last, words[last] & ((1L << this.getSize()) - 1));
+        }
+
+        setOddBins(countOddBins());
+    }
+
+    /**
+     * Gets the odd bins kept in the header, which {@link OddSketch#wrap(ByteBuffer)} checks against the words
+     *
+     * @return The number of odd bins
+     */
+    @Override
+    protected int getOddBins() {
+        return buffer.getInt(OddSketchFormat.ODD_BINS_OFFSET);
+    }
+
+    private void setOddBins(int oddBins) {
+        buffer.putInt(OddSketchFormat.ODD_BINS_OFFSET, oddBins);
+    }
+
+    @Override
+    protected int getElementsAdded() {
+        return buffer.getInt(OddSketchFormat.ELEMENTS_ADDED_OFFSET);
+    }
+
+    @Override
+    protected void setElementsAdded(int elements) {
+        buffer.putInt(OddSketchFormat.ELEMENTS_ADDED_OFFSET, elements);
+    }
+
+    @Override
+    protected void incrementElementsAdded(int elements) {
+        setElementsAdded(getElementsAdded() + elements);
+    }
+
+    /**
+     * Gets the buffer holding the sketch, header included
+     *
+     * @return A view of the buffer of the sketch
+     */
+    protected ByteBuffer getBuffer() {
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Writes the changes of a sketch mapped from a file back to the storage. It does nothing for sketches in a
+     * direct buffer
+     */
+    public void force() {
+        if (source instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) source).force();
+        }
+    }
+
+    //endregion
+
+
+    //region Clone
+
+    /**
+     * Clones the sketch into a new direct buffer
+     */
+    @Nonnull
+    @Override
+    public OffHeapOddSketch<K> clone() {
+        OffHeapOddSketch<K> sketch = allocateDirect(this.getBucketingStrategy());
+
+        sketch.words.duplicate().put(this.words.duplicate());
+        sketch.setOddBins(this.getOddBins());
+        sketch.setElementsAdded(this.getElementsAdded());
+
+        return sketch;
+    }
+
+    //endregion
+}
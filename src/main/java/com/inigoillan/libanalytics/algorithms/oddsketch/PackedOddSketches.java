@@ -0,0 +1,390 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.inigoillan.libanalytics.collections.BitUtils;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Batch engine estimating the Jaccard Index between many odd sketches of the same size.
+ * <br>
+ * The words of the sketches are packed one after the other in a single array, and the pairs are compared tile by
+ * tile: a block of rows against a block of columns small enough for both to stay in the cache. The tiles are spread
+ * across a {@link ForkJoinPool}, and the pairs are streamed to a {@link JaccardPairConsumer} as they are found, so
+ * the whole matrix is never kept in memory.
+ * <br>
+ * The estimation of the pair <i>(i, j)</i> is the one of <i>sketches.get(i).estimateJaccardIndex(sketches.get(j))</i>.
+ * The sketches are copied when packed, so later changes to them aren't seen
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class PackedOddSketches {
+    // Bytes of a block of rows or columns of a tile, so a whole tile fits comfortably in the L2 cache
+    private static final int TILE_BLOCK_BYTES = 128 * 1024;
+
+    private final long[] words;
+    private final int[] elementsAdded;
+    private final int sketchSize;
+    private final int wordCount;
+    private final int blockSize;
+
+    //region ctors
+
+    /**
+     * Packs the given sketches
+     *
+     * @param sketches The sketches, all of them of the same size
+     */
+    public PackedOddSketches(@Nonnull List<? extends OddSketch<?>> sketches) {
+        Preconditions.checkArgument(!sketches.isEmpty(), "There are no sketches to pack");
+
+        this.sketchSize = sketches.get(0).getSize();
+        this.wordCount = OddSketch.getWordCount(sketchSize);
+        this.blockSize = Math.max(1, TILE_BLOCK_BYTES / (Math.max(1, wordCount) * Long.BYTES));
+
+        this.words = new long[Math.multiplyExact(sketches.size(), wordCount)];
+        this.elementsAdded = new int[sketches.size()];
+
+        for (int i = 0; i < sketches.size(); i++) {
+            OddSketch<?> sketch = sketches.get(i);
+
+            Preconditions.checkArgument(sketch.getSize() == sketchSize, "All the sketches need to be the same size");
+
+            System.arraycopy(sketch.getWords(), 0, words, i * wordCount, wordCount);
+            elementsAdded[i] = sketch.getElementsAdded();
+        }
+    }
+
+    //endregion
+
+
+    //region Jaccard index
+
+    /**
+     * Estimates the Jaccard Index of a single pair
+     *
+     * @param i The position of the first sketch
+     * @param j The position of the second sketch
+     * @return The Jaccard Index as a [0..1] value
+     */
+    public double estimateJaccardIndex(@Nonnegative int i, @Nonnegative int j) {
+        Preconditions.checkElementIndex(i, elementsAdded.length);
+        Preconditions.checkElementIndex(j, elementsAdded.length);
+
+        return estimate(i, j);
+    }
+
+    /**
+     * Estimates the Jaccard Index of every pair <i>(i, j)</i> with <i>i &lt; j</i>, and passes the ones whose index is
+     * at least the threshold to the consumer
+     *
+     * @param threshold The minimum Jaccard Index of the pairs to pass to the consumer
+     * @param pool      The pool running the comparisons
+     * @param consumer  The consumer of the pairs. It's called from the threads of the pool, so it needs to be thread
+     *                  safe
+     */
+    public void forEachPair(double threshold, @Nonnull ForkJoinPool pool, @Nonnull JaccardPairConsumer consumer) {
+        int blocks = getBlockCount();
+
+        pool.invoke(new BlocksTask(0, blocks, (rowBlock) -> {
+            for (int columnBlock = rowBlock; columnBlock < blocks; columnBlock++) {
+                compareTile(rowBlock, columnBlock, threshold, consumer);
+            }
+        }));
+    }
+
+    /**
+     * Finds, for every sketch, the <i>k</i> sketches with the highest Jaccard Index to it whose index is at least
+     * the threshold. They are passed to the consumer row by row, from the highest index to the lowest
+     *
+     * @param k         The maximum number of pairs to find for each sketch
+     * @param threshold The minimum Jaccard Index of the pairs to pass to the consumer
+     * @param pool      The pool running the comparisons
+     * @param consumer  The consumer of the pairs. It's called from the threads of the pool, so it needs to be thread
+     *                  safe, but all the pairs of a row are passed from the same thread
+     */
+    public void forEachTopK(@Nonnegative int k, double threshold, @Nonnull ForkJoinPool pool,
+                            @Nonnull JaccardPairConsumer consumer) {
+        Preconditions.checkArgument(k > 0, "k needs to be positive");
+
+        int blocks = getBlockCount();
+
+        pool.invoke(new BlocksTask(0, blocks, (rowBlock) -> {
+            int rowFrom = rowBlock * blockSize;
+            int rowTo = Math.min(rowFrom + blockSize, elementsAdded.length);
+
+            TopK[] rows = new TopK[rowTo - rowFrom];
+
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = new TopK(k);
+            }
+
+            for (int columnBlock = 0; columnBlock < blocks; columnBlock++) {
+                int columnFrom = columnBlock * blockSize;
+                int columnTo = Math.min(columnFrom + blockSize, elementsAdded.length);
+
+                for (int i = rowFrom; i < rowTo; i++) {
+                    TopK row = rows[i - rowFrom];
+
+                    for (int j = columnFrom; j < columnTo; j++) {
+                        if (i == j) {
+                            continue;
+                        }
+
+                        double jaccardIndex = estimate(i, j);
+
+                        if (jaccardIndex >= threshold) {
+                            row.offer(j, jaccardIndex);
+                        }
+                    }
+                }
+            }
+
+            for (int i = rowFrom; i < rowTo; i++) {
+                rows[i - rowFrom].drainTo(i, consumer);
+            }
+        }));
+    }
+
+    private void compareTile(int rowBlock, int columnBlock, double threshold, JaccardPairConsumer consumer) {
+        int rowFrom = rowBlock * blockSize;
+        int rowTo = Math.min(rowFrom + blockSize, elementsAdded.length);
+        int columnTo = Math.min((columnBlock + 1) * blockSize, elementsAdded.length);
+
+        for (int i = rowFrom; i < rowTo; i++) {
+            int columnFrom = rowBlock == columnBlock ? i + 1 : columnBlock * blockSize;
+            int maxDifference = getMaxSymmetricDifference(i, threshold);
+
+            for (int j = columnFrom; j < columnTo; j++) {
+                if (elementsAdded[i] != 0 && elementsAdded[j] != 0) {
+                    int symmetricDifference = symmetricDifference(i, j);
+
+                    // Discards most of the pairs below the threshold without computing the logarithm
+                    if (symmetricDifference > maxDifference) {
+                        continue;
+                    }
+
+                    double jaccardIndex = OddSketch.computeJaccardIndex(symmetricDifference, sketchSize,
+                            elementsAdded[i]);
+
+                    if (jaccardIndex >= threshold) {
+                        consumer.accept(i, j, jaccardIndex);
+                    }
+                } else {
+                    double jaccardIndex = estimate(i, j);
+
+                    if (jaccardIndex >= threshold) {
+                        consumer.accept(i, j, jaccardIndex);
+                    }
+                }
+            }
+        }
+    }
+
+    private double estimate(int i, int j) {
+        if (elementsAdded[i] == 0 || elementsAdded[j] == 0) {
+            return elementsAdded[i] == elementsAdded[j] ? 1.0 : 0.0;
+        }
+
+        return OddSketch.computeJaccardIndex(symmetricDifference(i, j), sketchSize, elementsAdded[i]);
+    }
+
+    private int symmetricDifference(int i, int j) {
+        return BitUtils.xorCardinality(words, i * wordCount, words, j * wordCount, wordCount);
+    }
+
+    /**
+     * Inverts the estimation to find the biggest symmetric difference a pair of row <i>i</i> can have while its
+     * Jaccard Index is at least the threshold. A bin is added to make up for rounding errors, as the pairs within the
+     * bound are checked against the threshold anyway
+     */
+    private int getMaxSymmetricDifference(int i, double threshold) {
+        if (elementsAdded[i] == 0 || threshold <= 0) {
+            return Integer.MAX_VALUE;
+        }
+
+        double inner = Math.exp((threshold - 1.0) * 4.0 * elementsAdded[i] / sketchSize);
+
+        return (int) Math.min(Integer.MAX_VALUE - 1, Math.floor(sketchSize / 2.0 * (1.0 - inner))) + 1;
+    }
+
+    private int getBlockCount() {
+        return (elementsAdded.length + blockSize - 1) / blockSize;
+    }
+
+    //endregion
+
+
+    //region Getters
+
+    /**
+     * @return The number of sketches packed
+     */
+    public int getSketchCount() {
+        return elementsAdded.length;
+    }
+
+    //endregion
+
+
+    //region toString
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this.getClass())
+                .add("sketches", elementsAdded.length)
+                .add("sketch size", sketchSize)
+                .add("tile block size", blockSize)
+                .toString();
+    }
+
+    //endregion
+
+
+    //region Inner classes
+
+    /**
+     * Consumer of the pairs of sketches found by {@link PackedOddSketches}
+     */
+    @FunctionalInterface
+    public interface JaccardPairConsumer {
+        /**
+         * @param i            The position of the first sketch
+         * @param j            The position of the second sketch
+         * @param jaccardIndex The estimated Jaccard Index of the pair
+         */
+        void accept(int i, int j, double jaccardIndex);
+    }
+
+    @FunctionalInterface
+    private interface BlockAction {
+        void run(int block);
+    }
+
+    /**
+     * Runs the action over a range of row blocks, splitting it in halves until a single block is left
+     */
+    private static final class BlocksTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final BlockAction action;
+
+        private BlocksTask(int from, int to, BlockAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    action.run(from);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+
+                invokeAll(new BlocksTask(from, middle, action), new BlocksTask(middle, to, action));
+            }
+        }
+    }
+
+    /**
+     * Keeps the <i>k</i> pairs with the highest Jaccard Index of a row in a min-heap of primitive arrays
+     */
+    private static final class TopK {
+        private final int[] columns;
+        private final double[] jaccardIndexes;
+        private int size = 0;
+
+        private TopK(int k) {
+            this.columns = new int[k];
+            this.jaccardIndexes = new double[k];
+        }
+
+        private void offer(int column, double jaccardIndex) {
+            if (size < columns.length) {
+                columns[size] = column;
+                jaccardIndexes[size] = jaccardIndex;
+                siftUp(size++);
+            } else if (jaccardIndex > jaccardIndexes[0]) {
+                columns[0] = column;
+                jaccardIndexes[0] = jaccardIndex;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * Passes the pairs to the consumer from the highest Jaccard Index to the lowest, emptying the heap
+         */
+        private void drainTo(int row, JaccardPairConsumer consumer) {
+            int count = size;
+
+            // Heap sort: moving the minimum to the end leaves the pairs in descending order
+            for (int last = size - 1; last > 0; last--) {
+                swap(0, last);
+                siftDown(0, last);
+            }
+
+            for (int i = 0; i < count; i++) {
+                consumer.accept(row, columns[i], jaccardIndexes[i]);
+            }
+
+            size = 0;
+        }
+
+        private void siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+
+                if (jaccardIndexes[parent] <= jaccardIndexes[position]) {
+                    return;
+                }
+
+                swap(parent, position);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int position, int heapSize) {
+            while (true) {
+                int smallest = position;
+                int left = 2 * position + 1;
+                int right = left + 1;
+
+                if (left < heapSize && jaccardIndexes[left] < jaccardIndexes[smallest]) {
+                    smallest = left;
+                }
+
+                if (right < heapSize && jaccardIndexes[right] < jaccardIndexes[smallest]) {
+                    smallest = right;
+                }
+
+                if (smallest == position) {
+                    return;
+                }
+
+                swap(position, smallest);
+                position = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int column = columns[i];
+            columns[i] = columns[j];
+            columns[j] = column;
+
+            double jaccardIndex = jaccardIndexes[i];
+            jaccardIndexes[i] = jaccardIndexes[j];
+            jaccardIndexes[j] = jaccardIndex;
+        }
+    }
+
+    //endregion
+}
@@ -0,0 +1,438 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.google.common.base.Preconditions;
+import com.inigoillan.libanalytics.collections.BitUtils;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import com.inigoillan.libanalytics.metrics.SketchKind;
+import com.inigoillan.libanalytics.metrics.SketchMetrics;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Odd sketch for many threads adding elements at a high rate, split into stripes that are merged when read.
+ * <br>
+ * Each stripe holds the words of a whole sketch, and every thread adds its elements to the stripe picked by its id,
+ * so threads on different stripes never write the same words. As XOR is associative, the sketch is the XOR of its
+ * stripes: the estimates, merges and the getters fold the stripes together, and keep the result until an element
+ * is added again.
+ * <br>
+ * The stripes take <i>stripes * size</i> bits of memory in total. A stripe is locked while elements are added
+ * to it, once per element or once per batch, which is uncontended as long as there are as many stripes as writing
+ * threads. The stripes and their words are padded, so the lock, the version and the counters of a stripe, which
+ * change on every flip, don't share cache lines with the other stripes
+ *
+ * @param <K> The type of {@link Divisible} elements this sketch accepts
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class StripedOddSketch<K extends Divisible> extends OddSketch<K> {
+
+    //region Variables
+
+    // Two cache lines of padding, as the adjacent line prefetcher pulls lines in pairs
+    private static final int PADDING_WORDS = 16;
+
+    private final Stripe[] stripes;
+
+    private volatile MergedStripes merged;
+
+    //endregion
+
+
+    //region ctors
+
+    /**
+     * Constructor. Hashes are mapped into buckets with the {@link BucketingStrategy#modulo(int)} strategy,
+     * and there is a stripe per available processor
+     *
+     * @param size The size of the sketch
+     */
+    public StripedOddSketch(int size) {
+        this(BucketingStrategy.modulo(size));
+    }
+
+    /**
+     * Constructor with a stripe per available processor
+     *
+     * @param bucketing The strategy mapping hashes into buckets of the sketch
+     * @see OddSketch#OddSketch(BucketingStrategy)
+     */
+    public StripedOddSketch(@Nonnull BucketingStrategy bucketing) {
+        this(bucketing, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param bucketing The strategy mapping hashes into buckets of the sketch
+     * @param stripes   The number of stripes, rounded up to a power of two
+     */
+    public StripedOddSketch(@Nonnull BucketingStrategy bucketing, int stripes) {
+        super(bucketing, false);
+
+        Preconditions.checkArgument(stripes > 0, "The number of stripes needs to be positive");
+        Preconditions.checkArgument(stripes <= 1 << 16, "Too many stripes");
+
+        int stripeCount = Integer.highestOneBit(stripes);
+        stripeCount = stripeCount == stripes ? stripes : stripeCount << 1;
+
+        this.stripes = new Stripe[stripeCount];
+
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(getWordCount(this.getSize()));
+        }
+
+        SketchMetrics.getListener().onAllocated(SketchKind.ODD_SKETCH,
+                (long) stripeCount * (getWordCount(this.getSize()) + PADDING_WORDS) * Long.BYTES);
+    }
+
+    //endregion
+
+
+    //region addHashed
+
+    @Override
+    public void addHashed(@Nonnull K hashed) {
+        flip(getBucket(hashed));
+    }
+
+    @Override
+    public void addHashed(long hashed) {
+        flip(getBucket(hashed));
+    }
+
+    @Override
+    public void addHashed(int hashed) {
+        flip(getBucket(hashed));
+    }
+
+    /**
+     * Flips the bucket in the stripe of the current thread, accounting for the element added
+     *
+     * @param bucket The bucket of the element
+     */
+    private void flip(int bucket) {
+        checkBucket(bucket);
+
+        Stripe stripe = getCurrentStripe();
+
+        synchronized (stripe) {
+            stripe.words[bucket >>> 6] ^= 1L << bucket;
+            stripe.elementsAdded++;
+            stripe.version++;
+        }
+
+        SketchMetrics.getListener().onElementsAdded(SketchKind.ODD_SKETCH, 1);
+    }
+
+    /**
+     * Adds a batch of 64 bits hashes to the stripe of the current thread, locking it and bumping its version once
+     * for the whole batch. If a hash falls out of the sketch, the hashes before it stay added and are accounted for
+     *
+     * @param hashes The hashes of the elements to add
+     * @param offset Position of the first hash to add
+     * @param length Number of hashes to add
+     */
+    @Override
+    public void addHashedBatch(@Nonnull long[] hashes, int offset, int length) {
+        Preconditions.checkPositionIndexes(offset, offset + length, hashes.length);
+
+        Stripe stripe = getCurrentStripe();
+        int i = offset;
+
+        try {
+            synchronized (stripe) {
+                long[] words = stripe.words;
+
+                try {
+                    for (; i < offset + length; i++) {
+                        int bucket = checkBucket(getBucket(hashes[i]));
+
+                        words[bucket >>> 6] ^= 1L << bucket;
+                    }
+                } finally {
+                    stripe.elementsAdded += i - offset;
+                    stripe.version++;
+                }
+            }
+        } finally {
+            SketchMetrics.getListener().onElementsAdded(SketchKind.ODD_SKETCH, i - offset);
+        }
+    }
+
+    @Override
+    protected void xorIthBit(int index) {
+        checkBucket(index);
+
+        Stripe stripe = getCurrentStripe();
+
+        synchronized (stripe) {
+            stripe.words[index >>> 6] ^= 1L << index;
+            stripe.version++;
+        }
+    }
+
+    @Override
+    protected void xorFoldedWords(@Nonnull long[] otherWords, int otherSize) {
+        int size = this.getSize();
+        Stripe stripe = getCurrentStripe();
+
+        synchronized (stripe) {
+            if (size == otherSize) {
+                BitUtils.xor(stripe.words, otherWords, getWordCount(size));
+            } else {
+                for (int from = 0; from < otherSize; from += size) {
+                    BitUtils.xorBits(stripe.words, otherWords, from, Math.min(size, otherSize - from));
+                }
+            }
+
+            stripe.version++;
+        }
+    }
+
+    private int checkBucket(int bucket) {
+        if (bucket < 0 || bucket >= this.getSize()) {
+            throw new IllegalArgumentException(bucket < 0 ? "The index needs to be positive" :
+                    "Index has to be in the bounds set in the size parameter");
+        }
+
+        return bucket;
+    }
+
+    private Stripe getCurrentStripe() {
+        return stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+    }
+
+    //endregion
+
+
+    //region Jaccard index
+
+    /**
+     * Computes the symmetric difference against the merged stripes without copying them
+     */
+    @Override
+    protected int computeSymmetricDifference(@Nonnull OddSketch<K> other) {
+        long[] words = getMergedStripes().words;
+        long[] otherWords = other.getWords();
+
+        Preconditions.checkArgument(words.length == otherWords.length);
+
+        return BitUtils.xorCardinality(words, otherWords, words.length);
+    }
+
+    //endregion
+
+
+    //region Merge stripes
+
+    /**
+     * Gets the XOR of all the stripes, merging them again only if an element was added since the last time
+     */
+    private MergedStripes getMergedStripes() {
+        MergedStripes mergedStripes = this.merged;
+
+        if (mergedStripes != null && mergedStripes.isCurrent(stripes)) {
+            return mergedStripes;
+        }
+
+        long[] versions = new long[stripes.length];
+        long[] words = new long[getWordCount(this.getSize())];
+        int elementsAdded = 0;
+
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+
+            synchronized (stripe) {
+                long[] stripeWords = stripe.words;
+
+                // While resizing, the stripes still have the previous size
+                versions[i] = stripe.version;
+                BitUtils.xor(words, stripeWords, Math.min(words.length, stripeWords.length - PADDING_WORDS));
+                elementsAdded += stripe.elementsAdded;
+            }
+        }
+
+        clearBitsBeyondSize(words);
+
+        mergedStripes = new MergedStripes(versions, words, elementsAdded);
+        this.merged = mergedStripes;
+
+        return mergedStripes;
+    }
+
+    //endregion
+
+
+    //region Getters and setters
+
+    /**
+     * Gets the number of stripes of the sketch
+     *
+     * @return The number of stripes
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Gets the merged stripes
+     *
+     * @return A copy of the XOR of the words of every stripe
+     */
+    @Override
+    protected long[] getWords() {
+        return getMergedStripes().words.clone();
+    }
+
+    /**
+     * Sets the words of the sketch into the first stripe, and clears the rest of the stripes
+     * <br>
+     * Tipically, you would use this method in case you are building a (de)serialization mechanism for this class
+     *
+     * @param words The words of the sketch
+     */
+    @Override
+    protected void setWords(@Nonnull long[] words) {
+        Preconditions.checkArgument(words.length == getWordCount(this.getSize()),
+                "The number of words doesn't match the size of the sketch");
+
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+            long[] stripeWords = i == 0 ?
+                    Arrays.copyOf(words, words.length + PADDING_WORDS) : new long[words.length + PADDING_WORDS];
+
+            clearBitsBeyondSize(stripeWords);
+
+            synchronized (stripe) {
+                stripe.words = stripeWords;
+                stripe.version++;
+            }
+        }
+
+        SketchMetrics.getListener().onAllocated(SketchKind.ODD_SKETCH,
+                (long) stripes.length * (words.length + PADDING_WORDS) * Long.BYTES);
+    }
+
+    private void clearBitsBeyondSize(long[] words) {
+        if (this.getSize() % Long.SIZE != 0) {
+            words[getWordCount(this.getSize()) - 1] &= (1L << this.getSize()) - 1;
+        }
+    }
+
+    @Override
+    protected int getOddBins() {
+        return getMergedStripes().oddBins;
+    }
+
+    @Override
+    protected int getElementsAdded() {
+        return getMergedStripes().elementsAdded;
+    }
+
+    /**
+     * Sets the elements added into the first stripe, and clears the counts of the rest of the stripes
+     *
+     * @param elements The elements added to the sketch
+     */
+    @Override
+    protected void setElementsAdded(int elements) {
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+
+            synchronized (stripe) {
+                stripe.elementsAdded = i == 0 ? elements : 0;
+                stripe.version++;
+            }
+        }
+    }
+
+    @Override
+    protected void incrementElementsAdded(int elements) {
+        Stripe stripe = getCurrentStripe();
+
+        synchronized (stripe) {
+            stripe.elementsAdded += elements;
+            stripe.version++;
+        }
+    }
+
+    //endregion
+
+
+    //region Clone
+
+    @Nonnull
+    @Override
+    public StripedOddSketch<K> clone() {
+        StripedOddSketch<K> sketch = new StripedOddSketch<>(this.getBucketingStrategy(), stripes.length);
+        MergedStripes mergedStripes = getMergedStripes();
+
+        sketch.setWords(mergedStripes.words.clone());
+        sketch.setElementsAdded(mergedStripes.elementsAdded);
+
+        return sketch;
+    }
+
+    //endregion
+
+
+    //region Stripe classes
+
+    /**
+     * The fields of a stripe, guarded by the stripe lock. The version changes on every update
+     */
+    private abstract static class StripeFields {
+        // The words of the stripe, followed by the padding words
+        long[] words;
+        int elementsAdded = 0;
+        volatile long version = 0;
+    }
+
+    /**
+     * A stripe of the sketch. The fields of a subclass are laid out after the ones of its superclass, so the padding
+     * keeps the lock in the header and the fields of the stripe off the lines of the next object, the same way the
+     * padding words at the end of the words keep the lines of the next stripe off them
+     */
+    @SuppressWarnings("unused")
+    private static final class Stripe extends StripeFields {
+        private long p01, p02, p03, p04, p05, p06, p07, p08;
+        private long p09, p10, p11, p12, p13, p14, p15, p16;
+
+        private Stripe(int wordCount) {
+            this.words = new long[wordCount + PADDING_WORDS];
+        }
+    }
+
+    /**
+     * The XOR of all the stripes, along with the versions of the stripes it was built from
+     */
+    private static final class MergedStripes {
+        private final long[] versions;
+        private final long[] words;
+        private final int oddBins;
+        private final int elementsAdded;
+
+        private MergedStripes(long[] versions, long[] words, int elementsAdded) {
+            this.versions = versions;
+            this.words = words;
+            this.oddBins = BitUtils.cardinality(words, words.length);
+            this.elementsAdded = elementsAdded;
+        }
+
+        private boolean isCurrent(Stripe[] stripes) {
+            for (int i = 0; i < stripes.length; i++) {
+                if (stripes[i].version != versions[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    //endregion
+}
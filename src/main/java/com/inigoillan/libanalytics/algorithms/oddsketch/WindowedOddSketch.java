@@ -0,0 +1,262 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Odd sketch over a sliding window of the stream, made of the last <i>epochs</i> epochs.
+ * <br>
+ * The sketch keeps a ring of per epoch sub-sketches along with their XOR, which is the bins of this sketch. Every
+ * element added flips its bin both in the XOR and in the sub-sketch of the current epoch. As XOR is its own inverse,
+ * when an epoch expires its sub-sketch is XORed out of the aggregate and its elements are subtracted, in
+ * <i>O(size / 64)</i>. So the estimates of the window are as cheap as the ones of a plain {@link OddSketch}, with
+ * no need to add the elements of the window again.
+ * <br>
+ * What an epoch is depends on the caller: {@link #advanceEpoch()} closes the current one, and
+ * {@link #advanceToEpoch(long)} moves to any later epoch, e.g. <i>timestampMillis / 60000</i> for one minute epochs.
+ * The sketch takes <i>(epochs + 1) * size</i> bits of memory, and its size can't change
+ *
+ * @param <K> The type of {@link Divisible} elements this sketch accepts
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class WindowedOddSketch<K extends Divisible> extends OddSketch<K> {
+
+    //region Variables
+
+    private final OddSketch<K>[] epochs;
+
+    private int currentIndex = 0;
+    private long currentEpoch = 0;
+
+    //endregion
+
+
+    //region ctors
+
+    /**
+     * Constructor
+     *
+     * @param bucketing The strategy mapping hashes into buckets of the sketch
+     * @param epochs    The number of epochs in the window, the current one included
+     * @see OddSketch#OddSketch(BucketingStrategy)
+     */
+    @SuppressWarnings("unchecked")
+    public WindowedOddSketch(@Nonnull BucketingStrategy bucketing, int epochs) {
+        super(bucketing);
+
+        Preconditions.checkArgument(epochs > 0, "The number of epochs needs to be positive");
+
+        this.epochs = new OddSketch[epochs];
+
+        for (int i = 0; i < epochs; i++) {
+            this.epochs[i] = new OddSketch<>(bucketing);
+        }
+    }
+
+    //endregion
+
+
+    //region addHashed
+
+    /**
+     * Flips the bin both in the window and in the current epoch
+     *
+     * @param index The posistion in the sketch to be flipped
+     */
+    @Override
+    protected void xorIthBit(int index) {
+        super.xorIthBit(index);
+        epochs[currentIndex].xorIthBit(index);
+    }
+
+    /**
+     * XORs the bins both into the window and into the current epoch, so merged sketches expire along with it
+     */
+    @Override
+    protected void xorFoldedWords(@Nonnull long[] otherWords, int otherSize) {
+        super.xorFoldedWords(otherWords, otherSize);
+        epochs[currentIndex].xorFoldedWords(otherWords, otherSize);
+    }
+
+    //endregion
+
+
+    //region Epochs
+
+    /**
+     * Closes the current epoch and starts a new one, expiring the oldest epoch of the window
+     */
+    public void advanceEpoch() {
+        currentIndex = currentIndex + 1 == epochs.length ? 0 : currentIndex + 1;
+        currentEpoch++;
+
+        expire(epochs[currentIndex]);
+    }
+
+    /**
+     * Moves the window to end in the given epoch, expiring the epochs falling out of it. When the window moves as
+     * many epochs as it has or more, it's cleared
+     *
+     * @param epoch The new current epoch, not before the current one
+     */
+    public void advanceToEpoch(long epoch) {
+        Preconditions.checkArgument(epoch >= currentEpoch, "The window can't move back");
+
+        if (epoch - currentEpoch >= epochs.length) {
+            clear();
+            currentEpoch = epoch;
+
+            return;
+        }
+
+        while (currentEpoch < epoch) {
+            advanceEpoch();
+        }
+    }
+
+    /**
+     * XORs the epoch out of the window, and clears it
+     */
+    private void expire(OddSketch<K> epoch) {
+        long[] epochWords = epoch.getWords();
+
+        super.xorFoldedWords(epochWords, this.getSize());
+        super.incrementElementsAdded(-epoch.getElementsAdded());
+
+        Arrays.fill(epochWords, 0L);
+        epoch.setWords(epochWords);
+        epoch.setElementsAdded(0);
+    }
+
+    private void clear() {
+        for (OddSketch<K> epoch : epochs) {
+            long[] epochWords = epoch.getWords();
+
+            Arrays.fill(epochWords, 0L);
+            epoch.setWords(epochWords);
+            epoch.setElementsAdded(0);
+        }
+
+        long[] words = super.getWords();
+
+        Arrays.fill(words, 0L);
+        super.setWords(words);
+        super.setElementsAdded(0);
+    }
+
+    //endregion
+
+
+    //region Getters and setters
+
+    /**
+     * Gets the number of epochs in the window
+     *
+     * @return The number of epochs
+     */
+    public int getEpochCount() {
+        return epochs.length;
+    }
+
+    /**
+     * Gets the epoch new elements are added to
+     *
+     * @return The current epoch
+     */
+    public long getCurrentEpoch() {
+        return currentEpoch;
+    }
+
+    /**
+     * The size of a windowed sketch can't change
+     *
+     * @param size New size of the sketch
+     * @throws UnsupportedOperationException If the size differs from the current one
+     */
+    @Override
+    protected void setSize(int size) {
+        if (size != this.getSize()) {
+            throw new UnsupportedOperationException("The size of a windowed odd sketch is fixed");
+        }
+    }
+
+    /**
+     * Sets the words of the window, which are all kept in the current epoch, so they expire along with it
+     * <br>
+     * Tipically, you would use this method in case you are building a (de)serialization mechanism for this class
+     *
+     * @param words The words of the sketch
+     */
+    @Override
+    protected void setWords(@Nonnull long[] words) {
+        super.setWords(words);
+
+        for (int i = 0; i < epochs.length; i++) {
+            epochs[i].setWords(i == currentIndex ? words.clone() : new long[words.length]);
+        }
+    }
+
+    /**
+     * Sets the elements added to the window, which are all accounted to the current epoch
+     *
+     * @param elements The elements added to the sketch
+     */
+    @Override
+    protected void setElementsAdded(int elements) {
+        super.setElementsAdded(elements);
+
+        for (int i = 0; i < epochs.length; i++) {
+            epochs[i].setElementsAdded(i == currentIndex ? elements : 0);
+        }
+    }
+
+    @Override
+    protected void incrementElementsAdded(int elements) {
+        super.incrementElementsAdded(elements);
+        epochs[currentIndex].incrementElementsAdded(elements);
+    }
+
+    //endregion
+
+
+    //region toString and Clone
+
+    @Override
+    protected MoreObjects.ToStringHelper toStringHelper() {
+        return super.toStringHelper()
+                .add("epochs", epochs.length)
+                .add("current epoch", currentEpoch);
+    }
+
+    @Nonnull
+    @Override
+    public WindowedOddSketch<K> clone() {
+        WindowedOddSketch<K> sketch = new WindowedOddSketch<>(this.getBucketingStrategy(), epochs.length);
+
+        sketch.currentIndex = currentIndex;
+        sketch.currentEpoch = currentEpoch;
+
+        for (int i = 0; i < epochs.length; i++) {
+            sketch.epochs[i].setWords(epochs[i].getWords().clone());
+            sketch.epochs[i].setElementsAdded(epochs[i].getElementsAdded());
+        }
+
+        sketch.setAggregate(super.getWords().clone(), super.getElementsAdded());
+
+        return sketch;
+    }
+
+    private void setAggregate(long[] words, int elementsAdded) {
+        super.setWords(words);
+        super.setElementsAdded(elementsAdded);
+    }
+
+    //endregion
+}
@@ -0,0 +1,120 @@
+package com.inigoillan.libanalytics.collections;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Bulk operations over arrays of words used as bit sets, where bit <i>i</i> is the bit <i>i % 64</i> of the word
+ * <i>i / 64</i>.
+ * <br>
+ * This is the Java 8 version, which always runs the scalar kernels. The multi-release jar ships a Java 17 version
+ * that runs them with the Vector API when the <i>jdk.incubator.vector</i> module is added to the JVM
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public final class BitUtils {
+
+    private BitUtils() {}
+
+    /**
+     * @return Whether the kernels run with the Vector API
+     */
+    public static boolean isVectorized() {
+        return false;
+    }
+
+    //region Cardinality
+
+    /**
+     * Counts the bits set in the first <i>length</i> words of the array
+     *
+     * @param words  The words
+     * @param length Number of words to count
+     * @return The number of bits set
+     */
+    public static int cardinality(@Nonnull long[] words, @Nonnegative int length) {
+        return ScalarBitUtils.cardinality(words, length);
+    }
+
+    /**
+     * Counts the bits set in the XOR of the first <i>length</i> words of both arrays, without materializing the XOR
+     *
+     * @param words      The first words
+     * @param otherWords The second words
+     * @param length     Number of words to count
+     * @return The number of bits that differ
+     */
+    public static int xorCardinality(@Nonnull long[] words, @Nonnull long[] otherWords, @Nonnegative int length) {
+        return ScalarBitUtils.xorCardinality(words, 0, otherWords, 0, length);
+    }
+
+    /**
+     * Counts the bits set in the XOR of <i>length</i> words of both arrays, starting at the given offsets, without
+     * materializing the XOR
+     *
+     * @param words       The first words
+     * @param offset      Position of the first word in the first array
+     * @param otherWords  The second words
+     * @param otherOffset Position of the first word in the second array
+     * @param length      Number of words to count
+     * @return The number of bits that differ
+     */
+    public static int xorCardinality(@Nonnull long[] words, @Nonnegative int offset, @Nonnull long[] otherWords,
+                                     @Nonnegative int otherOffset, @Nonnegative int length) {
+        return ScalarBitUtils.xorCardinality(words, offset, otherWords, otherOffset, length);
+    }
+
+    //endregion
+
+
+    //region XOR
+
+    /**
+     * XORs the first <i>length</i> words of the other array into the words array
+     *
+     * @param words      The words to update
+     * @param otherWords The words to XOR into the first array
+     * @param length     Number of words to XOR
+     */
+    public static void xor(@Nonnull long[] words, @Nonnull long[] otherWords, @Nonnegative int length) {
+        ScalarBitUtils.xor(words, otherWords, length);
+    }
+
+    /**
+     * XORs <i>bitLength</i> bits of the other array, starting at bit <i>otherBitOffset</i>, into the first
+     * <i>bitLength</i> bits of the words array. The rest of the words array is left untouched
+     *
+     * @param words          The words to update
+     * @param otherWords     The words to read the bits from
+     * @param otherBitOffset Position of the first bit to read from the other array
+     * @param bitLength      Number of bits to XOR
+     */
+    public static void xorBits(@Nonnull long[] words, @Nonnull long[] otherWords, @Nonnegative int otherBitOffset,
+                               @Nonnegative int bitLength) {
+        ScalarBitUtils.xorBits(words, otherWords, otherBitOffset, bitLength);
+    }
+
+    //endregion
+
+
+    //region Packed fields
+
+    /**
+     * Counts how many fields hold the same value in two arrays of packed fields of <i>bitSize</i> bits, where field
+     * <i>i</i> takes bits <i>[i * bitSize, (i + 1) * bitSize)</i> and may span two words. The bits beyond the last
+     * field must be zero in both arrays
+     *
+     * @param words      The first packed fields
+     * @param otherWords The second packed fields
+     * @param bitSize    Number of bits of each field, less than 32
+     * @param fieldCount Number of fields to compare
+     * @return The number of fields holding the same value in both arrays
+     */
+    public static int countEqualFields(@Nonnull long[] words, @Nonnull long[] otherWords, @Nonnegative int bitSize,
+                                       @Nonnegative int fieldCount) {
+        return ScalarBitUtils.countEqualFields(words, otherWords, bitSize, fieldCount);
+    }
+
+    //endregion
+}
@@ -0,0 +1,181 @@
+package com.inigoillan.libanalytics.collections;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnegative;
+
+/**
+ * Set of primitive longs, with open addressing and linear probing, so the elements aren't boxed.
+ * <br>
+ * The table doubles when it's half full, and removals shift back the following elements of the probe sequence
+ * instead of leaving tombstones
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class LongHashSet {
+    private long[] elements;
+    private boolean[] used;
+    private int size = 0;
+
+    //region Ctors
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize The number of elements expected, to size the table
+     */
+    public LongHashSet(@Nonnegative int expectedSize) {
+        Preconditions.checkArgument(expectedSize >= 0, "The expected size can't be negative");
+
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+
+        this.elements = new long[capacity];
+        this.used = new boolean[capacity];
+    }
+
+    //endregion
+
+
+    //region Operations
+
+    /**
+     * @param element The element
+     * @return Whether the element is in the set
+     */
+    public boolean contains(long element) {
+        int mask = elements.length - 1;
+
+        for (int position = slot(element, mask); used[position]; position = (position + 1) & mask) {
+            if (elements[position] == element) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds the element to the set
+     *
+     * @param element The element
+     * @return Whether the element wasn't in the set already
+     */
+    public boolean add(long element) {
+        if (2 * (size + 1) > elements.length) {
+            resize(elements.length * 2);
+        }
+
+        int mask = elements.length - 1;
+        int position = slot(element, mask);
+
+        for (; used[position]; position = (position + 1) & mask) {
+            if (elements[position] == element) {
+                return false;
+            }
+        }
+
+        elements[position] = element;
+        used[position] = true;
+        size++;
+
+        return true;
+    }
+
+    /**
+     * Removes the element from the set
+     *
+     * @param element The element
+     * @return Whether the element was in the set
+     */
+    public boolean remove(long element) {
+        int mask = elements.length - 1;
+
+        for (int position = slot(element, mask); used[position]; position = (position + 1) & mask) {
+            if (elements[position] == element) {
+                shiftBack(position, mask);
+                size--;
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Fills the gap left at the position by moving back the elements of the probe sequence that can't be reached
+     * anymore
+     */
+    private void shiftBack(int gap, int mask) {
+        int position = (gap + 1) & mask;
+
+        while (used[position]) {
+            int home = slot(elements[position], mask);
+
+            // The element can move to the gap if its home isn't in the cyclic range (gap, position]
+            if (((position - home) & mask) >= ((position - gap) & mask)) {
+                elements[gap] = elements[position];
+                gap = position;
+            }
+
+            position = (position + 1) & mask;
+        }
+
+        used[gap] = false;
+    }
+
+    private void resize(int capacity) {
+        long[] oldElements = elements;
+        boolean[] oldUsed = used;
+
+        elements = new long[capacity];
+        used = new boolean[capacity];
+
+        int mask = capacity - 1;
+
+        for (int i = 0; i < oldElements.length; i++) {
+            if (oldUsed[i]) {
+                int position = slot(oldElements[i], mask);
+
+                while (used[position]) {
+                    position = (position + 1) & mask;
+                }
+
+                elements[position] = oldElements[i];
+                used[position] = true;
+            }
+        }
+    }
+
+    private static int slot(long element, int mask) {
+        long hash = element * 0x9E3779B97F4A7C15L;
+
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    //endregion
+
+
+    //region Getters
+
+    public int size() {
+        return size;
+    }
+
+    //endregion
+
+
+    //region toString
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this.getClass())
+                .add("size", size)
+                .add("capacity", elements.length)
+                .toString();
+    }
+
+    //endregion
+}
@@ -0,0 +1,216 @@
+package com.inigoillan.libanalytics.collections;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnegative;
+
+/**
+ * Map from primitive longs to primitive ints, with open addressing and linear probing, so neither the keys nor the
+ * values are boxed.
+ * <br>
+ * The table doubles when it's half full, and removals shift back the following entries of the probe sequence
+ * instead of leaving tombstones
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class LongIntHashMap {
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size = 0;
+
+    private final int missingValue;
+
+    //region Ctors
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize The number of entries expected, to size the table
+     * @param missingValue The value returned when a key isn't in the map
+     */
+    public LongIntHashMap(@Nonnegative int expectedSize, int missingValue) {
+        Preconditions.checkArgument(expectedSize >= 0, "The expected size can't be negative");
+
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.used = new boolean[capacity];
+        this.missingValue = missingValue;
+    }
+
+    //endregion
+
+
+    //region Operations
+
+    /**
+     * @param key The key
+     * @return The value of the key, or the missing value if it isn't in the map
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+
+        for (int position = slot(key, mask); used[position]; position = (position + 1) & mask) {
+            if (keys[position] == key) {
+                return values[position];
+            }
+        }
+
+        return missingValue;
+    }
+
+    /**
+     * @param key The key
+     * @return Whether the key is in the map
+     */
+    public boolean containsKey(long key) {
+        int mask = keys.length - 1;
+
+        for (int position = slot(key, mask); used[position]; position = (position + 1) & mask) {
+            if (keys[position] == key) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Sets the value of the key
+     *
+     * @param key   The key
+     * @param value The value
+     * @return The previous value of the key, or the missing value if it wasn't in the map
+     */
+    public int put(long key, int value) {
+        if (2 * (size + 1) > keys.length) {
+            resize(keys.length * 2);
+        }
+
+        int mask = keys.length - 1;
+        int position = slot(key, mask);
+
+        for (; used[position]; position = (position + 1) & mask) {
+            if (keys[position] == key) {
+                int previous = values[position];
+                values[position] = value;
+
+                return previous;
+            }
+        }
+
+        keys[position] = key;
+        values[position] = value;
+        used[position] = true;
+        size++;
+
+        return missingValue;
+    }
+
+    /**
+     * Removes the key from the map
+     *
+     * @param key The key
+     * @return The value the key had, or the missing value if it wasn't in the map
+     */
+    public int remove(long key) {
+        int mask = keys.length - 1;
+        int position = slot(key, mask);
+
+        for (; used[position]; position = (position + 1) & mask) {
+            if (keys[position] == key) {
+                int previous = values[position];
+
+                shiftBack(position, mask);
+                size--;
+
+                return previous;
+            }
+        }
+
+        return missingValue;
+    }
+
+    /**
+     * Fills the gap left at the position by moving back the entries of the probe sequence that can't be reached
+     * anymore
+     */
+    private void shiftBack(int gap, int mask) {
+        int position = (gap + 1) & mask;
+
+        while (used[position]) {
+            int home = slot(keys[position], mask);
+
+            // The entry can move to the gap if its home isn't in the cyclic range (gap, position]
+            if (((position - home) & mask) >= ((position - gap) & mask)) {
+                keys[gap] = keys[position];
+                values[gap] = values[position];
+                gap = position;
+            }
+
+            position = (position + 1) & mask;
+        }
+
+        used[gap] = false;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+
+        int mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int position = slot(oldKeys[i], mask);
+
+                while (used[position]) {
+                    position = (position + 1) & mask;
+                }
+
+                keys[position] = oldKeys[i];
+                values[position] = oldValues[i];
+                used[position] = true;
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    //endregion
+
+
+    //region Getters
+
+    public int size() {
+        return size;
+    }
+
+    //endregion
+
+
+    //region toString
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this.getClass())
+                .add("size", size)
+                .add("capacity", keys.length)
+                .toString();
+    }
+
+    //endregion
+}
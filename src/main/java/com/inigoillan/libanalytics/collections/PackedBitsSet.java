@@ -4,6 +4,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 
 import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
 
 /**
  * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
@@ -109,6 +110,24 @@ public class PackedBitsSet {
     //endregion
 
 
+    //region Compare
+
+    /**
+     * Counts the positions holding the same value in both sets, comparing the packed words directly
+     *
+     * @param other The set to compare with
+     * @return The number of positions holding the same value
+     */
+    public int countEqualPositions(@Nonnull PackedBitsSet other) {
+        Preconditions.checkArgument(other.getBitSize() == this.getBitSize(), "The bit sizes of the sets differ");
+        Preconditions.checkArgument(other.getSetSize() == this.getSetSize(), "The set sizes of the sets differ");
+
+        return BitUtils.countEqualFields(this.set, other.set, bitSize, setSize);
+    }
+
+    //endregion
+
+
     //region Helper methods
 
     private int getBucket(int position) {
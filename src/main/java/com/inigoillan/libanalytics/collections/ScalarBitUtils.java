@@ -0,0 +1,231 @@
+package com.inigoillan.libanalytics.collections;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Scalar implementation of {@link BitUtils}, used on every Java version and as the fallback when the Vector API
+ * isn't available.
+ * <br>
+ * The loops are unrolled by hand into independent accumulators so the JIT doesn't serialize them on a single
+ * dependency chain
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+final class ScalarBitUtils {
+
+    private ScalarBitUtils() {}
+
+    //region Cardinality
+
+    /**
+     * Counts the bits set in the first <i>length</i> words of the array
+     *
+     * @param words  The words
+     * @param length Number of words to count
+     * @return The number of bits set
+     */
+    static int cardinality(@Nonnull long[] words, @Nonnegative int length) {
+        int count0 = 0;
+        int count1 = 0;
+        int count2 = 0;
+        int count3 = 0;
+
+        int i = 0;
+
+        for (; i + 3 < length; i += 4) {
+            count0 += Long.bitCount(words[i]);
+            count1 += Long.bitCount(words[i + 1]);
+            count2 += Long.bitCount(words[i + 2]);
+            count3 += Long.bitCount(words[i + 3]);
+        }
+
+        for (; i < length; i++) {
+            count0 += Long.bitCount(words[i]);
+        }
+
+        return count0 + count1 + count2 + count3;
+    }
+
+    /**
+     * Counts the bits set in the XOR of <i>length</i> words of both arrays, starting at the given offsets, without
+     * materializing the XOR
+     *
+     * @param words       The first words
+     * @param offset      Position of the first word in the first array
+     * @param otherWords  The second words
+     * @param otherOffset Position of the first word in the second array
+     * @param length      Number of words to count
+     * @return The number of bits that differ
+     */
+    static int xorCardinality(@Nonnull long[] words, @Nonnegative int offset, @Nonnull long[] otherWords,
+                              @Nonnegative int otherOffset, @Nonnegative int length) {
+        int count0 = 0;
+        int count1 = 0;
+        int count2 = 0;
+        int count3 = 0;
+
+        int i = 0;
+
+        for (; i + 3 < length; i += 4) {
+            count0 += Long.bitCount(words[offset + i] ^ otherWords[otherOffset + i]);
+            count1 += Long.bitCount(words[offset + i + 1] ^ otherWords[otherOffset + i + 1]);
+            count2 += Long.bitCount(words[offset + i + 2] ^ otherWords[otherOffset + i + 2]);
+            count3 += Long.bitCount(words[offset + i + 3] ^ otherWords[otherOffset + i + 3]);
+        }
+
+        for (; i < length; i++) {
+            count0 += Long.bitCount(words[offset + i] ^ otherWords[otherOffset + i]);
+        }
+
+        return count0 + count1 + count2 + count3;
+    }
+
+    //endregion
+
+
+    //region XOR
+
+    /**
+     * XORs the first <i>length</i> words of the other array into the words array
+     *
+     * @param words      The words to update
+     * @param otherWords The words to XOR into the first array
+     * @param length     Number of words to XOR
+     */
+    static void xor(@Nonnull long[] words, @Nonnull long[] otherWords, @Nonnegative int length) {
+        for (int i = 0; i < length; i++) {
+            words[i] ^= otherWords[i];
+        }
+    }
+
+    static void xorBits(@Nonnull long[] words, @Nonnull long[] otherWords, @Nonnegative int otherBitOffset,
+                        @Nonnegative int bitLength) {
+        int fullWords = bitLength >>> 6;
+        int remainingBits = bitLength & 63;
+        int wordOffset = otherBitOffset >>> 6;
+        int shift = otherBitOffset & 63;
+
+        if (shift == 0) {
+            for (int i = 0; i < fullWords; i++) {
+                words[i] ^= otherWords[wordOffset + i];
+            }
+        } else {
+            for (int i = 0; i < fullWords; i++) {
+                words[i] ^= readShiftedWord(otherWords, wordOffset + i, shift);
+            }
+        }
+
+        if (remainingBits != 0) {
+            long mask = (1L << remainingBits) - 1;
+
+            words[fullWords] ^= readShiftedWord(otherWords, wordOffset + fullWords, shift) & mask;
+        }
+    }
+
+    /**
+     * Reads the 64 bits starting at bit <i>shift</i> of the given word, taking the high ones from the next word
+     */
+    private static long readShiftedWord(long[] words, int word, int shift) {
+        long value = words[word] >>> shift;
+
+        if (shift != 0 && word + 1 < words.length) {
+            value |= words[word + 1] << (Long.SIZE - shift);
+        }
+
+        return value;
+    }
+
+    //endregion
+
+
+    //region Packed fields
+
+    /**
+     * Counts how many fields hold the same value in two arrays of packed fields of <i>bitSize</i> bits, where field
+     * <i>i</i> takes bits <i>[i * bitSize, (i + 1) * bitSize)</i> and may span two words
+     *
+     * @param words      The first packed fields
+     * @param otherWords The second packed fields
+     * @param bitSize    Number of bits of each field, less than 32
+     * @param fieldCount Number of fields to compare
+     * @return The number of fields holding the same value in both arrays
+     */
+    static int countEqualFields(@Nonnull long[] words, @Nonnull long[] otherWords, @Nonnegative int bitSize,
+                                @Nonnegative int fieldCount) {
+        if (Long.SIZE % bitSize == 0) {
+            int length = (int) (((long) bitSize * fieldCount + Long.SIZE - 1) / Long.SIZE);
+
+            // The padding beyond the last field is zero in both arrays, so it never counts as a different field
+            return fieldCount - countNonZeroAlignedFields(words, otherWords, bitSize, length);
+        }
+
+        long mask = (1L << bitSize) - 1;
+        int equal = 0;
+
+        for (int i = 0; i < fieldCount; i++) {
+            long bit = (long) i * bitSize;
+            int word = (int) (bit >>> 6);
+            int offset = (int) (bit & 63);
+
+            long diff = (words[word] ^ otherWords[word]) >>> offset;
+
+            if (offset + bitSize > Long.SIZE) {
+                diff |= (words[word + 1] ^ otherWords[word + 1]) << (Long.SIZE - offset);
+            }
+
+            if ((diff & mask) == 0) {
+                equal++;
+            }
+        }
+
+        return equal;
+    }
+
+    /**
+     * Counts the fields that differ when <i>bitSize</i> divides 64, so no field spans two words. Each field of the
+     * XOR is OR-reduced into its lowest bit, and those bits are counted
+     */
+    private static int countNonZeroAlignedFields(long[] words, long[] otherWords, int bitSize, int length) {
+        long lowBits = lowBitOfFields(bitSize);
+        int count = 0;
+
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(reduceFields(words[i] ^ otherWords[i], bitSize) & lowBits);
+        }
+
+        return count;
+    }
+
+    /**
+     * ORs every bit of each field of <i>bitSize</i> bits into the lowest bit of the field
+     *
+     * @param diff    The word to reduce
+     * @param bitSize Number of bits of each field, dividing 64
+     * @return The reduced word. Only the lowest bit of each field is meaningful
+     */
+    static long reduceFields(long diff, int bitSize) {
+        for (int shift = 1; shift < bitSize; shift <<= 1) {
+            diff |= diff >>> shift;
+        }
+
+        return diff;
+    }
+
+    /**
+     * @param bitSize Number of bits of each field, dividing 64
+     * @return A word with the lowest bit of each field of <i>bitSize</i> bits set
+     */
+    static long lowBitOfFields(int bitSize) {
+        long lowBits = 0;
+
+        for (int i = 0; i < Long.SIZE; i += bitSize) {
+            lowBits |= 1L << i;
+        }
+
+        return lowBits;
+    }
+
+    //endregion
+}
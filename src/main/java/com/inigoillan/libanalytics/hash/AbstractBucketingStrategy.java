@@ -0,0 +1,45 @@
+package com.inigoillan.libanalytics.hash;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Common code for the {@link BucketingStrategy} implementations
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+abstract class AbstractBucketingStrategy implements BucketingStrategy {
+    protected final int width;
+
+    AbstractBucketingStrategy(int width) {
+        Preconditions.checkArgument(width >= 0, "The width can't be negative");
+
+        this.width = width;
+    }
+
+    @Override
+    public final int getWidth() {
+        return width;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || o.getClass() != this.getClass())
+            return false;
+
+        return ((AbstractBucketingStrategy) o).width == this.width;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * getClass().hashCode() + width;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this.getClass())
+                .add("width", width)
+                .toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.inigoillan.libanalytics.hash;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Maps hashes into buckets in the range <i>[0, width)</i>. Hash objects backed by primitive bits are mapped through
+ * {@link Divisible#bucket(BucketingStrategy)}, landing in the same bucket than their primitive hash.
+ * <br>
+ * The strategy is chosen once, when a sketch is built, so the hot loops selecting buckets don't need to branch on it:
+ * <ul>
+ *     <li>{@link #modulo(int)} uses the unsigned remainder of the hash. It works for any width, but costs an integer
+ *     division per bucket</li>
+ *     <li>{@link #mask(int)} keeps the least significant bits of the hash. It only works for power of two widths</li>
+ *     <li>{@link #multiplyShift(int)} uses Lemire's
+ *     <a href="https://lemire.me/blog/2016/06/27/a-fast-alternative-to-the-modulo-reduction/">fast range reduction</a>,
+ *     a multiplication and a shift, for any width</li>
+ * </ul>
+ * Modulo and mask strategies select the same buckets for power of two widths, and both can be folded into smaller
+ * sketches whose width divides the original one.
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public interface BucketingStrategy {
+
+    /**
+     * Gets the bucket for a 64 bits hash
+     *
+     * @param hash The hash
+     * @return The bucket, in the range <i>[0, width)</i>
+     */
+    int bucket(long hash);
+
+    /**
+     * Gets the bucket for a 32 bits hash
+     *
+     * @param hash The hash
+     * @return The bucket, in the range <i>[0, width)</i>
+     */
+    int bucket(int hash);
+
+    /**
+     * @return The number of buckets
+     */
+    int getWidth();
+
+    /**
+     * Whether folding a sketch using this strategy into a smaller one, by XOR-ing or adding bucket <i>i</i> into
+     * bucket <i>i mod newWidth</i>, produces the same buckets than adding the hashes to the smaller sketch directly
+     *
+     * @return True if the buckets can be folded
+     */
+    boolean isFoldable();
+
+    /**
+     * Builds the same kind of strategy for a different width
+     *
+     * @param width The new number of buckets
+     * @return The new strategy
+     */
+    @Nonnull BucketingStrategy withWidth(@Nonnegative int width);
+
+
+    //region Factories
+
+    /**
+     * Picks the fastest strategy for the width: {@link #mask(int)} for power of two widths and
+     * {@link #multiplyShift(int)} otherwise
+     *
+     * @param width The number of buckets
+     * @return The strategy
+     */
+    @Nonnull
+    static BucketingStrategy forWidth(@Nonnegative int width) {
+        return isPowerOfTwo(width) ? mask(width) : multiplyShift(width);
+    }
+
+    @Nonnull
+    static BucketingStrategy modulo(@Nonnegative int width) {
+        return new ModuloBucketingStrategy(width);
+    }
+
+    @Nonnull
+    static BucketingStrategy mask(@Nonnegative int width) {
+        Preconditions.checkArgument(isPowerOfTwo(width), "The width has to be a power of two to use bit masking");
+
+        return new MaskBucketingStrategy(width);
+    }
+
+    @Nonnull
+    static BucketingStrategy multiplyShift(@Nonnegative int width) {
+        return new MultiplyShiftBucketingStrategy(width);
+    }
+
+    static boolean isPowerOfTwo(int width) {
+        return width > 0 && (width & (width - 1)) == 0;
+    }
+
+    //endregion
+}
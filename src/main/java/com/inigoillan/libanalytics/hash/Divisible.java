@@ -1,5 +1,9 @@
 package com.inigoillan.libanalytics.hash;
 
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnull;
+
 /**
  * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
  * @since 1.0
@@ -20,4 +24,20 @@ public interface Divisible {
      * @return
      */
     int mod(int divisor);
+
+    /**
+     * Gets the bucket of the hash with the strategy of a sketch. Hashes backed by primitive bits hand them to the
+     * strategy, so they land in the same bucket than the primitive hash. By default the bucket is the modulo of the
+     * hash by the width, so it only works with {@link BucketingStrategy#modulo(int)} strategies
+     *
+     * @param bucketing The strategy mapping hashes into buckets
+     * @return The bucket, in the range <i>[0, width)</i>
+     * @throws IllegalArgumentException If the hash can't be mapped with the strategy
+     */
+    default int bucket(@Nonnull BucketingStrategy bucketing) {
+        Preconditions.checkArgument(bucketing instanceof ModuloBucketingStrategy,
+                "This hash can only be mapped into buckets with the modulo strategy");
+
+        return mod(bucketing.getWidth());
+    }
 }
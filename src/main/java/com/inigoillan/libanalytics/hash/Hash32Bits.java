@@ -4,6 +4,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 
 import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
 import java.util.Objects;
 
 /**
@@ -29,6 +30,14 @@ public class Hash32Bits implements Hash, Comparable<Hash32Bits> {
         return hash % divisor;
     }
 
+    /**
+     * Hands the 32 bits of the hash to the strategy, so it lands in the same bucket than the primitive hash
+     */
+    @Override
+    public int bucket(@Nonnull BucketingStrategy bucketing) {
+        return bucketing.bucket(hash);
+    }
+
     @Override
     public Integer getLeastSignificantBits(@Nonnegative int bits) {
         Preconditions.checkArgument(bits < 32);
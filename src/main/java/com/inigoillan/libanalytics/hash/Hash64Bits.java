@@ -3,6 +3,7 @@ package com.inigoillan.libanalytics.hash;
 import com.google.common.base.Preconditions;
 
 import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
 import java.util.Objects;
 
 /**
@@ -28,6 +29,14 @@ public class Hash64Bits implements Hash, Comparable<Hash64Bits> {
         return (int) hash % divisor;
     }
 
+    /**
+     * Hands the 64 bits of the hash to the strategy, so it lands in the same bucket than the primitive hash
+     */
+    @Override
+    public int bucket(@Nonnull BucketingStrategy bucketing) {
+        return bucketing.bucket(hash);
+    }
+
     @Override
     public Long getLeastSignificantBits(@Nonnegative int bits) {
         Preconditions.checkArgument(bits < 64);
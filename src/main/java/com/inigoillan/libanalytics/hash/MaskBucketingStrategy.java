@@ -0,0 +1,42 @@
+package com.inigoillan.libanalytics.hash;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Selects buckets keeping the least significant bits of the hash. Only valid for power of two widths
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ *
+ * @see BucketingStrategy#mask(int)
+ */
+final class MaskBucketingStrategy extends AbstractBucketingStrategy {
+    private final int mask;
+
+    MaskBucketingStrategy(int width) {
+        super(width);
+
+        this.mask = width - 1;
+    }
+
+    @Override
+    public int bucket(long hash) {
+        return (int) hash & mask;
+    }
+
+    @Override
+    public int bucket(int hash) {
+        return hash & mask;
+    }
+
+    @Override
+    public boolean isFoldable() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public BucketingStrategy withWidth(int width) {
+        return BucketingStrategy.mask(width);
+    }
+}
@@ -0,0 +1,39 @@
+package com.inigoillan.libanalytics.hash;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Selects buckets with the unsigned remainder of the hash
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ *
+ * @see BucketingStrategy#modulo(int)
+ */
+final class ModuloBucketingStrategy extends AbstractBucketingStrategy {
+
+    ModuloBucketingStrategy(int width) {
+        super(width);
+    }
+
+    @Override
+    public int bucket(long hash) {
+        return (int) Long.remainderUnsigned(hash, width);
+    }
+
+    @Override
+    public int bucket(int hash) {
+        return Integer.remainderUnsigned(hash, width);
+    }
+
+    @Override
+    public boolean isFoldable() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public BucketingStrategy withWidth(int width) {
+        return new ModuloBucketingStrategy(width);
+    }
+}
@@ -0,0 +1,40 @@
+package com.inigoillan.libanalytics.hash;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Selects buckets with Lemire's multiply-shift range reduction: the bucket is the 32 most significant bits of the
+ * product of a 32 bits hash and the width. 64 bits hashes contribute their 32 most significant bits
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ *
+ * @see BucketingStrategy#multiplyShift(int)
+ */
+final class MultiplyShiftBucketingStrategy extends AbstractBucketingStrategy {
+
+    MultiplyShiftBucketingStrategy(int width) {
+        super(width);
+    }
+
+    @Override
+    public int bucket(long hash) {
+        return (int) (((hash >>> 32) * width) >>> 32);
+    }
+
+    @Override
+    public int bucket(int hash) {
+        return (int) (((hash & 0xFFFFFFFFL) * width) >>> 32);
+    }
+
+    @Override
+    public boolean isFoldable() {
+        return false;
+    }
+
+    @Nonnull
+    @Override
+    public BucketingStrategy withWidth(int width) {
+        return new MultiplyShiftBucketingStrategy(width);
+    }
+}
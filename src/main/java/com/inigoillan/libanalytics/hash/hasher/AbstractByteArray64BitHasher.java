@@ -0,0 +1,60 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import com.inigoillan.libanalytics.hash.Hash64Bits;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Base class for the 64 bits hash functions implemented natively in this library, operating directly on byte arrays
+ * and on primitive longs
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public abstract class AbstractByteArray64BitHasher implements Hasher<byte[], Hash64Bits>, ByteArrayLongHasher {
+    private final long seed;
+
+    protected AbstractByteArray64BitHasher(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public Hash64Bits hash(@Nonnull byte[] element) {
+        return new Hash64Bits(hashToLong(element, 0, element.length));
+    }
+
+    @Override
+    public long hashToLong(@Nonnull byte[] element) {
+        return hashToLong(element, 0, element.length);
+    }
+
+    /**
+     * Hashes a long value. The result is the same as hashing its 8 bytes in little endian order
+     *
+     * @param value The value to hash
+     * @return The hash of the value
+     */
+    public abstract long hashToLong(long value);
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || o.getClass() != this.getClass())
+            return false;
+
+        return ((AbstractByteArray64BitHasher) o).seed == this.seed;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * getClass().hashCode() + Long.hashCode(seed);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{seed=" + seed + "}";
+    }
+}
@@ -0,0 +1,47 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link LongHasher} for byte arrays that is able to hash a slice of an array, so many elements packed in one
+ * contiguous buffer can be hashed without copying them into arrays of their own
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public interface ByteArrayLongHasher extends LongHasher<byte[]> {
+    /**
+     * Hashes the <i>length</i> bytes starting at <i>offset</i> into a 64 bits value
+     *
+     * @param bytes  The buffer containing the element
+     * @param offset Position of the first byte of the element
+     * @param length Number of bytes of the element
+     * @return The hash of the element
+     */
+    long hashToLong(@Nonnull byte[] bytes, @Nonnegative int offset, @Nonnegative int length);
+
+    @Override
+    default long hashToLong(@Nonnull byte[] element) {
+        return hashToLong(element, 0, element.length);
+    }
+
+    /**
+     * Hashes <i>count</i> elements packed in one contiguous buffer. Element <i>i</i> spans the bytes from
+     * <i>offsets[i]</i> (inclusive) to <i>offsets[i + 1]</i> (exclusive), so <i>offsets</i> needs
+     * <i>count + 1</i> entries
+     *
+     * @param buffer  The buffer containing all the elements
+     * @param offsets The boundaries of the elements in the buffer
+     * @param count   Number of elements to hash
+     * @param hashes  Destination array. The hash of element <i>i</i> is written into <i>hashes[i]</i>
+     */
+    default void hashToLongBatch(@Nonnull byte[] buffer, @Nonnull int[] offsets, @Nonnegative int count,
+                                 @Nonnull long[] hashes) {
+        for (int i = 0; i < count; i++) {
+            int start = offsets[i];
+
+            hashes[i] = hashToLong(buffer, start, offsets[i + 1] - start);
+        }
+    }
+}
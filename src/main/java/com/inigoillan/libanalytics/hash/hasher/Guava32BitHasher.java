@@ -10,7 +10,7 @@ import javax.annotation.Nonnull;
  * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
  * @since 1.0
  */
-public class Guava32BitHasher implements Hasher<byte[], Hash32Bits> {
+public class Guava32BitHasher implements Hasher<byte[], Hash32Bits>, IntHasher<byte[]> {
 
     private final HashFunction hashFunction;
 
@@ -24,4 +24,9 @@ public class Guava32BitHasher implements Hasher<byte[], Hash32Bits> {
 
         return new Hash32Bits(hash.asInt());
     }
+
+    @Override
+    public int hashToInt(@Nonnull byte[] element) {
+        return hashFunction.hashBytes(element).asInt();
+    }
 }
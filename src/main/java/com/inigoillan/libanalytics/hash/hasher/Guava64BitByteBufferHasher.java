@@ -0,0 +1,68 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import com.google.common.hash.HashFunction;
+import com.inigoillan.libanalytics.hash.Hash64Bits;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * {@link Hasher} adapter for Guava {@link HashFunction} hashing the remaining bytes of a {@link ByteBuffer}, that is,
+ * the bytes between its position and its limit.
+ * <br>
+ * The bytes are read in place for both heap and direct buffers, so no copy into an intermediate array is needed.
+ * Neither the position nor the limit of the buffer are modified. The hash is the same
+ * {@link Guava64BitHasher} would compute for an array holding those bytes
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ *
+ * @see HashFunction
+ */
+public class Guava64BitByteBufferHasher implements Hasher<ByteBuffer, Hash64Bits>, LongHasher<ByteBuffer> {
+    private final HashFunction hashFunction;
+
+    public Guava64BitByteBufferHasher(@Nonnull HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+    }
+
+
+    @Override
+    public Hash64Bits hash(@Nonnull ByteBuffer element) {
+        return new Hash64Bits(hashToLong(element));
+    }
+
+    @Override
+    public long hashToLong(@Nonnull ByteBuffer element) {
+        int position = element.position();
+        int length = element.remaining();
+
+        if (element.hasArray()) {
+            return hashFunction.hashBytes(element.array(), element.arrayOffset() + position, length).asLong();
+        }
+
+        return hashDirect(element, position, length);
+    }
+
+    private long hashDirect(ByteBuffer element, int position, int length) {
+        com.google.common.hash.Hasher hasher = hashFunction.newHasher(length);
+        boolean bigEndian = element.order() == ByteOrder.BIG_ENDIAN;
+
+        int i = position;
+        int limit = position + length;
+
+        // Guava hashers consume longs in little endian order, so the stream of bytes is the same as in the buffer
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long value = element.getLong(i);
+
+            hasher.putLong(bigEndian ? Long.reverseBytes(value) : value);
+        }
+
+        for (; i < limit; i++) {
+            hasher.putByte(element.get(i));
+        }
+
+        return hasher.hash().asLong();
+    }
+}
@@ -0,0 +1,34 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import com.google.common.hash.HashFunction;
+import com.inigoillan.libanalytics.hash.Hash64Bits;
+
+import javax.annotation.Nonnull;
+
+/**
+ * {@link Hasher} adapter for Guava {@link HashFunction} hashing the characters of a {@link CharSequence} directly,
+ * without encoding them into an intermediate byte array first
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ *
+ * @see HashFunction#hashUnencodedChars(CharSequence)
+ */
+public class Guava64BitCharSequenceHasher implements Hasher<CharSequence, Hash64Bits>, LongHasher<CharSequence> {
+    private final HashFunction hashFunction;
+
+    public Guava64BitCharSequenceHasher(@Nonnull HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+    }
+
+
+    @Override
+    public Hash64Bits hash(@Nonnull CharSequence element) {
+        return new Hash64Bits(hashToLong(element));
+    }
+
+    @Override
+    public long hashToLong(@Nonnull CharSequence element) {
+        return hashFunction.hashUnencodedChars(element).asLong();
+    }
+}
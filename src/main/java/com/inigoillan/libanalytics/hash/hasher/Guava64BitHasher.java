@@ -14,7 +14,7 @@ import javax.annotation.Nonnull;
  *
  * @see HashFunction
  */
-public class Guava64BitHasher implements Hasher<byte[], Hash64Bits>{
+public class Guava64BitHasher implements Hasher<byte[], Hash64Bits>, ByteArrayLongHasher {
     private final HashFunction hashFunction;
 
     public Guava64BitHasher(@Nonnull HashFunction hashFunction) {
@@ -28,4 +28,34 @@ public class Guava64BitHasher implements Hasher<byte[], Hash64Bits>{
 
         return new Hash64Bits(hash.asLong());
     }
+
+    @Override
+    public long hashToLong(@Nonnull byte[] element) {
+        return hashFunction.hashBytes(element).asLong();
+    }
+
+    @Override
+    public long hashToLong(@Nonnull byte[] bytes, int offset, int length) {
+        return hashFunction.hashBytes(bytes, offset, length).asLong();
+    }
+
+    @Override
+    public void hashToLongBatch(@Nonnull byte[][] elements, int offset, int length, @Nonnull long[] hashes) {
+        HashFunction function = this.hashFunction;
+
+        for (int i = 0; i < length; i++) {
+            hashes[i] = function.hashBytes(elements[offset + i]).asLong();
+        }
+    }
+
+    @Override
+    public void hashToLongBatch(@Nonnull byte[] buffer, @Nonnull int[] offsets, int count, @Nonnull long[] hashes) {
+        HashFunction function = this.hashFunction;
+
+        for (int i = 0; i < count; i++) {
+            int start = offsets[i];
+
+            hashes[i] = function.hashBytes(buffer, start, offsets[i + 1] - start).asLong();
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents a hashing algorithm producing 128 bits hashes, written as two primitive longs into a caller provided
+ * array, so no object needs to be allocated per hashed element
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public interface Hasher128<E> {
+    /**
+     * Hashes the element into a 128 bits value
+     *
+     * @param element     The element to hash
+     * @param destination Array of at least two positions where the two 64 bits halves of the hash are written
+     */
+    void hashTo128(@Nonnull E element, @Nonnull long[] destination);
+}
@@ -0,0 +1,22 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents a hashing algorithm producing 32 bits hashes as primitive values, so no {@link com.inigoillan.libanalytics.hash.Hash}
+ * object needs to be allocated per hashed element
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ *
+ * @see Hasher
+ */
+public interface IntHasher<E> {
+    /**
+     * Hashes the element into a 32 bits value
+     *
+     * @param element The element to hash
+     * @return The hash of the element
+     */
+    int hashToInt(@Nonnull E element);
+}
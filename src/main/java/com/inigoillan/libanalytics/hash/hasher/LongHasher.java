@@ -0,0 +1,37 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents a hashing algorithm producing 64 bits hashes as primitive values, so no {@link com.inigoillan.libanalytics.hash.Hash}
+ * object needs to be allocated per hashed element
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ *
+ * @see Hasher
+ */
+public interface LongHasher<E> {
+    /**
+     * Hashes the element into a 64 bits value
+     *
+     * @param element The element to hash
+     * @return The hash of the element
+     */
+    long hashToLong(@Nonnull E element);
+
+    /**
+     * Hashes <i>length</i> elements starting at <i>offset</i> into the given array, in a single call, so the
+     * per call overhead is paid once per batch instead of once per element
+     *
+     * @param elements The elements to hash
+     * @param offset   Position of the first element to hash
+     * @param length   Number of elements to hash
+     * @param hashes   Destination array. The hash of <i>elements[offset + i]</i> is written into <i>hashes[i]</i>
+     */
+    default void hashToLongBatch(@Nonnull E[] elements, int offset, int length, @Nonnull long[] hashes) {
+        for (int i = 0; i < length; i++) {
+            hashes[i] = hashToLong(elements[offset + i]);
+        }
+    }
+}
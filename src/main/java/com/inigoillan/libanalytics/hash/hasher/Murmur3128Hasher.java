@@ -0,0 +1,152 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Pure Java implementation of the x64 128 bits variant of
+ * <a href="https://github.com/aappleby/smhasher/wiki/MurmurHash3">MurmurHash3</a>.
+ * <br>
+ * The 64 bits hash is the first half of the 128 bits one, so for seeds fitting in an int the results are the same as
+ * the ones produced by Guava's <i>Hashing.murmur3_128(seed)</i> adapted through {@link Guava64BitHasher}
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class Murmur3128Hasher extends AbstractByteArray64BitHasher implements Hasher128<byte[]> {
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    public Murmur3128Hasher() {
+        this(0);
+    }
+
+    public Murmur3128Hasher(long seed) {
+        super(seed);
+    }
+
+
+    @Override
+    public long hashToLong(@Nonnull byte[] bytes, int offset, int length) {
+        return hash(bytes, offset, length, null);
+    }
+
+    @Override
+    public long hashToLong(long value) {
+        long h1 = getSeed();
+        long h2 = getSeed();
+
+        h1 ^= mixK1(value);
+
+        return finalizeFirstHalf(h1, h2, 8);
+    }
+
+    @Override
+    public void hashTo128(@Nonnull byte[] element, @Nonnull long[] destination) {
+        hash(element, 0, element.length, destination);
+    }
+
+    /**
+     * Computes the full 128 bits hash of the <i>length</i> bytes starting at <i>offset</i>
+     *
+     * @param bytes       The buffer containing the element
+     * @param offset      Position of the first byte of the element
+     * @param length      Number of bytes of the element
+     * @param destination Array of at least two positions where the two halves of the hash are written
+     */
+    public void hashTo128(@Nonnull byte[] bytes, int offset, int length, @Nonnull long[] destination) {
+        hash(bytes, offset, length, destination);
+    }
+
+    /**
+     * Computes the 128 bits hash, writing it into <i>destination</i> unless it is null
+     *
+     * @return The first half of the hash
+     */
+    private long hash(byte[] bytes, int offset, int length, long[] destination) {
+        long h1 = getSeed();
+        long h2 = getSeed();
+
+        int end = offset + length;
+        int i = offset;
+
+        for (int limit = end - 16; i <= limit; i += 16) {
+            h1 ^= mixK1(LittleEndian.getLong(bytes, i));
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52DCE729;
+
+            h2 ^= mixK2(LittleEndian.getLong(bytes, i + 8));
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495AB5;
+        }
+
+        int remaining = end - i;
+
+        if (remaining > 0) {
+            long k1 = 0;
+            long k2 = 0;
+
+            for (int j = remaining - 1; j >= 8; j--) {
+                k2 = (k2 << 8) | (bytes[i + j] & 0xFFL);
+            }
+
+            for (int j = Math.min(remaining, 8) - 1; j >= 0; j--) {
+                k1 = (k1 << 8) | (bytes[i + j] & 0xFFL);
+            }
+
+            h1 ^= mixK1(k1);
+            h2 ^= mixK2(k2);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+
+        h1 += h2;
+        h2 += h1;
+
+        if (destination != null) {
+            destination[0] = h1;
+            destination[1] = h2;
+        }
+
+        return h1;
+    }
+
+    private static long finalizeFirstHalf(long h1, long h2, int length) {
+        h1 ^= length;
+        h2 ^= length;
+
+        h1 += h2;
+        h2 += h1;
+
+        return fmix(h1) + fmix(h2);
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,132 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Pure Java implementation of the <a href="https://github.com/wangyi-fudan/wyhash">wyhash</a> hash function
+ * (final version 4.2, with the default secret)
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class WyHash64Hasher extends AbstractByteArray64BitHasher {
+    private static final long SECRET0 = 0x2D358DCCAA6C78A5L;
+    private static final long SECRET1 = 0x8BB84B93962EACC9L;
+    private static final long SECRET2 = 0x4B33A62ED433D4A3L;
+    private static final long SECRET3 = 0x4D5A2DA51DE1AA47L;
+
+    private static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+
+    public WyHash64Hasher() {
+        this(0);
+    }
+
+    public WyHash64Hasher(long seed) {
+        super(seed);
+    }
+
+
+    @Override
+    public long hashToLong(@Nonnull byte[] bytes, int offset, int length) {
+        long seed = getSeed();
+        seed ^= mix(seed ^ SECRET0, SECRET1);
+
+        long a;
+        long b;
+
+        if (length <= 16) {
+            if (length >= 4) {
+                int shift = (length >>> 3) << 2;
+                int last = offset + length - 4;
+
+                a = (LittleEndian.getUnsignedInt(bytes, offset) << 32) | LittleEndian.getUnsignedInt(bytes, offset + shift);
+                b = (LittleEndian.getUnsignedInt(bytes, last) << 32) | LittleEndian.getUnsignedInt(bytes, last - shift);
+            } else if (length > 0) {
+                a = ((bytes[offset] & 0xFFL) << 16)
+                        | ((bytes[offset + (length >>> 1)] & 0xFFL) << 8)
+                        | (bytes[offset + length - 1] & 0xFFL);
+                b = 0;
+            } else {
+                a = 0;
+                b = 0;
+            }
+        } else {
+            int i = offset;
+            int remaining = length;
+
+            if (remaining >= 48) {
+                long see1 = seed;
+                long see2 = seed;
+
+                do {
+                    seed = mix(LittleEndian.getLong(bytes, i) ^ SECRET1, LittleEndian.getLong(bytes, i + 8) ^ seed);
+                    see1 = mix(LittleEndian.getLong(bytes, i + 16) ^ SECRET2, LittleEndian.getLong(bytes, i + 24) ^ see1);
+                    see2 = mix(LittleEndian.getLong(bytes, i + 32) ^ SECRET3, LittleEndian.getLong(bytes, i + 40) ^ see2);
+                    i += 48;
+                    remaining -= 48;
+                } while (remaining >= 48);
+
+                seed ^= see1 ^ see2;
+            }
+
+            while (remaining > 16) {
+                seed = mix(LittleEndian.getLong(bytes, i) ^ SECRET1, LittleEndian.getLong(bytes, i + 8) ^ seed);
+                i += 16;
+                remaining -= 16;
+            }
+
+            a = LittleEndian.getLong(bytes, i + remaining - 16);
+            b = LittleEndian.getLong(bytes, i + remaining - 8);
+        }
+
+        return finish(a, b, seed, length);
+    }
+
+    @Override
+    public long hashToLong(long value) {
+        long seed = getSeed();
+        seed ^= mix(seed ^ SECRET0, SECRET1);
+
+        long low = value & UNSIGNED_INT_MASK;
+        long high = value >>> 32;
+
+        // 8 bytes input: the first and last 4 bytes are read twice
+        long a = (low << 32) | high;
+        long b = (high << 32) | low;
+
+        return finish(a, b, seed, 8);
+    }
+
+    private static long finish(long a, long b, long seed, int length) {
+        a ^= SECRET1;
+        b ^= seed;
+
+        long low = a * b;
+        long high = unsignedMultiplyHigh(a, b);
+
+        return mix(low ^ SECRET0 ^ length, high ^ SECRET1);
+    }
+
+    private static long mix(long a, long b) {
+        return (a * b) ^ unsignedMultiplyHigh(a, b);
+    }
+
+    /**
+     * Computes the 64 most significant bits of the unsigned 128 bits product of the parameters
+     */
+    private static long unsignedMultiplyHigh(long a, long b) {
+        long aLow = a & UNSIGNED_INT_MASK;
+        long aHigh = a >>> 32;
+        long bLow = b & UNSIGNED_INT_MASK;
+        long bHigh = b >>> 32;
+
+        long lowLow = aLow * bLow;
+        long highLow = aHigh * bLow;
+        long lowHigh = aLow * bHigh;
+        long highHigh = aHigh * bHigh;
+
+        long cross = (lowLow >>> 32) + (highLow & UNSIGNED_INT_MASK) + lowHigh;
+
+        return (highLow >>> 32) + (cross >>> 32) + highHigh;
+    }
+}
@@ -0,0 +1,106 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Pure Java implementation of the <a href="https://github.com/Cyan4973/xxHash">xxHash64</a> hash function
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class XxHash64Hasher extends AbstractByteArray64BitHasher {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    public XxHash64Hasher() {
+        this(0);
+    }
+
+    public XxHash64Hasher(long seed) {
+        super(seed);
+    }
+
+
+    @Override
+    public long hashToLong(@Nonnull byte[] bytes, int offset, int length) {
+        long seed = getSeed();
+        int end = offset + length;
+        int i = offset;
+        long hash;
+
+        if (length >= 32) {
+            long v1 = seed + PRIME1 + PRIME2;
+            long v2 = seed + PRIME2;
+            long v3 = seed;
+            long v4 = seed - PRIME1;
+
+            for (int limit = end - 32; i <= limit; i += 32) {
+                v1 = round(v1, LittleEndian.getLong(bytes, i));
+                v2 = round(v2, LittleEndian.getLong(bytes, i + 8));
+                v3 = round(v3, LittleEndian.getLong(bytes, i + 16));
+                v4 = round(v4, LittleEndian.getLong(bytes, i + 24));
+            }
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME5;
+        }
+
+        hash += length;
+
+        for (; i + 8 <= end; i += 8) {
+            hash ^= round(0, LittleEndian.getLong(bytes, i));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+
+        if (i + 4 <= end) {
+            hash ^= LittleEndian.getUnsignedInt(bytes, i) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            i += 4;
+        }
+
+        for (; i < end; i++) {
+            hash ^= (bytes[i] & 0xFFL) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+
+        return avalanche(hash);
+    }
+
+    @Override
+    public long hashToLong(long value) {
+        long hash = getSeed() + PRIME5 + 8;
+
+        hash ^= round(0, value);
+        hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+
+        return avalanche(hash);
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME1 + PRIME4;
+    }
+
+    private static long avalanche(long hash) {
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+}
@@ -0,0 +1,14 @@
+package com.inigoillan.libanalytics.metrics;
+
+/**
+ * The kinds of sketches reporting to the {@link SketchMetricsListener}
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public enum SketchKind {
+    ODD_SKETCH,
+    MIN_HASH,
+    B_BIT_MIN_HASH,
+    COUNT_MIN_SKETCH
+}
@@ -0,0 +1,58 @@
+package com.inigoillan.libanalytics.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Holds the {@link SketchMetricsListener} the sketches report to.
+ * <br>
+ * The listener is the first implementation found by the {@link ServiceLoader} when this class is initialized, or
+ * a listener doing nothing if there is none. As it's kept in a static final field, the JIT compiler inlines its
+ * calls, and the calls to the default listener are removed altogether
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public final class SketchMetrics {
+    private static final SketchMetricsListener LISTENER = loadListener();
+    private static final boolean TIMING_ENABLED = LISTENER.isTimingEnabled();
+
+    private SketchMetrics() {
+    }
+
+    private static SketchMetricsListener loadListener() {
+        Iterator<SketchMetricsListener> listeners = ServiceLoader.load(SketchMetricsListener.class).iterator();
+
+        return listeners.hasNext() ? listeners.next() : new SketchMetricsListener() { };
+    }
+
+    /**
+     * Gets the listener the sketches report to
+     *
+     * @return The listener
+     */
+    @Nonnull
+    public static SketchMetricsListener getListener() {
+        return LISTENER;
+    }
+
+    /**
+     * Starts timing an estimate
+     *
+     * @return The start time to pass to {@link #onEstimate(SketchKind, long)}, 0 if timing isn't enabled
+     */
+    public static long startEstimate() {
+        return TIMING_ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Reports an estimate to the listener
+     *
+     * @param kind  The kind of sketch
+     * @param start The time returned by {@link #startEstimate()}
+     */
+    public static void onEstimate(@Nonnull SketchKind kind, long start) {
+        LISTENER.onEstimate(kind, TIMING_ENABLED ? System.nanoTime() - start : 0L);
+    }
+}
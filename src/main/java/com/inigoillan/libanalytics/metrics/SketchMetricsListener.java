@@ -0,0 +1,75 @@
+package com.inigoillan.libanalytics.metrics;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Listener for the runtime behaviour of the sketches, to bridge them to a metrics system.
+ * <br>
+ * The sketches call the listener on their hot paths, so implementations need to be cheap and thread safe, e.g.
+ * incrementing {@link java.util.concurrent.atomic.LongAdder}s. Every method does nothing by default.
+ * <br>
+ * The listener is looked up once with the {@link java.util.ServiceLoader} mechanism, so an implementation is plugged
+ * by listing its class name in a <i>META-INF/services/com.inigoillan.libanalytics.metrics.SketchMetricsListener</i>
+ * resource. See {@link SketchMetrics}
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public interface SketchMetricsListener {
+
+    /**
+     * Whether the estimates have to be timed. Timing an estimate costs two calls to {@link System#nanoTime()}, so
+     * it's disabled unless the listener asks for it
+     *
+     * @return True to get the latency of the estimates
+     */
+    default boolean isTimingEnabled() {
+        return false;
+    }
+
+    /**
+     * Called when elements are added to a sketch
+     *
+     * @param kind     The kind of sketch
+     * @param elements The number of elements added
+     */
+    default void onElementsAdded(@Nonnull SketchKind kind, @Nonnegative long elements) {
+    }
+
+    /**
+     * Called when a sketch is merged into another one
+     *
+     * @param kind The kind of sketch
+     */
+    default void onMerge(@Nonnull SketchKind kind) {
+    }
+
+    /**
+     * Called when a sketch is folded into a smaller one while merging
+     *
+     * @param kind     The kind of sketch
+     * @param fromSize The size of the folded sketch
+     * @param toSize   The size it's folded into
+     */
+    default void onFold(@Nonnull SketchKind kind, @Nonnegative int fromSize, @Nonnegative int toSize) {
+    }
+
+    /**
+     * Called when a sketch computes an estimate
+     *
+     * @param kind  The kind of sketch
+     * @param nanos The time the estimate took in nanoseconds, or 0 if timing isn't enabled
+     */
+    default void onEstimate(@Nonnull SketchKind kind, @Nonnegative long nanos) {
+    }
+
+    /**
+     * Called when a sketch allocates the memory it retains
+     *
+     * @param kind  The kind of sketch
+     * @param bytes The number of bytes allocated
+     */
+    default void onAllocated(@Nonnull SketchKind kind, @Nonnegative long bytes) {
+    }
+}
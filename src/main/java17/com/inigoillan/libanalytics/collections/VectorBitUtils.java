@@ -0,0 +1,159 @@
+package com.inigoillan.libanalytics.collections;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementation of {@link BitUtils} with the Vector API, processing as many words per iteration as the preferred
+ * vector shape of the platform holds. The words that don't fill a whole vector are processed by the scalar loops.
+ * <br>
+ * The Java 17 Vector API lacks a lanewise bit count, so it's computed with the classic SWAR reduction on each lane
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+final class VectorBitUtils {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private VectorBitUtils() {}
+
+    //region Cardinality
+
+    static int cardinality(long[] words, int length) {
+        LongVector counts = LongVector.zero(SPECIES);
+
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+
+        for (; i < bound; i += SPECIES.length()) {
+            counts = counts.add(bitCount(LongVector.fromArray(SPECIES, words, i)));
+        }
+
+        long count = counts.reduceLanes(VectorOperators.ADD);
+
+        for (; i < length; i++) {
+            count += Long.bitCount(words[i]);
+        }
+
+        return (int) count;
+    }
+
+    static int xorCardinality(long[] words, int offset, long[] otherWords, int otherOffset, int length) {
+        LongVector counts = LongVector.zero(SPECIES);
+
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector vector = LongVector.fromArray(SPECIES, words, offset + i);
+            LongVector otherVector = LongVector.fromArray(SPECIES, otherWords, otherOffset + i);
+
+            counts = counts.add(bitCount(vector.lanewise(VectorOperators.XOR, otherVector)));
+        }
+
+        long count = counts.reduceLanes(VectorOperators.ADD);
+
+        for (; i < length; i++) {
+            count += Long.bitCount(words[offset + i] ^ otherWords[otherOffset + i]);
+        }
+
+        return (int) count;
+    }
+
+    /**
+     * Counts the bits set in each lane
+     */
+    private static LongVector bitCount(LongVector vector) {
+        vector = vector.sub(vector.lanewise(VectorOperators.LSHR, 1).and(0x5555555555555555L));
+        vector = vector.and(0x3333333333333333L).add(vector.lanewise(VectorOperators.LSHR, 2).and(0x3333333333333333L));
+        vector = vector.add(vector.lanewise(VectorOperators.LSHR, 4)).and(0x0F0F0F0F0F0F0F0FL);
+        vector = vector.add(vector.lanewise(VectorOperators.LSHR, 8));
+        vector = vector.add(vector.lanewise(VectorOperators.LSHR, 16));
+        vector = vector.add(vector.lanewise(VectorOperators.LSHR, 32));
+
+        return vector.and(0x7FL);
+    }
+
+    //endregion
+
+
+    //region XOR
+
+    static void xor(long[] words, long[] otherWords, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector vector = LongVector.fromArray(SPECIES, words, i);
+            LongVector otherVector = LongVector.fromArray(SPECIES, otherWords, i);
+
+            vector.lanewise(VectorOperators.XOR, otherVector).intoArray(words, i);
+        }
+
+        for (; i < length; i++) {
+            words[i] ^= otherWords[i];
+        }
+    }
+
+    //endregion
+
+
+    //region Packed fields
+
+    static int countEqualFields(long[] words, long[] otherWords, int bitSize, int fieldCount) {
+        if (Long.SIZE % bitSize != 0) {
+            return ScalarBitUtils.countEqualFields(words, otherWords, bitSize, fieldCount);
+        }
+
+        int length = (int) (((long) bitSize * fieldCount + Long.SIZE - 1) / Long.SIZE);
+        long lowBits = ScalarBitUtils.lowBitOfFields(bitSize);
+
+        LongVector counts = LongVector.zero(SPECIES);
+
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector vector = LongVector.fromArray(SPECIES, words, i);
+            LongVector diff = vector.lanewise(VectorOperators.XOR, LongVector.fromArray(SPECIES, otherWords, i));
+
+            counts = counts.add(bitCount(reduceFields(diff, bitSize).and(lowBits)));
+        }
+
+        long different = counts.reduceLanes(VectorOperators.ADD);
+
+        for (; i < length; i++) {
+            different += Long.bitCount(ScalarBitUtils.reduceFields(words[i] ^ otherWords[i], bitSize) & lowBits);
+        }
+
+        // The padding beyond the last field is zero in both arrays, so it never counts as a different field
+        return fieldCount - (int) different;
+    }
+
+    /**
+     * ORs every bit of each field into its lowest bit, lane by lane. The shifts are kept constant, as shifting
+     * vectors by a loop variable is miscompiled by the C2 compiler of Java 17.0.9
+     */
+    private static LongVector reduceFields(LongVector diff, int bitSize) {
+        if (bitSize > 1) {
+            diff = diff.or(diff.lanewise(VectorOperators.LSHR, 1));
+        }
+        if (bitSize > 2) {
+            diff = diff.or(diff.lanewise(VectorOperators.LSHR, 2));
+        }
+        if (bitSize > 4) {
+            diff = diff.or(diff.lanewise(VectorOperators.LSHR, 4));
+        }
+        if (bitSize > 8) {
+            diff = diff.or(diff.lanewise(VectorOperators.LSHR, 8));
+        }
+        if (bitSize > 16) {
+            diff = diff.or(diff.lanewise(VectorOperators.LSHR, 16));
+        }
+
+        return diff;
+    }
+
+    //endregion
+}
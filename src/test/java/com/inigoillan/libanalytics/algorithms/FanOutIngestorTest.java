@@ -0,0 +1,93 @@
+package com.inigoillan.libanalytics.algorithms;
+
+import com.inigoillan.libanalytics.algorithms.countminsketch.CountMinSketch;
+import com.inigoillan.libanalytics.algorithms.minhash.LongMinHash;
+import com.inigoillan.libanalytics.algorithms.minhash.bBitMinHash;
+import com.inigoillan.libanalytics.algorithms.oddsketch.OddSketch;
+import com.inigoillan.libanalytics.hash.Hash;
+import com.inigoillan.libanalytics.hash.Hash64Bits;
+import com.inigoillan.libanalytics.hash.hasher.Murmur3128Hasher;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class FanOutIngestorTest {
+    private static final int ELEMENTS = 20;
+
+    @Test
+    public void AddElement_GivenElements_FeedsEverySketchWithTheSameHash() throws Exception {
+        // Arrange
+        Murmur3128Hasher hasher = new Murmur3128Hasher();
+
+        OddSketch<Hash64Bits> oddSketch = new OddSketch<>(64);
+        LongMinHash minHash = new LongMinHash(4);
+        CountMinSketch<Hash64Bits> countMinSketch = new CountMinSketch<>(3, 16);
+        bBitMinHash<Hash> bBitMinHash = new bBitMinHash<>(2, 8);
+
+        FanOutIngestor<byte[]> ingestor = new FanOutIngestor<>(hasher)
+                .register(oddSketch)
+                .register(minHash)
+                .register(countMinSketch)
+                .register(bBitMinHash);
+
+        OddSketch<Hash64Bits> expectedOddSketch = new OddSketch<>(64);
+        LongMinHash expectedMinHash = new LongMinHash(4);
+        CountMinSketch<Hash64Bits> expectedCountMinSketch = new CountMinSketch<>(3, 16);
+        long[][] hashes = new long[ELEMENTS][2];
+
+        // Act
+        for (int i = 0; i < ELEMENTS; i++) {
+            byte[] element = ("element" + i).getBytes();
+            long[] hash = hashes[i];
+
+            ingestor.addElement(element);
+
+            hasher.hashTo128(element, hash);
+            expectedOddSketch.addHashed(hash[0]);
+            expectedMinHash.addHashed(hash[1]);
+            expectedCountMinSketch.addSingleHashed(1, hash[0], hash[1]);
+        }
+
+        // Assert
+        assertEquals(expectedOddSketch, oddSketch);
+        assertEquals(expectedMinHash, minHash);
+
+        for (long[] hash : hashes) {
+            assertEquals(expectedCountMinSketch.estimatePointQuerySingleHashed(hash[0], hash[1]),
+                    countMinSketch.estimatePointQuerySingleHashed(hash[0], hash[1]));
+        }
+
+        // Elements never added read other columns, so most of the rows are compared as well
+        long[] hash = new long[2];
+
+        for (int i = 0; i < 200; i++) {
+            hasher.hashTo128(("missing" + i).getBytes(), hash);
+
+            assertEquals(expectedCountMinSketch.estimatePointQuerySingleHashed(hash[0], hash[1]),
+                    countMinSketch.estimatePointQuerySingleHashed(hash[0], hash[1]));
+        }
+    }
+
+    @Test
+    public void AddHashed_GivenHashes_KeepsLowBitsOfMinimumPerPosition() throws Exception {
+        // Arrange
+        bBitMinHash<Hash> bBitMinHash = new bBitMinHash<>(2, 2);
+        FanOutIngestor<byte[]> ingestor = new FanOutIngestor<>(new Murmur3128Hasher()).register(bBitMinHash);
+
+        // Act
+        // Position 0 sees 6 and 5, position 1 sees 6 + 10 = 16 and 5 - 2 = 3
+        ingestor.addHashed(6, 10);
+        ingestor.addHashed(5, -2);
+
+        // Assert
+        bBitMinHash<Hash> expected = new bBitMinHash<>(2, 2);
+        expected.setHashed(0, 5L);
+        expected.setHashed(1, 3L);
+
+        assertEquals(1.0f, expected.estimateJaccardIndex(bBitMinHash), 0.0f);
+    }
+}
@@ -1,12 +1,17 @@
 package com.inigoillan.libanalytics.algorithms.countminsketch;
 
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
 import com.inigoillan.libanalytics.hash.Divisible;
 import com.inigoillan.libanalytics.hash.Hash32Bits;
+import com.inigoillan.libanalytics.hash.Hash64Bits;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 
 public class CountMinSketchTest {
@@ -39,10 +44,241 @@ public class CountMinSketchTest {
         assertEquals(0, result);
     }
 
+    @Test
+    public void Query_GivenAddedPrimitiveHashes20Times_Return20() throws Exception {
+        // Arrange
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(3, 10);
+        countMinSketch.addHashed(20, new long[] {1, -2, 3});
+
+        // Act
+        long result = countMinSketch.estimatePointQuery(new long[] {1, -2, 3});
+
+        // Assert
+        assertEquals(20, result);
+    }
+
+    @Test
+    public void QuerySingleHashed_GivenAddedHash20Times_Return20() throws Exception {
+        // Arrange
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(4, 10);
+        countMinSketch.addSingleHashed(20, 0x0000000300000001L);
+        countMinSketch.addSingleHashed(5, 0x0000000700000002L);
+
+        // Act
+        long result = countMinSketch.estimatePointQuerySingleHashed(0x0000000300000001L);
+
+        // Assert
+        assertEquals(20, result);
+    }
+
+    @Test
+    public void QuerySingleHashed_Given128BitsHashNotInSketch_Return0() throws Exception {
+        // Arrange
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(4, 10);
+        countMinSketch.addSingleHashed(10, 1, 3);
+
+        // Act
+        long result = countMinSketch.estimatePointQuerySingleHashed(2, 3);
+
+        // Assert
+        assertEquals(0, result);
+    }
+
+    @Test
+    public void AddSingleHashed_ZeroUpperHalf_SpreadsOverTheColumns() throws Exception {
+        // Arrange
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(4, BucketingStrategy.mask(16));
+
+        // Act
+        countMinSketch.addSingleHashed(3, 5L);
+
+        // Assert
+        for (int i = 0; i < 4; i++) {
+            assertEquals(3, countMinSketch.getSketch().get(i)[5 + i]);
+        }
+
+        assertEquals(3, countMinSketch.estimatePointQuerySingleHashed(5L));
+    }
+
+    @Test
+    public void AddSingleHashed_128BitsHashWithZeroSecondHalf_SpreadsOverTheColumns() throws Exception {
+        // Arrange
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(4, BucketingStrategy.mask(16));
+
+        // Act
+        countMinSketch.addSingleHashed(3, 5L, 0L);
+
+        // Assert
+        for (int i = 0; i < 4; i++) {
+            assertEquals(3, countMinSketch.getSketch().get(i)[5 + i]);
+        }
+
+        assertEquals(3, countMinSketch.estimatePointQuerySingleHashed(5L, 0L));
+    }
+
+    @Test
+    public void Query_MaskBucketing_HashesWithSameLowBitsCollide() throws Exception {
+        // Arrange
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(3, BucketingStrategy.mask(16));
+        countMinSketch.addHashed(20, new long[] {1, 2, 3});
+        countMinSketch.addHashed(5, new long[] {17, 2 + (1L << 40), -13});
+
+        // Act
+        long result = countMinSketch.estimatePointQuery(new long[] {1, 2, 3});
+        long missing = countMinSketch.estimatePointQuery(new long[] {4, 2, 3});
+
+        // Assert
+        assertEquals(16, countMinSketch.getNumCols());
+        assertEquals(25, result);
+        assertEquals(0, missing);
+    }
+
+    @Test
+    public void Query_MultiplyShiftBucketing_ReturnsCountsInTheBucketsOfTheStrategy() throws Exception {
+        // Arrange
+        Random random = new Random(6);
+        BucketingStrategy bucketing = BucketingStrategy.multiplyShift(1000);
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(2, bucketing);
+        long[][] elements = new long[50][];
+
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = new long[] {random.nextLong(), random.nextLong()};
+            countMinSketch.addHashed(i + 1, elements[i]);
+        }
+
+        // Act
+        long[] results = new long[elements.length];
+
+        for (int i = 0; i < elements.length; i++) {
+            results[i] = countMinSketch.estimatePointQuery(elements[i]);
+        }
+
+        // Assert
+        assertEquals(1000, countMinSketch.getNumCols());
+
+        for (int i = 0; i < elements.length; i++) {
+            long expected = Math.min(
+                    countMinSketch.getSketch().get(0)[bucketing.bucket(elements[i][0])],
+                    countMinSketch.getSketch().get(1)[bucketing.bucket(elements[i][1])]);
+
+            assertTrue(results[i] >= i + 1);
+            assertEquals(expected, results[i]);
+        }
+    }
+
+    @Test
+    public void Query_HashObjectsWithMaskBucketing_SameCountsAsPrimitiveHashes() throws Exception {
+        // Arrange
+        CountMinSketch<Hash64Bits> countMinSketch = new CountMinSketch<>(2, BucketingStrategy.mask(16));
+        countMinSketch.addHashed(7, new Hash64Bits(-3), new Hash64Bits(1L << 40 | 5));
+
+        // Act
+        long result = countMinSketch.estimatePointQuery(new long[] {-3, 5});
+        long resultFromObjects = countMinSketch.estimatePointQuery(new Hash64Bits(13), new Hash64Bits(5));
+
+        // Assert
+        assertEquals(7, result);
+        assertEquals(7, resultFromObjects);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Query_DivisibleWithMaskBucketing_ThrowsException() throws Exception {
+        // Arrange
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(1, BucketingStrategy.mask(16));
+        Divisible hash = new Divisible() {
+            @Override
+            public int divideBy(int divisor) {
+                return 0;
+            }
+
+            @Override
+            public int mod(int divisor) {
+                return 3;
+            }
+        };
+
+        // Act
+        countMinSketch.addHashed(1, hash);
+    }
+
+    //endregion
+
+    //region Batch tests
+
+    @Test
+    public void AddHashedBatch_RandomHashes_SameRowsAsAddingOneByOne() throws Exception {
+        // Arrange
+        Random random = new Random(2);
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(3, 50);
+        CountMinSketch<Divisible> expected = new CountMinSketch<>(3, 50);
+        long[] hashes = new long[3 * 400];
+
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = random.nextInt(Integer.MAX_VALUE);
+        }
+
+        for (int i = 0; i < hashes.length; i += 3) {
+            expected.addHashed(Arrays.copyOfRange(hashes, i, i + 3));
+        }
+
+        // Act
+        countMinSketch.addHashedBatch(hashes, 0, hashes.length);
+
+        // Assert
+        assertRowsEqual(expected, countMinSketch);
+    }
+
+    @Test
+    public void AddHashedBatch_OffsetAndLength_OnlyAddsTheElementsInRange() throws Exception {
+        // Arrange
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(2, 10);
+        CountMinSketch<Divisible> expected = new CountMinSketch<>(2, 10);
+        long[] hashes = new long[] {9, 9, 1, 2, 3, 4, 1, 2, 8, 8};
+
+        expected.addHashed(new long[] {1, 2});
+        expected.addHashed(new long[] {3, 4});
+        expected.addHashed(new long[] {1, 2});
+
+        // Act
+        countMinSketch.addHashedBatch(hashes, 2, 6);
+
+        // Assert
+        assertRowsEqual(expected, countMinSketch);
+        assertEquals(2, countMinSketch.estimatePointQuery(new long[] {1, 2}));
+        assertEquals(0, countMinSketch.estimatePointQuery(new long[] {9, 9}));
+        assertEquals(0, countMinSketch.estimatePointQuery(new long[] {8, 8}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void AddHashedBatch_LengthNotMultipleOfRows_ThrowsException() throws Exception {
+        // Arrange
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(3, 10);
+
+        // Act
+        countMinSketch.addHashedBatch(new long[] {1, 2, 3, 4, 5, 6, 7}, 0, 7);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void AddHashedBatch_RangeOutOfTheArray_ThrowsException() throws Exception {
+        // Arrange
+        CountMinSketch<Divisible> countMinSketch = new CountMinSketch<>(3, 10);
+
+        // Act
+        countMinSketch.addHashedBatch(new long[] {1, 2, 3, 4, 5, 6}, 3, 6);
+    }
+
     //endregion
 
     //region Helper methods
 
+    private void assertRowsEqual(CountMinSketch<Divisible> expected, CountMinSketch<Divisible> countMinSketch) {
+        assertEquals(expected.getNumRows(), countMinSketch.getNumRows());
+
+        for (int i = 0; i < expected.getNumRows(); i++) {
+            assertArrayEquals(expected.getSketch().get(i), countMinSketch.getSketch().get(i));
+        }
+    }
+
     private void addHashes(CountMinSketch<Divisible> countMinSketch, int number, int[] hashes) {
         Divisible[] divisibleHashes = buildDivisibleArray(hashes);
         countMinSketch.addHashed(number, divisibleHashes);
@@ -0,0 +1,50 @@
+package com.inigoillan.libanalytics.algorithms.countminsketch;
+
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.hasher.XxHash64Hasher;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class GenericCountMinSketchTest {
+
+    @Test
+    public void EstimateElementPointQuery_GivenAddedElements_ReturnCountWithinError() throws Exception {
+        // Arrange
+        GenericCountMinSketch<byte[]> sketch = new GenericCountMinSketch<>(5, 200, new XxHash64Hasher());
+
+        for (int i = 0; i < 100; i++) {
+            sketch.addElement(("element" + i).getBytes());
+        }
+        sketch.addElement(30, "frequent".getBytes());
+
+        // Act
+        long result = sketch.estimateElementPointQuery("frequent".getBytes());
+
+        // Assert
+        assertTrue(result >= 30);
+        assertEquals(30, result, CountMinSketchUtils.getEstimationError(sketch));
+    }
+
+    @Test
+    public void EstimateElementPointQuery_BucketingStrategy_ReturnCountWithinError() throws Exception {
+        // Arrange
+        GenericCountMinSketch<byte[]> sketch =
+                new GenericCountMinSketch<>(5, BucketingStrategy.forWidth(256), new XxHash64Hasher());
+
+        for (int i = 0; i < 100; i++) {
+            sketch.addElement(("element" + i).getBytes());
+        }
+        sketch.addElement(30, "frequent".getBytes());
+
+        // Act
+        long result = sketch.estimateElementPointQuery("frequent".getBytes());
+
+        // Assert
+        assertEquals(256, sketch.getNumCols());
+        assertTrue(result >= 30);
+        assertEquals(30, result, CountMinSketchUtils.getEstimationError(sketch));
+    }
+}
@@ -0,0 +1,403 @@
+package com.inigoillan.libanalytics.algorithms.minhash;
+
+import com.google.common.primitives.Longs;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+
+public class LongMinHashTest {
+
+    //region AddHashed tests
+
+    @Test
+    public void AddHashed_MoreHashesThanMaxSize_KeepsSmallestDistinct() throws Exception {
+        // Arrange
+        LongMinHash minHash = buildMinHash(3, new long[]{7, 3, 9, 3, -1, 5});
+
+        // Act
+        long[] result = minHash.getValues();
+
+        // Assert
+        assertArrayEquals(new long[]{-1, 3, 5}, result);
+    }
+
+    @Test
+    public void AddHashed_RandomHashes_SameValuesAsMinHash() throws Exception {
+        // Arrange
+        Random random = new Random(22);
+        LongMinHash minHash = new LongMinHash(64);
+        MinHash<Long> expected = new MinHash<>(64);
+
+        // Act
+        for (int i = 0; i < 5000; i++) {
+            // Few distinct hashes, so many of them are added again
+            long hash = random.nextInt(3000) - 1500;
+
+            minHash.addHashed(hash);
+            expected.addHashed(hash);
+
+            if (i % 1000 == 0) {
+                minHash.freeze();
+            }
+        }
+
+        // Assert
+        assertArrayEquals(Longs.toArray(expected.getTreeSet()), minHash.getValues());
+    }
+
+    @Test
+    public void AddHashed_FrozenMinHash_KeepsSmallestDistinct() throws Exception {
+        // Arrange
+        LongMinHash minHash = buildMinHash(3, new long[]{7, 3, 9});
+        minHash.freeze();
+
+        // Act
+        minHash.addHashed(3);
+        minHash.addHashed(1);
+
+        // Assert
+        assertFalse(minHash.isFrozen());
+        assertArrayEquals(new long[]{1, 3, 7}, minHash.getValues());
+    }
+
+    @Test
+    public void AddHashed_NegativeIntHash_TakenAsUnsigned() throws Exception {
+        // Arrange
+        LongMinHash minHash = new LongMinHash(3);
+
+        // Act
+        minHash.addHashed(-1);
+        minHash.addHashed(5);
+
+        // Assert
+        assertArrayEquals(new long[]{5, 0xFFFFFFFFL}, minHash.getValues());
+    }
+
+    //endregion
+
+
+    //region EstimateJaccardIndex tests
+
+    @Test
+    public void EstimateJaccardIndex_FirstMinHashSizeIs0_ReturnZero() throws Exception {
+        // Arrange
+        LongMinHash minHash = buildMinHash(10, new long[0]);
+        LongMinHash minHash2 = buildMinHash(10, new long[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        // Act
+        float result = minHash.estimateJaccardIndex(minHash2);
+
+        // Assert
+        assertEquals(0.0f, result, 0.0f);
+    }
+
+    @Test
+    public void EstimateJaccardIndex_5OutOf10ElementsIncommon_JaccardIndexIsZeroPointFive() throws Exception {
+        // Arrange
+        LongMinHash minHash = buildMinHash(10, new long[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+        LongMinHash minHash2 = buildMinHash(10, new long[]{5, 6, 7, 8, 9, 10, 11, 12, 13, 14});
+
+        // Act
+        float result = minHash.estimateJaccardIndex(minHash2);
+
+        // Assert
+        assertEquals(0.5f, result, 0.0f);
+    }
+
+    @Test
+    public void EstimateJaccardIndex_RandomHashes_SameAsMinHash() throws Exception {
+        // Arrange
+        Random random = new Random(23);
+        LongMinHash minHash1 = new LongMinHash(128);
+        LongMinHash minHash2 = new LongMinHash(96);
+        MinHash<Long> expected1 = new MinHash<>(128);
+        MinHash<Long> expected2 = new MinHash<>(96);
+
+        for (int i = 0; i < 2000; i++) {
+            long hash = random.nextLong();
+
+            minHash1.addHashed(hash);
+            expected1.addHashed(hash);
+
+            if (i % 3 != 0) {
+                minHash2.addHashed(hash);
+                expected2.addHashed(hash);
+            }
+        }
+
+        // Act
+        float result = minHash1.estimateJaccardIndex(minHash2);
+
+        // Assert
+        assertEquals(expected1.estimateJaccardIndex(expected2), result, 0.0f);
+    }
+
+    @Test
+    public void EstimateJaccardIndex_AsymmetricSets_SameAsBottomKOfTheUnion() throws Exception {
+        // Arrange
+        Random random = new Random(25);
+        LongMinHash minHash1 = new LongMinHash(200);
+        LongMinHash minHash2 = new LongMinHash(300);
+
+        // Long runs of hashes of a single set, and a few in both
+        for (int i = 0; i < 3000; i++) {
+            long hash = random.nextInt(100000);
+
+            if (i % 50 == 0) {
+                minHash1.addHashed(hash);
+                minHash2.addHashed(hash);
+            } else if ((i / 100) % 3 == 0) {
+                minHash1.addHashed(hash);
+            } else {
+                minHash2.addHashed(hash);
+            }
+        }
+
+        // Act
+        float result = minHash1.estimateJaccardIndex(minHash2);
+
+        // Assert
+        assertEquals(bottomKJaccardIndex(minHash1.getValues(), minHash2.getValues(), 200), result, 0.0f);
+        assertEquals(result, minHash2.estimateJaccardIndex(minHash1), 0.0f);
+    }
+
+    //endregion
+
+
+    //region Multi-way EstimateJaccardIndex tests
+
+    @Test
+    public void EstimateJaccardIndex_ThreeMinHashes_ReturnRepeatingPointThree() throws Exception {
+        // Arrange
+        LongMinHash minHash1 = buildMinHash(9, new long[]{1, 2, 3, 4, 11, 12, 13, 14, 15});
+        LongMinHash minHash2 = buildMinHash(9, new long[]{1, 2, 3, 5, 15, 16, 17, 18, 19});
+        LongMinHash minHash3 = buildMinHash(9, new long[]{1, 2, 3, 6, 17, 18, 19, 20, 21});
+
+        // Act
+        float result = LongMinHash.estimateJaccardIndex(Arrays.asList(minHash1, minHash2, minHash3));
+
+        // Assert
+        assertEquals(3.0f / 9.0f, result, 0.0f);
+    }
+
+    @Test
+    public void EstimateJaccardIndex_OneMinHashEmpty_ReturnZero() throws Exception {
+        // Arrange
+        LongMinHash minHash1 = buildMinHash(9, new long[]{1, 2, 3});
+        LongMinHash minHash2 = buildMinHash(9, new long[0]);
+
+        // Act
+        float result = LongMinHash.estimateJaccardIndex(Arrays.asList(minHash1, minHash2));
+
+        // Assert
+        assertEquals(0.0f, result, 0.0f);
+    }
+
+    @Test
+    public void EstimateJaccardIndex_ManyMinHashesInPool_SameAsSequentialAndMinHash() throws Exception {
+        // Arrange
+        Random random = new Random(26);
+        List<LongMinHash> minHashes = new ArrayList<>();
+        List<MinHash<Long>> expectedMinHashes = new ArrayList<>();
+
+        for (int i = 0; i < 150; i++) {
+            LongMinHash minHash = new LongMinHash(64 + i % 7);
+            MinHash<Long> expected = new MinHash<>(64 + i % 7);
+
+            // Shared hashes are small, so many of them reach the bottom-k of the union
+            for (long hash = 0; hash < 40; hash += 1 + random.nextInt(2)) {
+                minHash.addHashed(hash);
+                expected.addHashed(hash);
+            }
+
+            for (int j = 0; j < 200; j++) {
+                long hash = 20 + random.nextInt(100000);
+
+                minHash.addHashed(hash);
+                expected.addHashed(hash);
+            }
+
+            minHashes.add(minHash);
+            expectedMinHashes.add(expected);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        // Act
+        float sequential = LongMinHash.estimateJaccardIndex(minHashes);
+        float parallel = LongMinHash.estimateJaccardIndex(minHashes, pool);
+
+        pool.shutdown();
+
+        // Assert
+        assertEquals(MinHash.estimateJaccardIndex(expectedMinHashes), sequential, 0.0f);
+        assertEquals(sequential, parallel, 0.0f);
+        assertTrue(sequential > 0.0f);
+    }
+
+    //endregion
+
+
+    //region Merge tests
+
+    @Test
+    public void Merge_GivenDifferentSizedMinHashes_ReturnCorrectMinHash() {
+        // Arrange
+        LongMinHash minHash1 = buildMinHash(5, new long[]{1, 2, 3, 9, 10});
+        LongMinHash minHash2 = buildMinHash(10, new long[]{4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14});
+
+        // Act
+        LongMinHash result = minHash1.merge(minHash2);
+
+        // Assert
+        LongMinHash expected = buildMinHash(5, new long[]{1, 2, 3, 4, 5});
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void Merge_RandomHashes_SameValuesAsMinHashMerge() {
+        // Arrange
+        Random random = new Random(24);
+        LongMinHash minHash1 = new LongMinHash(100);
+        LongMinHash minHash2 = new LongMinHash(70);
+        MinHash<Long> expected1 = new MinHash<>(100);
+        MinHash<Long> expected2 = new MinHash<>(70);
+
+        for (int i = 0; i < 1000; i++) {
+            long hash = random.nextInt(5000);
+
+            if (i % 2 == 0) {
+                minHash1.addHashed(hash);
+                expected1.addHashed(hash);
+            } else {
+                minHash2.addHashed(hash);
+                expected2.addHashed(hash);
+            }
+        }
+
+        // Act
+        LongMinHash result = minHash1.merge(minHash2);
+
+        // Assert
+        assertArrayEquals(Longs.toArray(expected1.merge(expected2).getTreeSet()), result.getValues());
+    }
+
+    //endregion
+
+
+    //region Read tests
+
+    @Test
+    public void Reads_UnfrozenMinHashes_StayUnfrozen() throws Exception {
+        // Arrange
+        LongMinHash minHash1 = buildMinHash(3, new long[]{7, 3, 9, 1});
+        LongMinHash minHash2 = buildMinHash(3, new long[]{3, 1, 8});
+
+        // Act
+        minHash1.estimateJaccardIndex(minHash2);
+        LongMinHash.estimateJaccardIndex(Arrays.asList(minHash1, minHash2));
+        minHash1.merge(minHash2);
+        minHash1.getValues();
+        minHash1.equals(minHash2);
+        minHash1.hashCode();
+        minHash1.toString();
+
+        // Assert
+        assertFalse(minHash1.isFrozen());
+        assertFalse(minHash2.isFrozen());
+    }
+
+    @Test
+    public void Equals_FrozenAndUnfrozenWithSameHashes_AreEqual() throws Exception {
+        // Arrange
+        LongMinHash minHash1 = buildMinHash(3, new long[]{7, 3, 9, 1});
+        LongMinHash minHash2 = buildMinHash(3, new long[]{1, 7, 3});
+        minHash2.freeze();
+
+        // Act
+        boolean result = minHash1.equals(minHash2);
+
+        // Assert
+        assertTrue(result);
+        assertEquals(minHash1.hashCode(), minHash2.hashCode());
+    }
+
+    //endregion
+
+
+    //region Threshold tests
+
+    @Test
+    public void GetThreshold_SetNotFull_ReturnsMaxValue() throws Exception {
+        // Arrange
+        LongMinHash minHash = buildMinHash(3, new long[]{4, 2});
+
+        // Act
+        long result = minHash.getThreshold();
+
+        // Assert
+        assertEquals(Long.MAX_VALUE, result);
+    }
+
+    @Test
+    public void GetThreshold_FullHeapAndFrozen_ReturnsBiggestHashKept() throws Exception {
+        // Arrange
+        LongMinHash minHash = buildMinHash(3, new long[]{4, 2, 9, 7, 1});
+
+        // Act
+        long heapThreshold = minHash.getThreshold();
+        minHash.freeze();
+        long frozenThreshold = minHash.getThreshold();
+
+        // Assert
+        assertEquals(4, heapThreshold);
+        assertEquals(4, frozenThreshold);
+    }
+
+    //endregion
+
+
+    //region Helper methods
+
+    private static float bottomKJaccardIndex(long[] values1, long[] values2, int k) {
+        TreeSet<Long> union = new TreeSet<>(Longs.asList(values1));
+        union.addAll(Longs.asList(values2));
+
+        int walked = 0;
+        int common = 0;
+
+        for (long hash : union) {
+            if (walked == k) {
+                break;
+            }
+
+            walked++;
+
+            if (Arrays.binarySearch(values1, hash) >= 0 && Arrays.binarySearch(values2, hash) >= 0) {
+                common++;
+            }
+        }
+
+        return (float) common / walked;
+    }
+
+    private LongMinHash buildMinHash(int size, long[] hashes) {
+        LongMinHash minHash = new LongMinHash(size);
+
+        for (int i = 0; i < hashes.length; i++) {
+            minHash.addHashed(hashes[i]);
+        }
+
+        return minHash;
+    }
+
+    //endregion
+}
@@ -0,0 +1,181 @@
+package com.inigoillan.libanalytics.algorithms.minhash;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class MinHashLshIndexTest {
+    private static final int SIGNATURE_SIZE = 128;
+
+    @Test
+    public void ForThreshold_Half_PicksBandsWithThresholdNearHalf() {
+        // Act
+        MinHashLshIndex index = MinHashLshIndex.forThreshold(SIGNATURE_SIZE, 0.5);
+
+        // Assert
+        double threshold = Math.pow(1.0 / index.getBands(), 1.0 / index.getRows());
+        assertEquals(0.5, threshold, 0.05);
+        assertTrue(index.getBands() * index.getRows() <= SIGNATURE_SIZE);
+    }
+
+    @Test
+    public void Query_NearDuplicate_FindsItFirst() {
+        // Arrange
+        MinHashLshIndex index = MinHashLshIndex.forThreshold(SIGNATURE_SIZE, 0.5);
+        Random random = new Random(1);
+        long[][] sets = randomSets(random, 1000, 200);
+
+        for (int i = 0; i < sets.length; i++) {
+            index.insert(i, signature(sets[i]));
+        }
+
+        // 90% of the elements of set 123 are kept
+        long[] nearDuplicate = sets[123].clone();
+        for (int i = 0; i < nearDuplicate.length / 10; i++) {
+            nearDuplicate[i] = random.nextLong();
+        }
+
+        long[] ids = new long[5];
+        double[] similarities = new double[5];
+
+        // Act
+        int found = index.query(signature(nearDuplicate), 0.5, ids, similarities);
+
+        // Assert
+        assertEquals(1, found);
+        assertEquals(123L, ids[0]);
+        assertEquals(0.82, similarities[0], 0.1);
+    }
+
+    @Test
+    public void Query_ResultsSortedBySimilarity() {
+        // Arrange
+        MinHashLshIndex index = MinHashLshIndex.forThreshold(SIGNATURE_SIZE, 0.3);
+        Random random = new Random(2);
+        long[] base = randomSets(random, 1, 200)[0];
+
+        for (int id = 0; id < 10; id++) {
+            long[] set = base.clone();
+
+            for (int i = 0; i < id * 10; i++) {
+                set[i] = random.nextLong();
+            }
+
+            index.insert(id, signature(set));
+        }
+
+        long[] ids = new long[4];
+        double[] similarities = new double[4];
+
+        // Act
+        int found = index.query(signature(base), 0.0, ids, similarities);
+
+        // Assert
+        assertEquals(4, found);
+        assertEquals(0L, ids[0]);
+        assertEquals(1.0, similarities[0], 0.0);
+
+        for (int i = 1; i < found; i++) {
+            assertTrue(similarities[i - 1] >= similarities[i]);
+        }
+    }
+
+    @Test
+    public void Remove_InsertedSignature_NotFoundAnymore() {
+        // Arrange
+        MinHashLshIndex index = new MinHashLshIndex(SIGNATURE_SIZE, 32, 4);
+        long[][] sets = randomSets(new Random(3), 50, 100);
+
+        for (int i = 0; i < sets.length; i++) {
+            index.insert(i, signature(sets[i]));
+        }
+
+        long[] ids = new long[1];
+        double[] similarities = new double[1];
+
+        // Act
+        boolean removed = index.remove(7);
+        int found = index.query(signature(sets[7]), 0.5, ids, similarities);
+
+        // Assert
+        assertTrue(removed);
+        assertFalse(index.contains(7));
+        assertEquals(0, found);
+        assertEquals(49, index.size());
+        assertFalse(index.remove(7));
+    }
+
+    @Test
+    public void QueryBatch_SeveralSignatures_FindsEachOne() {
+        // Arrange
+        MinHashLshIndex index = MinHashLshIndex.forThreshold(SIGNATURE_SIZE, 0.8);
+        long[][] sets = randomSets(new Random(4), 300, 100);
+        long[][] signatures = new long[sets.length][];
+
+        for (int i = 0; i < sets.length; i++) {
+            signatures[i] = signature(sets[i]);
+            index.insert(1000 + i, signatures[i]);
+        }
+
+        List<Long> found = new ArrayList<>();
+
+        // Act
+        index.queryBatch(signatures, 0.8, 1, (query, id, similarity) -> {
+            assertEquals(1000L + query, id);
+            found.add(id);
+        });
+
+        // Assert
+        assertEquals(sets.length, found.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Insert_DuplicateId_Throws() {
+        // Arrange
+        MinHashLshIndex index = new MinHashLshIndex(SIGNATURE_SIZE, 16, 8);
+        index.insert(1, MinHashLshIndex.newSignature(SIGNATURE_SIZE));
+
+        // Act
+        index.insert(1, MinHashLshIndex.newSignature(SIGNATURE_SIZE));
+    }
+
+    private long[][] randomSets(Random random, int sets, int elements) {
+        long[][] result = new long[sets][elements];
+
+        for (long[] set : result) {
+            for (int i = 0; i < elements; i++) {
+                set[i] = random.nextLong();
+            }
+        }
+
+        return result;
+    }
+
+    private long[] signature(long[] set) {
+        long[] signature = MinHashLshIndex.newSignature(SIGNATURE_SIZE);
+
+        for (long element : set) {
+            // Two mixes of the element stand for the two halves of its 128 bits hash
+            MinHashLshIndex.addToSignature(signature, mix(element), mix(element ^ 0x5DEECE66DL) | 1);
+        }
+
+        return signature;
+    }
+
+    private long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+
+        return value ^ (value >>> 33);
+    }
+}
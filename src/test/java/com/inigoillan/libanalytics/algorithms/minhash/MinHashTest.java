@@ -77,6 +77,19 @@ public class MinHashTest {
         assertEquals(0.5f, result, 0.0f);
     }
 
+    @Test
+    public void EstimateJaccardIndex_SetContainedInTheOther_FractionOfTheUnion() throws Exception {
+        // Arrange
+        MinHash<Comparable> minHash = buildMinHash(10, new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+        MinHash<Comparable> minHash2 = buildMinHash(10, new int[]{0, 1, 2, 3, 4});
+
+        // Act
+        float result = minHash.estimateJaccardIndex(minHash2);
+
+        // Assert
+        assertEquals(0.5f, result, 0.0f);
+    }
+
     @Test
     public void EstimateJaccardIndex_GivenThreeMinHash_ReturnRepeatingPointThree() throws Exception {
         // Arrangee
@@ -142,6 +155,62 @@ public class MinHashTest {
     //endregion
 
 
+    //region Threshold tests
+
+    @Test
+    public void GetThreshold_SetNotFull_ReturnsNull() throws Exception {
+        // Arrange
+        MinHash<Comparable> minHash = buildMinHash(3, new int[]{4, 2});
+
+        // Act
+        Comparable result = minHash.getThreshold();
+
+        // Assert
+        assertNull(result);
+    }
+
+    @Test
+    public void GetThreshold_SetFull_ReturnsBiggestHashKept() throws Exception {
+        // Arrange
+        MinHash<Comparable> minHash = buildMinHash(3, new int[]{4, 2, 9, 7, 1});
+
+        // Act
+        Comparable result = minHash.getThreshold();
+
+        // Assert
+        assertEquals(hash(4), result);
+    }
+
+    @Test
+    public void AddHashed_HashNotBelowThreshold_SetNotChanged() throws Exception {
+        // Arrange
+        MinHash<Comparable> minHash = buildMinHash(3, new int[]{4, 2, 1});
+        MinHash<Comparable> expected = buildMinHash(3, new int[]{4, 2, 1});
+
+        // Act
+        minHash.addHashed(hash(4));
+        minHash.addHashed(hash(8));
+
+        // Assert
+        assertEquals(expected, minHash);
+        assertEquals(hash(4), minHash.getThreshold());
+    }
+
+    @Test
+    public void AddHashed_HashBelowThreshold_ThresholdLowered() throws Exception {
+        // Arrange
+        MinHash<Comparable> minHash = buildMinHash(3, new int[]{4, 2, 1});
+
+        // Act
+        minHash.addHashed(hash(3));
+
+        // Assert
+        assertEquals(hash(3), minHash.getThreshold());
+    }
+
+    //endregion
+
+
     //region Helper methods
 
     private MinHash<Comparable> buildMinHash(int size, int[] hashes) {
@@ -0,0 +1,226 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class AdaptiveOddSketchTest {
+    private static final int SIZE = 6400;
+
+    @Test
+    public void AddHashed_FewElements_StaysSparse() {
+        // Arrange
+        AdaptiveOddSketch<Divisible> sketch = new AdaptiveOddSketch<>(SIZE);
+        OddSketch<Divisible> expected = new OddSketch<>(SIZE);
+
+        // Act
+        addRandomHashes(new Random(1), 50, sketch, expected);
+
+        // Assert
+        assertTrue(sketch.isSparse());
+        assertEquals(expected, sketch);
+        assertEquals(expected.getOddBins(), sketch.getOddBins());
+        assertEquals(expected.estimateSetSize(), sketch.estimateSetSize());
+    }
+
+    @Test
+    public void AddHashed_ManyElements_TurnsDense() {
+        // Arrange
+        AdaptiveOddSketch<Divisible> sketch = new AdaptiveOddSketch<>(SIZE);
+        OddSketch<Divisible> expected = new OddSketch<>(SIZE);
+
+        // Act
+        addRandomHashes(new Random(2), 1000, sketch, expected);
+
+        // Assert
+        assertFalse(sketch.isSparse());
+        assertEquals(expected, sketch);
+        assertEquals(expected.getOddBins(), sketch.getOddBins());
+    }
+
+    @Test
+    public void AddHashed_SameHashTwice_RemovesTheOddBin() {
+        // Arrange
+        AdaptiveOddSketch<Divisible> sketch = new AdaptiveOddSketch<>(SIZE);
+        sketch.addHashed(10L);
+
+        // Act
+        sketch.addHashed(10L);
+
+        // Assert
+        assertEquals(0, sketch.getOddBins());
+        assertArrayEquals(new long[SIZE / 64], sketch.getWords());
+    }
+
+    @Test
+    public void EstimateJaccardIndex_SparseAndDenseSketches_SameAsOddSketches() {
+        // Arrange
+        Random random = new Random(3);
+        AdaptiveOddSketch<Divisible> sparse1 = new AdaptiveOddSketch<>(SIZE);
+        AdaptiveOddSketch<Divisible> sparse2 = new AdaptiveOddSketch<>(SIZE);
+        AdaptiveOddSketch<Divisible> dense = new AdaptiveOddSketch<>(SIZE);
+        OddSketch<Divisible> expected1 = new OddSketch<>(SIZE);
+        OddSketch<Divisible> expected2 = new OddSketch<>(SIZE);
+        OddSketch<Divisible> expectedDense = new OddSketch<>(SIZE);
+
+        long[] shared = new long[60];
+
+        for (int i = 0; i < shared.length; i++) {
+            shared[i] = random.nextLong();
+            sparse1.addHashed(shared[i]);
+            sparse2.addHashed(shared[i]);
+            dense.addHashed(shared[i]);
+            expected1.addHashed(shared[i]);
+            expected2.addHashed(shared[i]);
+            expectedDense.addHashed(shared[i]);
+        }
+
+        addRandomHashes(random, 20, sparse1, expected1);
+        addRandomHashes(random, 40, sparse2, expected2);
+        addRandomHashes(random, 800, dense, expectedDense);
+
+        // Act
+        double sparseSparse = sparse1.estimateJaccardIndex(sparse2);
+        double sparseDense = sparse1.estimateJaccardIndex(dense);
+        double denseSparse = dense.estimateJaccardIndex(sparse2);
+        double sparsePlain = sparse1.estimateJaccardIndex(expectedDense);
+
+        // Assert
+        assertTrue(sparse1.isSparse() && sparse2.isSparse() && !dense.isSparse());
+        assertEquals(expected1.estimateJaccardIndex(expected2), sparseSparse, 0.0);
+        assertEquals(expected1.estimateJaccardIndex(expectedDense), sparseDense, 0.0);
+        assertEquals(expectedDense.estimateJaccardIndex(expected2), denseSparse, 0.0);
+        assertEquals(expected1.estimateJaccardIndex(expectedDense), sparsePlain, 0.0);
+    }
+
+    @Test
+    public void Merge_SparseAndDenseSketches_SameAsOddSketchesMerge() {
+        // Arrange
+        Random random = new Random(4);
+        AdaptiveOddSketch<Divisible> sparse = new AdaptiveOddSketch<>(SIZE);
+        AdaptiveOddSketch<Divisible> dense = new AdaptiveOddSketch<>(SIZE);
+        OddSketch<Divisible> expectedSparse = new OddSketch<>(SIZE);
+        OddSketch<Divisible> expectedDense = new OddSketch<>(SIZE);
+
+        addRandomHashes(random, 30, sparse, expectedSparse);
+        addRandomHashes(random, 900, dense, expectedDense);
+
+        // Act
+        OddSketch<Divisible> sparseIntoDense = sparse.merge(dense);
+        OddSketch<Divisible> denseIntoSparse = dense.merge(sparse);
+
+        // Assert
+        OddSketch<Divisible> expected = expectedSparse.merge(expectedDense);
+
+        assertEquals(expected, sparseIntoDense);
+        assertEquals(expected, denseIntoSparse);
+    }
+
+    @Test
+    public void MergeInto_SparseIntoSmallerSparse_FoldsTheOddBins() {
+        // Arrange
+        Random random = new Random(5);
+        AdaptiveOddSketch<Divisible> sketch = new AdaptiveOddSketch<>(BucketingStrategy.mask(8192));
+        AdaptiveOddSketch<Divisible> target = new AdaptiveOddSketch<>(BucketingStrategy.mask(1024));
+        OddSketch<Divisible> expectedSketch = new OddSketch<>(BucketingStrategy.mask(8192));
+        OddSketch<Divisible> expectedTarget = new OddSketch<>(BucketingStrategy.mask(1024));
+
+        addRandomHashes(random, 20, sketch, expectedSketch);
+        addRandomHashes(random, 10, target, expectedTarget);
+
+        // Act
+        sketch.mergeInto(target);
+        expectedSketch.mergeInto(expectedTarget);
+
+        // Assert
+        assertTrue(target.isSparse());
+        assertEquals(expectedTarget, target);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void MergeInto_PlainOddSketch_ThrowsException() {
+        // Arrange
+        AdaptiveOddSketch<Divisible> sketch = new AdaptiveOddSketch<>(SIZE);
+        OddSketch<Divisible> target = new OddSketch<>(SIZE);
+        sketch.addHashed(5L);
+
+        // Act
+        sketch.mergeInto(target);
+    }
+
+    @Test
+    public void SetWords_FewOddBins_TurnsSparse() {
+        // Arrange
+        AdaptiveOddSketch<Divisible> sketch = new AdaptiveOddSketch<>(SIZE);
+        addRandomHashes(new Random(6), 1000, sketch, new OddSketch<>(SIZE));
+        long[] words = new long[SIZE / 64];
+        words[3] = 0b1011L;
+
+        // Act
+        sketch.setWords(words.clone());
+
+        // Assert
+        assertTrue(sketch.isSparse());
+        assertEquals(3, sketch.getOddBins());
+        assertArrayEquals(words, sketch.getWords());
+    }
+
+    @Test
+    public void SetWords_DenseSketchTurningSparse_AddsLikeAnOddSketch() {
+        // Arrange
+        AdaptiveOddSketch<Divisible> sketch = new AdaptiveOddSketch<>(SIZE);
+        OddSketch<Divisible> expected = new OddSketch<>(SIZE);
+        addRandomHashes(new Random(7), 1000, sketch, new OddSketch<>(SIZE));
+        long[] words = new long[SIZE / 64];
+        words[3] = 0b1011L;
+
+        sketch.setWords(words.clone());
+        sketch.setElementsAdded(0);
+        expected.setWords(words.clone());
+
+        // Act
+        addRandomHashes(new Random(8), 50, sketch, expected);
+
+        // Assert
+        assertTrue(sketch.isSparse());
+        assertEquals(expected, sketch);
+        assertEquals(expected.getOddBins(), sketch.getOddBins());
+    }
+
+    @Test
+    public void Clone_SparseSketch_IndependentCopy() {
+        // Arrange
+        AdaptiveOddSketch<Divisible> sketch = new AdaptiveOddSketch<>(SIZE);
+        sketch.addHashed(5L);
+
+        // Act
+        AdaptiveOddSketch<Divisible> clone = sketch.clone();
+        clone.addHashed(6L);
+
+        // Assert
+        assertTrue(clone.isSparse());
+        assertEquals(1, sketch.getOddBins());
+        assertEquals(2, clone.getOddBins());
+    }
+
+    private static void addRandomHashes(Random random, int count, OddSketch<Divisible> sketch,
+                                        OddSketch<Divisible> expected) {
+        for (int i = 0; i < count; i++) {
+            long hash = random.nextLong();
+
+            sketch.addHashed(hash);
+            expected.addHashed(hash);
+        }
+    }
+}
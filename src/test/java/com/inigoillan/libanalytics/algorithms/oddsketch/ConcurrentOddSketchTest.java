@@ -0,0 +1,138 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class ConcurrentOddSketchTest {
+    private static final int THREADS = 4;
+    private static final int HASHES_PER_THREAD = 50000;
+
+    @Test
+    public void AddHashed_SeveralThreads_SameBinsAsSequentialSketch() throws Exception {
+        // Arrange
+        long[][] hashes = randomHashes();
+        ConcurrentOddSketch<Divisible> sketch = new ConcurrentOddSketch<>(BucketingStrategy.forWidth(4096));
+        OddSketch<Divisible> expected = new OddSketch<>(BucketingStrategy.forWidth(4096));
+
+        for (long[] threadHashes : hashes) {
+            for (long hash : threadHashes) {
+                expected.addHashed(hash);
+            }
+        }
+
+        // Act
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Future<?>[] futures = new Future<?>[THREADS];
+
+        for (int i = 0; i < THREADS; i++) {
+            long[] threadHashes = hashes[i];
+
+            futures[i] = executor.submit(() -> {
+                for (long hash : threadHashes) {
+                    sketch.addHashed(hash);
+                }
+            });
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        // Assert
+        assertArrayEquals(expected.getWords(), sketch.getWords());
+        assertEquals(expected.getElementsAdded(), sketch.getElementsAdded());
+        assertEquals(expected.getOddBins(), sketch.getOddBins());
+        assertEquals(expected.estimateSetSize(), sketch.estimateSetSize());
+    }
+
+    @Test
+    public void EstimateJaccardIndex_SameElements_Returns1() {
+        // Arrange
+        ConcurrentOddSketch<Divisible> sketch1 = new ConcurrentOddSketch<>(1024);
+        ConcurrentOddSketch<Divisible> sketch2 = new ConcurrentOddSketch<>(1024);
+
+        for (long hash : randomHashes()[0]) {
+            sketch1.addHashed(hash);
+            sketch2.addHashed(hash);
+        }
+
+        // Act
+        double jaccardIndex = sketch1.estimateJaccardIndex(sketch2);
+
+        // Assert
+        assertEquals(1.0, jaccardIndex, 0.0);
+    }
+
+    @Test
+    public void MergeInto_BiggerConcurrentSketch_SameAsMergingSequentialSketches() {
+        // Arrange
+        ConcurrentOddSketch<Divisible> source = new ConcurrentOddSketch<>(BucketingStrategy.forWidth(1024));
+        ConcurrentOddSketch<Divisible> target = new ConcurrentOddSketch<>(BucketingStrategy.forWidth(256));
+        OddSketch<Divisible> sequentialSource = new OddSketch<>(BucketingStrategy.forWidth(1024));
+        OddSketch<Divisible> sequentialTarget = new OddSketch<>(BucketingStrategy.forWidth(256));
+        Random random = new Random(3);
+
+        for (int i = 0; i < 500; i++) {
+            long hash = random.nextLong();
+
+            if (i % 3 == 0) {
+                target.addHashed(hash);
+                sequentialTarget.addHashed(hash);
+            } else {
+                source.addHashed(hash);
+                sequentialSource.addHashed(hash);
+            }
+        }
+
+        // Act
+        source.mergeInto(target);
+        sequentialSource.mergeInto(sequentialTarget);
+
+        // Assert
+        assertEquals(sequentialTarget, target);
+        assertEquals(sequentialTarget.getOddBins(), target.getOddBins());
+    }
+
+    @Test
+    public void Clone_SketchWithElements_ReturnsEqualConcurrentSketch() {
+        // Arrange
+        ConcurrentOddSketch<Divisible> sketch = new ConcurrentOddSketch<>(100);
+        sketch.addHashed(7L);
+        sketch.addHashed(42L);
+
+        // Act
+        OddSketch<Divisible> result = sketch.clone();
+
+        // Assert
+        assertEquals(ConcurrentOddSketch.class, result.getClass());
+        assertEquals(sketch, result);
+    }
+
+    private long[][] randomHashes() {
+        Random random = new Random(11);
+        long[][] hashes = new long[THREADS][HASHES_PER_THREAD];
+
+        for (long[] threadHashes : hashes) {
+            for (int i = 0; i < threadHashes.length; i++) {
+                threadHashes[i] = random.nextLong();
+            }
+        }
+
+        return hashes;
+    }
+}
@@ -1,10 +1,20 @@
 package com.inigoillan.libanalytics.algorithms.oddsketch;
 
+import com.google.common.hash.Hashing;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
 import com.inigoillan.libanalytics.hash.Hash;
+import com.inigoillan.libanalytics.hash.Hash64Bits;
+import com.inigoillan.libanalytics.hash.hasher.Guava64BitByteBufferHasher;
 import com.inigoillan.libanalytics.hash.hasher.Hasher;
+import com.inigoillan.libanalytics.hash.hasher.LongHasher;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -25,6 +35,165 @@ public class GenericOddSketchTest {
         Mockito.verify(hasher, only()).hash(eq(element));
     }
 
+    @Test
+    public void AddElement_PrimitiveHashingWithByteBufferHasher_SameSketchAsPrimitiveHash() throws Exception {
+        // Arrange
+        Guava64BitByteBufferHasher hasher = new Guava64BitByteBufferHasher(Hashing.murmur3_128());
+        GenericOddSketch<ByteBuffer, Hash64Bits> sketch =
+                new GenericOddSketch<>(BucketingStrategy.modulo(10), hasher, true);
+        OddSketch<Hash64Bits> expected = new OddSketch<>(10);
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            ByteBuffer element = ByteBuffer.wrap(("test" + i).getBytes());
+
+            sketch.addElement(element);
+            expected.addHashed(hasher.hashToLong(element));
+        }
+
+        // Assert
+        assertArrayEquals(expected.getWords(), sketch.getWords());
+    }
+
+    @Test
+    public void AddElement_LongHasherWithoutPrimitiveHashing_SameSketchAsHashObjects() throws Exception {
+        // Arrange
+        IdentityHasher hasher = new IdentityHasher();
+        GenericOddSketch<Long, Hash64Bits> sketch = new GenericOddSketch<>(10, hasher);
+        OddSketch<Hash64Bits> expected = new OddSketch<>(10);
+
+        // Act
+        for (long element = 0; element < 20; element += 3) {
+            sketch.addElement(element);
+            expected.addHashed(new Hash64Bits(element));
+        }
+
+        // Assert
+        assertArrayEquals(expected.getWords(), sketch.getWords());
+    }
+
+    @Test
+    public void AddElement_HashOverriddenWithLongHasher_OverrideUsed() throws Exception {
+        // Arrange
+        Guava64BitByteBufferHasher hasher = new Guava64BitByteBufferHasher(Hashing.murmur3_128());
+        GenericOddSketch<ByteBuffer, Hash64Bits> sketch = new GenericOddSketch<ByteBuffer, Hash64Bits>(64, hasher) {
+            @Override
+            protected Hash64Bits hash(@Nonnull ByteBuffer element) {
+                return new Hash64Bits(7L);
+            }
+        };
+
+        // Act
+        sketch.addElement(ByteBuffer.wrap("test".getBytes()));
+
+        // Assert
+        assertEquals(1L << 7, sketch.getWords()[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Constructor_PrimitiveHashingWithoutPrimitiveHasher_ThrowsException() throws Exception {
+        // Arrange
+        Hasher<Object, Hash> hasher = mock(Hasher.class);
+
+        // Act
+        new GenericOddSketch<>(BucketingStrategy.modulo(10), hasher, true);
+    }
+
+    @Test
+    public void Merge_TwoGenericOddSketches_SketchWithTheBinsOfBoth() throws Exception {
+        // Arrange
+        Hasher<Object, Hash64Bits> hasher = mock(Hasher.class);
+        when(hasher.hash(eq("a"))).thenReturn(new Hash64Bits(3L));
+        when(hasher.hash(eq("b"))).thenReturn(new Hash64Bits(5L));
+
+        GenericOddSketch<Object, Hash64Bits> sketch1 = new GenericOddSketch<>(64, hasher);
+        GenericOddSketch<Object, Hash64Bits> sketch2 = new GenericOddSketch<>(64, hasher);
+        sketch1.addElement("a");
+        sketch2.addElement("b");
+
+        OddSketch<Hash64Bits> expected = new OddSketch<>(64);
+        expected.addHashed(new Hash64Bits(3L));
+        expected.addHashed(new Hash64Bits(5L));
+
+        // Act
+        OddSketch<Hash64Bits> result = sketch1.merge(sketch2);
+
+        // Assert
+        assertEquals(expected, result);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Merge_PrimitiveAndObjectHashing_ThrowsException() throws Exception {
+        // Arrange
+        GenericOddSketch<Long, Hash64Bits> sketch1 = new GenericOddSketch<>(BucketingStrategy.modulo(64),
+                new IdentityHasher(), false);
+        GenericOddSketch<Long, Hash64Bits> sketch2 = new GenericOddSketch<>(BucketingStrategy.modulo(64),
+                new IdentityHasher(), true);
+        sketch1.addElement(3L);
+        sketch2.addElement(3L);
+
+        // Act
+        sketch1.merge(sketch2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void MergeInto_PrimitiveAndObjectHashing_ThrowsException() throws Exception {
+        // Arrange
+        GenericOddSketch<Long, Hash64Bits> sketch1 = new GenericOddSketch<>(BucketingStrategy.modulo(64),
+                new IdentityHasher(), true);
+        GenericOddSketch<Long, Hash64Bits> sketch2 = new GenericOddSketch<>(BucketingStrategy.modulo(64),
+                new IdentityHasher(), false);
+
+        // Act
+        sketch1.mergeInto(sketch2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void EstimateJaccardIndex_PrimitiveAndObjectHashing_ThrowsException() throws Exception {
+        // Arrange
+        GenericOddSketch<Long, Hash64Bits> sketch1 = new GenericOddSketch<>(BucketingStrategy.modulo(64),
+                new IdentityHasher(), false);
+        GenericOddSketch<Long, Hash64Bits> sketch2 = new GenericOddSketch<>(BucketingStrategy.modulo(64),
+                new IdentityHasher(), true);
+        sketch1.addElement(3L);
+        sketch2.addElement(3L);
+
+        // Act
+        sketch1.estimateJaccardIndex(sketch2);
+    }
+
+    @Test
+    public void EstimateJaccardIndex_SamePrimitiveHashing_ReturnsOne() throws Exception {
+        // Arrange
+        GenericOddSketch<Long, Hash64Bits> sketch1 = new GenericOddSketch<>(BucketingStrategy.modulo(64),
+                new IdentityHasher(), true);
+        GenericOddSketch<Long, Hash64Bits> sketch2 = new GenericOddSketch<>(BucketingStrategy.modulo(64),
+                new IdentityHasher(), true);
+        sketch1.addElement(3L);
+        sketch2.addElement(3L);
+
+        // Act
+        double result = sketch1.estimateJaccardIndex(sketch2);
+
+        // Assert
+        assertEquals(1.0, result, 0.0);
+    }
+
+    /**
+     * Hashes every element into itself, and into a different primitive hash, so it's clear which one is used
+     */
+    private static class IdentityHasher implements Hasher<Long, Hash64Bits>, LongHasher<Long> {
+        @Override
+        public Hash64Bits hash(@Nonnull Long element) {
+            return new Hash64Bits(element);
+        }
+
+        @Override
+        public long hashToLong(@Nonnull Long element) {
+            return element + 1;
+        }
+    }
+
     private GenericOddSketch<Object, Hash> buildOddSketch(int size, Hasher hasher) {
         GenericOddSketch<Object, Hash> sketch = new GenericOddSketch<>(size, hasher);
 
@@ -1,10 +1,20 @@
 package com.inigoillan.libanalytics.algorithms.oddsketch;
 
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
 import com.inigoillan.libanalytics.hash.Divisible;
 import com.inigoillan.libanalytics.hash.Hash32Bits;
+import com.inigoillan.libanalytics.hash.Hash64Bits;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 
 public class OddSketchTest {
@@ -34,6 +44,71 @@ public class OddSketchTest {
         assertEquals(6, setSize, getSetSizeAccuracy());
     }
 
+    @Test
+    public void estimateSetSize_PrimitiveHashes_ReturnsSameAsHashObjects() {
+        // Arrange
+        OddSketch<Divisible> sketch = buildOddSketch(30);
+        OddSketch<Divisible> primitiveSketch = buildOddSketch(30);
+
+        // Act
+        int setSize = estimateSetSizeFor(sketch, 1, 5, 10, 15, 20, 25);
+        for (int element : new int[] {1, 5, 10, 15, 20, 25}) {
+            primitiveSketch.addHashed((long) element);
+        }
+
+        // Assert
+        assertEquals(sketch, primitiveSketch);
+        assertEquals(setSize, primitiveSketch.estimateSetSize());
+    }
+
+    @Test
+    public void addHashed_NegativePrimitiveHash_IsTreatedAsUnsigned() {
+        // Arrange
+        OddSketch<Divisible> sketch = buildOddSketch(10);
+
+        // Act
+        sketch.addHashed(-1L);
+        sketch.addHashed(-1);
+
+        // Assert
+        assertEquals(2, sketch.getElementsAdded());
+        assertEquals(0, sketch.estimateSetSize());
+    }
+
+    @Test
+    public void addHashedBatch_GivenHashes_SameSketchAsOneByOne() {
+        // Arrange
+        OddSketch<Divisible> sketch = buildOddSketch(30);
+        OddSketch<Divisible> batchSketch = buildOddSketch(30);
+        long[] hashes = new long[] {99, 1, 5, 10, 15, 20, 25, 99};
+
+        // Act
+        for (int i = 1; i < 7; i++) {
+            sketch.addHashed(hashes[i]);
+        }
+        batchSketch.addHashedBatch(hashes, 1, 6);
+
+        // Assert
+        assertEquals(sketch, batchSketch);
+    }
+
+    @Test
+    public void setSketch_GivenBitSet_OddBinsAreRecomputed() {
+        // Arrange
+        OddSketch<Divisible> sketch = buildOddSketch(70);
+        BitSet bits = new BitSet();
+        bits.set(3);
+        bits.set(65);
+        bits.set(100);
+
+        // Act
+        sketch.setSketch(bits);
+
+        // Assert
+        assertEquals(2, sketch.getOddBins());
+        assertEquals(bits.get(0, 70), sketch.getSketch());
+    }
+
     //endregion
 
 
@@ -135,10 +210,383 @@ public class OddSketchTest {
         assertEquals(expectedResult, result);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void Merge_DifferentSizedSketchesWithMultiplyShiftBucketing_Throws() {
+        // Arrange
+        OddSketch<Divisible> sketch1 = new OddSketch<>(BucketingStrategy.multiplyShift(10));
+        OddSketch<Divisible> sketch2 = new OddSketch<>(BucketingStrategy.multiplyShift(30));
+
+        // Act
+        sketch1.merge(sketch2);
+    }
+
+    @Test
+    public void Merge_DifferentSizedSketchesWithMaskBucketing_ResultCorrect() {
+        // Arrange
+        OddSketch<Divisible> sketch1 = new OddSketch<>(BucketingStrategy.forWidth(16));
+        sketch1.addHashed(1L);
+        OddSketch<Divisible> sketch2 = new OddSketch<>(BucketingStrategy.forWidth(64));
+        sketch2.addHashed(37L);
+
+        OddSketch<Divisible> expectedResult = new OddSketch<>(BucketingStrategy.forWidth(16));
+        expectedResult.addHashed(1L);
+        expectedResult.addHashed(37L);
+
+        // Act
+        OddSketch<Divisible> result = sketch1.merge(sketch2);
+
+        // Assert
+        assertEquals(expectedResult, result);
+    }
+
+    @Test
+    public void Merge_DifferentSizedSketches_ArgumentsUnchanged() {
+        // Arrange
+        OddSketch<Divisible> sketch1 = buildOddSketch(10);
+        sketch1.addHashed(hash(1));
+        OddSketch<Divisible> sketch2 = buildOddSketch(30);
+        sketch2.addHashed(hash(25));
+
+        OddSketch<Divisible> expectedSketch1 = sketch1.clone();
+        OddSketch<Divisible> expectedSketch2 = sketch2.clone();
+
+        // Act
+        sketch1.merge(sketch2);
+        sketch2.merge(sketch1);
+
+        // Assert
+        assertEquals(expectedSketch1, sketch1);
+        assertEquals(expectedSketch2, sketch2);
+    }
+
+    @Test
+    public void MergeInto_BiggerSketchWithMaskBucketing_FoldsIntoTarget() {
+        // Arrange
+        OddSketch<Divisible> source = new OddSketch<>(BucketingStrategy.forWidth(1024));
+        OddSketch<Divisible> target = new OddSketch<>(BucketingStrategy.forWidth(128));
+        OddSketch<Divisible> expectedResult = new OddSketch<>(BucketingStrategy.forWidth(128));
+        Random random = new Random(7);
+
+        for (int i = 0; i < 300; i++) {
+            long hash = random.nextLong();
+
+            source.addHashed(hash);
+            expectedResult.addHashed(hash);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            long hash = random.nextLong();
+
+            target.addHashed(hash);
+            expectedResult.addHashed(hash);
+        }
+
+        OddSketch<Divisible> expectedSource = source.clone();
+
+        // Act
+        source.mergeInto(target);
+
+        // Assert
+        assertEquals(expectedResult, target);
+        assertEquals(expectedSource, source);
+    }
+
+    @Test
+    public void MergeInto_SizeNotMultipleOfWord_FoldsIntoTarget() {
+        // Arrange
+        OddSketch<Divisible> source = buildOddSketch(300);
+        OddSketch<Divisible> target = buildOddSketch(100);
+        OddSketch<Divisible> expectedResult = buildOddSketch(100);
+
+        for (int i = 0; i < 300; i += 7) {
+            source.addHashed(hash(i));
+            expectedResult.addHashed(hash(i));
+        }
+
+        // Act
+        source.mergeInto(target);
+
+        // Assert
+        assertEquals(expectedResult, target);
+    }
+
+    @Test
+    public void AddHashed_HashObjectsWithMaskBucketing_SameBinsAsPrimitiveHashes() {
+        // Arrange
+        OddSketch<Hash64Bits> fromObjects = new OddSketch<>(BucketingStrategy.forWidth(64));
+        OddSketch<Hash64Bits> fromPrimitives = new OddSketch<>(BucketingStrategy.forWidth(64));
+        Random random = new Random(6);
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            long hash = random.nextLong();
+            fromObjects.addHashed(new Hash64Bits(hash));
+            fromPrimitives.addHashed(hash);
+        }
+
+        // Assert
+        assertEquals(fromPrimitives, fromObjects);
+    }
+
+    @Test
+    public void Merge_HashObjectsWithModuloBucketing_SameBinsAsPrimitiveHashes() {
+        // Arrange
+        OddSketch<Hash64Bits> source = new OddSketch<>(BucketingStrategy.modulo(30));
+        OddSketch<Hash64Bits> target = new OddSketch<>(BucketingStrategy.modulo(30));
+        OddSketch<Hash64Bits> expectedResult = new OddSketch<>(BucketingStrategy.modulo(30));
+
+        for (long hash = -10; hash < 10; hash++) {
+            source.addHashed(new Hash64Bits(hash * 7));
+            target.addHashed(new Hash64Bits(hash * 11));
+            expectedResult.addHashed(hash * 7);
+            expectedResult.addHashed(hash * 11);
+        }
+
+        // Act
+        source.mergeInto(target);
+
+        // Assert
+        assertEquals(expectedResult, target);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void AddHashed_DivisibleWithMaskBucketing_ThrowsException() {
+        // Arrange
+        OddSketch<Divisible> sketch = new OddSketch<>(BucketingStrategy.mask(64));
+        Divisible hash = new Divisible() {
+            @Override
+            public int divideBy(int divisor) {
+                return 0;
+            }
+
+            @Override
+            public int mod(int divisor) {
+                return 3;
+            }
+        };
+
+        // Act
+        sketch.addHashed(hash);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void MergeInto_BiggerTarget_Throws() {
+        // Arrange
+        OddSketch<Divisible> source = buildOddSketch(10);
+        OddSketch<Divisible> target = buildOddSketch(30);
+
+        // Act
+        source.mergeInto(target);
+    }
+
+    //endregion
+
+
+    //region Batch tests
+
+    @Test
+    public void AddHashedBatch_BigSketch_SameAsAddingOneByOne() {
+        // Arrange
+        OddSketch<Divisible> sketch = new OddSketch<>(BucketingStrategy.multiplyShift(5000000));
+        OddSketch<Divisible> expected = new OddSketch<>(BucketingStrategy.multiplyShift(5000000));
+        long[] hashes = new long[20000];
+        Random random = new Random(8);
+
+        for (int i = 0; i < hashes.length; i++) {
+            // Repeats some hashes, even and odd times
+            hashes[i] = i % 5 == 0 ? hashes[random.nextInt(i + 1)] : random.nextLong();
+        }
+
+        for (long hash : hashes) {
+            expected.addHashed(hash);
+        }
+
+        // Act
+        sketch.addHashedBatch(hashes, 0, hashes.length);
+
+        // Assert
+        assertEquals(expected, sketch);
+        assertEquals(expected.getOddBins(), sketch.getOddBins());
+    }
+
+    @Test
+    public void AddHashedBatch_SubclassOverridingXorIthBit_FlipsThroughIt() {
+        // Arrange
+        int[] flips = new int[1];
+        OddSketch<Divisible> sketch = new OddSketch<Divisible>(100) {
+            @Override
+            protected void xorIthBit(int index) {
+                flips[0]++;
+                super.xorIthBit(index);
+            }
+        };
+
+        // Act
+        sketch.addHashedBatch(new long[]{1L, 42L, 7L, 42L}, 0, 4);
+
+        // Assert
+        assertEquals(4, flips[0]);
+        assertEquals(2, sketch.getOddBins());
+    }
+
+    @Test
+    public void AddHashedBatch_FlipFailsHalfway_CountsTheHashesAddedBeforeIt() {
+        // Arrange
+        OddSketch<Divisible> sketch = new OddSketch<Divisible>(100) {
+            @Override
+            protected void xorIthBit(int index) {
+                if (index == 42) {
+                    throw new IllegalArgumentException("Bin 42 is out of the sketch");
+                }
+
+                super.xorIthBit(index);
+            }
+        };
+
+        // Act
+        try {
+            sketch.addHashedBatch(new long[]{1L, 7L, 42L, 9L}, 0, 4);
+            fail("The batch should have thrown");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        // Assert
+        assertEquals(2, sketch.getElementsAdded());
+        assertEquals(2, sketch.getOddBins());
+    }
+
+    //endregion
+
+
+    //region Serialization tests
+
+    @Test
+    public void WriteToBuffer_ReadFrom_ReturnsEqualSketch() {
+        // Arrange
+        OddSketch<Divisible> sketch = randomSketch(BucketingStrategy.modulo(1000), 1, 700);
+        ByteBuffer buffer = ByteBuffer.allocate((int) sketch.getSerializedSize() + 5);
+        buffer.position(5);
+
+        // Act
+        sketch.writeTo(buffer);
+        buffer.position(5);
+        OddSketch<Divisible> result = OddSketch.readFrom(buffer);
+
+        // Assert
+        assertEquals(sketch, result);
+        assertEquals(sketch.getOddBins(), result.getOddBins());
+        assertEquals(buffer.capacity(), buffer.position());
+    }
+
+    @Test
+    public void WriteToStream_ReadFrom_ReturnsEqualSketch() throws IOException {
+        // Arrange
+        OddSketch<Divisible> sketch = randomSketch(BucketingStrategy.forWidth(1 << 17), 2, 30000);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        // Act
+        sketch.writeTo(stream);
+        OddSketch<Divisible> result = OddSketch.readFrom(new ByteArrayInputStream(stream.toByteArray()));
+
+        // Assert
+        assertEquals(sketch.getSerializedSize(), stream.size());
+        assertEquals(sketch, result);
+    }
+
+    @Test
+    public void Wrap_SerializedSketches_EstimatesSameJaccardIndex() {
+        // Arrange
+        OddSketch<Divisible> sketch1 = randomSketch(BucketingStrategy.forWidth(2048), 3, 500);
+        OddSketch<Divisible> sketch2 = randomSketch(BucketingStrategy.forWidth(2048), 3, 400);
+        ByteBuffer buffer = ByteBuffer.allocate((int) (sketch1.getSerializedSize() + sketch2.getSerializedSize()));
+
+        sketch1.writeTo(buffer);
+        sketch2.writeTo(buffer);
+        buffer.flip();
+
+        // Act
+        OddSketch<Divisible> wrapped1 = OddSketch.wrap(buffer);
+        OddSketch<Divisible> wrapped2 = OddSketch.wrap(buffer);
+
+        // Assert
+        assertEquals(sketch1.estimateJaccardIndex(sketch2), wrapped1.estimateJaccardIndex(wrapped2), 0.0);
+        assertEquals(sketch1.estimateSetSize(), wrapped1.estimateSetSize());
+        assertEquals(sketch2, wrapped2);
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void Wrap_AddHashed_Throws() {
+        // Arrange
+        OddSketch<Divisible> sketch = randomSketch(BucketingStrategy.forWidth(128), 4, 10);
+        ByteBuffer buffer = ByteBuffer.allocate((int) sketch.getSerializedSize());
+        sketch.writeTo(buffer);
+        buffer.flip();
+
+        OddSketch<Divisible> wrapped = OddSketch.wrap(buffer);
+
+        // Act
+        wrapped.addHashed(5L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Wrap_BitsSetBeyondTheSize_Throws() {
+        // Arrange
+        OddSketch<Divisible> sketch = randomSketch(BucketingStrategy.modulo(100), 4, 50);
+        ByteBuffer buffer = ByteBuffer.allocate((int) sketch.getSerializedSize());
+        sketch.writeTo(buffer);
+        buffer.flip();
+
+        // The highest bit of the last word, past the 100 bins of the sketch
+        buffer.put(OddSketchFormat.HEADER_BYTES + 2 * Long.BYTES - 1, (byte) 0x80);
+
+        // Act
+        OddSketch.wrap(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Wrap_OddBinsNotMatchingTheWords_Throws() {
+        // Arrange
+        OddSketch<Divisible> sketch = randomSketch(BucketingStrategy.modulo(100), 4, 50);
+        ByteBuffer buffer = ByteBuffer.allocate((int) sketch.getSerializedSize());
+        sketch.writeTo(buffer);
+        buffer.flip();
+
+        buffer.put(OddSketchFormat.ODD_BINS_OFFSET, (byte) (buffer.get(OddSketchFormat.ODD_BINS_OFFSET) + 1));
+
+        // Act
+        OddSketch.wrap(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ReadFrom_TruncatedBuffer_Throws() {
+        // Arrange
+        OddSketch<Divisible> sketch = randomSketch(BucketingStrategy.forWidth(1024), 5, 10);
+        ByteBuffer buffer = ByteBuffer.allocate((int) sketch.getSerializedSize());
+        sketch.writeTo(buffer);
+        buffer.flip();
+        buffer.limit(buffer.limit() - 1);
+
+        // Act
+        OddSketch.readFrom(buffer);
+    }
+
     //endregion
 
 
     //region Helper methods
+    private OddSketch<Divisible> randomSketch(BucketingStrategy bucketing, int seed, int elements) {
+        OddSketch<Divisible> sketch = new OddSketch<>(bucketing);
+        Random random = new Random(seed);
+
+        for (int i = 0; i < elements; i++) {
+            sketch.addHashed(random.nextLong());
+        }
+
+        return sketch;
+    }
+
     private double getJaccardIndexFor(OddSketch<Divisible> sketch1, int[] elements1,
                                       OddSketch<Divisible> sketch2, int[] elements2) {
         for (int element : elements1) {
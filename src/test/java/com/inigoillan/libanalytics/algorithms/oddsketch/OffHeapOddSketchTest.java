@@ -0,0 +1,124 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class OffHeapOddSketchTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void AddHashed_DirectBuffer_SameAsHeapSketch() {
+        // Arrange
+        OffHeapOddSketch<Divisible> sketch = OffHeapOddSketch.allocateDirect(BucketingStrategy.modulo(1000));
+        OddSketch<Divisible> expected = new OddSketch<>(1000);
+
+        // Act
+        addRandomHashes(1, 2000, sketch, expected);
+
+        // Assert
+        assertArrayEquals(expected.getWords(), sketch.getWords());
+        assertEquals(expected.getOddBins(), sketch.getOddBins());
+        assertEquals(expected.estimateSetSize(), sketch.estimateSetSize());
+        assertEquals(expected, sketch);
+    }
+
+    @Test
+    public void Open_SketchCreatedInFile_ReopensSameSketch() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("sketch.odsk");
+        OffHeapOddSketch<Divisible> sketch = OffHeapOddSketch.create(file, BucketingStrategy.forWidth(4096));
+        OddSketch<Divisible> expected = new OddSketch<>(BucketingStrategy.forWidth(4096));
+
+        addRandomHashes(2, 3000, sketch, expected);
+        sketch.force();
+
+        // Act
+        OffHeapOddSketch<Divisible> reopened = OffHeapOddSketch.open(file);
+
+        // Assert
+        assertEquals(expected, reopened);
+        assertEquals(expected.getOddBins(), reopened.getOddBins());
+        assertEquals(BucketingStrategy.forWidth(4096), reopened.getBucketingStrategy());
+        assertEquals(OddSketchFormat.getSizeInBytes(4096), Files.size(file));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Open_FileWithoutSketch_Throws() throws IOException {
+        // Arrange
+        Path file = folder.getRoot().toPath().resolve("garbage");
+        Files.write(file, new byte[64]);
+
+        // Act
+        OffHeapOddSketch.open(file);
+    }
+
+    @Test
+    public void EstimateJaccardIndex_OffHeapAndHeapSketches_SameAsHeapSketches() {
+        // Arrange
+        OffHeapOddSketch<Divisible> sketch1 = OffHeapOddSketch.allocateDirect(BucketingStrategy.forWidth(2048));
+        OffHeapOddSketch<Divisible> sketch2 = OffHeapOddSketch.allocateDirect(BucketingStrategy.forWidth(2048));
+        OddSketch<Divisible> expected1 = new OddSketch<>(BucketingStrategy.forWidth(2048));
+        OddSketch<Divisible> expected2 = new OddSketch<>(BucketingStrategy.forWidth(2048));
+
+        addRandomHashes(3, 500, sketch1, expected1);
+        addRandomHashes(4, 500, sketch2, expected2);
+
+        // Act
+        double offHeap = sketch1.estimateJaccardIndex(sketch2);
+        double mixed = sketch1.estimateJaccardIndex(expected2);
+
+        // Assert
+        assertEquals(expected1.estimateJaccardIndex(expected2), offHeap, 0.0);
+        assertEquals(expected1.estimateJaccardIndex(expected2), mixed, 0.0);
+    }
+
+    @Test
+    public void Merge_DifferentSizedSketches_SameAsHeapMerge() {
+        // Arrange
+        OffHeapOddSketch<Divisible> sketch1 = OffHeapOddSketch.allocateDirect(BucketingStrategy.modulo(100));
+        OffHeapOddSketch<Divisible> sketch2 = OffHeapOddSketch.allocateDirect(BucketingStrategy.modulo(300));
+        OddSketch<Divisible> expected1 = new OddSketch<>(100);
+        OddSketch<Divisible> expected2 = new OddSketch<>(300);
+
+        addRandomHashes(5, 200, sketch1, expected1);
+        addRandomHashes(6, 400, sketch2, expected2);
+
+        OddSketch<Divisible> expectedSketch2 = sketch2.clone();
+
+        // Act
+        OddSketch<Divisible> result = sketch2.merge(sketch1);
+
+        // Assert
+        assertEquals(OffHeapOddSketch.class, result.getClass());
+        assertEquals(expected1.merge(expected2), result);
+        assertEquals(result.getOddBins(), expected1.merge(expected2).getOddBins());
+        assertEquals(expectedSketch2, sketch2);
+    }
+
+    private void addRandomHashes(int seed, int count, OddSketch<Divisible> sketch, OddSketch<Divisible> expected) {
+        Random random = new Random(seed);
+
+        for (int i = 0; i < count; i++) {
+            long hash = random.nextLong();
+
+            sketch.addHashed(hash);
+            expected.addHashed(hash);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class PackedOddSketchesTest {
+    private static final int SKETCHES = 600;
+    private static final int SKETCH_SIZE = 8192;
+
+    @Test
+    public void ForEachPair_Threshold_ReturnsSamePairsAsEstimatingEachPair() {
+        // Arrange
+        List<OddSketch<Divisible>> sketches = buildSketches();
+        PackedOddSketches packed = new PackedOddSketches(sketches);
+        double threshold = 0.3;
+
+        Map<Long, Double> expected = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < SKETCHES; i++) {
+            for (int j = i + 1; j < SKETCHES; j++) {
+                double jaccardIndex = sketches.get(i).estimateJaccardIndex(sketches.get(j));
+
+                if (jaccardIndex >= threshold) {
+                    expected.put((long) i * SKETCHES + j, jaccardIndex);
+                }
+            }
+        }
+
+        Map<Long, Double> result = new ConcurrentHashMap<>();
+
+        // Act
+        packed.forEachPair(threshold, new ForkJoinPool(4),
+                (i, j, jaccardIndex) -> result.put((long) i * SKETCHES + j, jaccardIndex));
+
+        // Assert
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void ForEachTopK_K3_ReturnsBestPairsOfEachRowInOrder() {
+        // Arrange
+        List<OddSketch<Divisible>> sketches = buildSketches();
+        PackedOddSketches packed = new PackedOddSketches(sketches);
+
+        Map<Integer, List<Integer>> result = new ConcurrentHashMap<>();
+
+        // Act
+        packed.forEachTopK(3, 0.0, new ForkJoinPool(4),
+                (i, j, jaccardIndex) -> result.computeIfAbsent(i, (row) -> new ArrayList<>()).add(j));
+
+        // Assert
+        for (int i = 0; i < SKETCHES; i++) {
+            OddSketch<Divisible> sketch = sketches.get(i);
+            int row = i;
+
+            List<Integer> expected = IntStream.range(0, SKETCHES)
+                    .filter((j) -> j != row && sketch.estimateJaccardIndex(sketches.get(j)) >= 0.0)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble((Integer j) -> -sketch.estimateJaccardIndex(sketches.get(j)))
+                            .thenComparing(Comparator.naturalOrder()))
+                    .limit(3)
+                    .collect(Collectors.toList());
+
+            List<Double> expectedIndexes = expected.stream()
+                    .map((j) -> sketch.estimateJaccardIndex(sketches.get(j)))
+                    .collect(Collectors.toList());
+            List<Double> resultIndexes = result.get(i).stream()
+                    .map((j) -> sketch.estimateJaccardIndex(sketches.get(j)))
+                    .collect(Collectors.toList());
+
+            assertEquals(expectedIndexes, resultIndexes);
+        }
+    }
+
+    @Test
+    public void EstimateJaccardIndex_Pair_SameAsSketches() {
+        // Arrange
+        List<OddSketch<Divisible>> sketches = buildSketches();
+        PackedOddSketches packed = new PackedOddSketches(sketches);
+
+        // Act
+        double result = packed.estimateJaccardIndex(3, 4);
+
+        // Assert
+        assertEquals(sketches.get(3).estimateJaccardIndex(sketches.get(4)), result, 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Ctor_DifferentSizedSketches_Throws() {
+        // Arrange
+        List<OddSketch<Divisible>> sketches = new ArrayList<>();
+        sketches.add(new OddSketch<>(100));
+        sketches.add(new OddSketch<>(200));
+
+        // Act
+        new PackedOddSketches(sketches);
+    }
+
+    /**
+     * Builds groups of sketches sharing most of their elements, so some pairs are similar
+     */
+    private List<OddSketch<Divisible>> buildSketches() {
+        Random random = new Random(17);
+        List<OddSketch<Divisible>> sketches = new ArrayList<>();
+        long[] shared = new long[300];
+
+        for (int i = 0; i < SKETCHES; i++) {
+            if (i % 10 == 0) {
+                for (int e = 0; e < shared.length; e++) {
+                    shared[e] = random.nextLong();
+                }
+            }
+
+            OddSketch<Divisible> sketch = new OddSketch<>(BucketingStrategy.forWidth(SKETCH_SIZE));
+            int sharedElements = random.nextInt(shared.length);
+
+            for (int e = 0; e < sharedElements; e++) {
+                sketch.addHashed(shared[e]);
+            }
+
+            for (int e = sharedElements; e < shared.length; e++) {
+                sketch.addHashed(random.nextLong());
+            }
+
+            sketches.add(sketch);
+        }
+
+        return sketches;
+    }
+}
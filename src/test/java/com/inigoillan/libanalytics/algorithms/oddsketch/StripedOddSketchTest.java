@@ -0,0 +1,222 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class StripedOddSketchTest {
+    private static final int THREADS = 8;
+    private static final int HASHES_PER_THREAD = 20000;
+
+    @Test
+    public void AddHashed_SeveralThreads_SameBinsAsSequentialSketch() throws Exception {
+        // Arrange
+        Random random = new Random(5);
+        long[][] hashes = new long[THREADS][HASHES_PER_THREAD];
+        StripedOddSketch<Divisible> sketch = new StripedOddSketch<>(BucketingStrategy.forWidth(4096), 4);
+        OddSketch<Divisible> expected = new OddSketch<>(BucketingStrategy.forWidth(4096));
+
+        for (long[] threadHashes : hashes) {
+            for (int i = 0; i < threadHashes.length; i++) {
+                threadHashes[i] = random.nextLong();
+                expected.addHashed(threadHashes[i]);
+            }
+        }
+
+        // Act
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Future<?>[] futures = new Future<?>[THREADS];
+
+        for (int i = 0; i < THREADS; i++) {
+            long[] threadHashes = hashes[i];
+
+            futures[i] = executor.submit(() -> {
+                for (long hash : threadHashes) {
+                    sketch.addHashed(hash);
+                }
+            });
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        // Assert
+        assertArrayEquals(expected.getWords(), sketch.getWords());
+        assertEquals(expected.getElementsAdded(), sketch.getElementsAdded());
+        assertEquals(expected.estimateSetSize(), sketch.estimateSetSize());
+    }
+
+    @Test
+    public void GetWords_ElementAddedAfterRead_ReturnsUpdatedWords() {
+        // Arrange
+        StripedOddSketch<Divisible> sketch = new StripedOddSketch<>(BucketingStrategy.forWidth(128), 2);
+        sketch.addHashed(3L);
+        long[] before = sketch.getWords();
+
+        // Act
+        sketch.addHashed(70L);
+        long[] after = sketch.getWords();
+
+        // Assert
+        assertNotEquals(before[1], after[1]);
+        assertEquals(1L << 6, after[1]);
+        assertEquals(2, sketch.getOddBins());
+    }
+
+    @Test
+    public void AddHashedBatch_SeveralThreads_SameBinsAsSequentialSketch() throws Exception {
+        // Arrange
+        Random random = new Random(6);
+        long[][] hashes = new long[THREADS][HASHES_PER_THREAD];
+        StripedOddSketch<Divisible> sketch = new StripedOddSketch<>(BucketingStrategy.forWidth(1000), 4);
+        OddSketch<Divisible> expected = new OddSketch<>(BucketingStrategy.forWidth(1000));
+
+        for (long[] threadHashes : hashes) {
+            for (int i = 0; i < threadHashes.length; i++) {
+                threadHashes[i] = random.nextLong();
+            }
+
+            // The first and the last hashes are left out of the batches
+            for (int i = 1; i < threadHashes.length - 1; i++) {
+                expected.addHashed(threadHashes[i]);
+            }
+        }
+
+        // Act
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Future<?>[] futures = new Future<?>[THREADS];
+
+        for (int i = 0; i < THREADS; i++) {
+            long[] threadHashes = hashes[i];
+
+            futures[i] = executor.submit(() -> {
+                for (int from = 1; from < threadHashes.length - 1; from += 777) {
+                    sketch.addHashedBatch(threadHashes, from, Math.min(777, threadHashes.length - 1 - from));
+                }
+            });
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        // Assert
+        assertArrayEquals(expected.getWords(), sketch.getWords());
+        assertEquals(expected.getElementsAdded(), sketch.getElementsAdded());
+        assertEquals(expected.getOddBins(), sketch.getOddBins());
+    }
+
+    @Test
+    public void AddHashedBatch_BatchAddedAfterRead_ReturnsUpdatedWords() {
+        // Arrange
+        StripedOddSketch<Divisible> sketch = new StripedOddSketch<>(BucketingStrategy.forWidth(128), 2);
+        sketch.addHashed(3L);
+        int before = sketch.getOddBins();
+
+        // Act
+        sketch.addHashedBatch(new long[]{70L, 71L, 3L}, 0, 3);
+
+        // Assert
+        assertEquals(1, before);
+        assertEquals(2, sketch.getOddBins());
+        assertEquals(4, sketch.getElementsAdded());
+        assertEquals((1L << 6) | (1L << 7), sketch.getWords()[1]);
+    }
+
+    @Test
+    public void AddHashedBatch_HashOutOfTheSketch_CountsTheHashesAddedBeforeIt() {
+        // Arrange
+        StripedOddSketch<Divisible> sketch = new StripedOddSketch<Divisible>(BucketingStrategy.forWidth(128), 2) {
+            @Override
+            protected int getBucket(long hash) {
+                return hash == 42L ? -1 : super.getBucket(hash);
+            }
+        };
+
+        // Act
+        try {
+            sketch.addHashedBatch(new long[]{3L, 70L, 42L, 71L}, 0, 4);
+            fail("The batch should have thrown");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        // Assert
+        assertEquals(2, sketch.getOddBins());
+        assertEquals(2, sketch.getElementsAdded());
+        assertArrayEquals(new long[]{1L << 3, 1L << 6}, sketch.getWords());
+    }
+
+    @Test
+    public void SetSize_SmallerSize_KeepsTheBinsBelowTheSize() {
+        // Arrange
+        StripedOddSketch<Divisible> sketch = new StripedOddSketch<>(BucketingStrategy.forWidth(128), 2);
+        sketch.addHashed(3L);
+        sketch.addHashed(40L);
+        sketch.addHashed(70L);
+
+        // Act
+        sketch.setSize(32);
+
+        // Assert
+        assertArrayEquals(new long[]{1L << 3}, sketch.getWords());
+        assertEquals(1, sketch.getOddBins());
+    }
+
+    @Test
+    public void Ctor_StripesNotPowerOfTwo_RoundsUp() {
+        // Act
+        StripedOddSketch<Divisible> sketch = new StripedOddSketch<>(BucketingStrategy.forWidth(128), 5);
+
+        // Assert
+        assertEquals(8, sketch.getStripeCount());
+    }
+
+    @Test
+    public void Merge_StripedSketches_SameAsMergingSequentialSketches() {
+        // Arrange
+        StripedOddSketch<Divisible> sketch1 = new StripedOddSketch<>(BucketingStrategy.forWidth(256), 2);
+        StripedOddSketch<Divisible> sketch2 = new StripedOddSketch<>(BucketingStrategy.forWidth(1024), 2);
+        OddSketch<Divisible> expected1 = new OddSketch<>(BucketingStrategy.forWidth(256));
+        OddSketch<Divisible> expected2 = new OddSketch<>(BucketingStrategy.forWidth(1024));
+        Random random = new Random(9);
+
+        for (int i = 0; i < 300; i++) {
+            long hash = random.nextLong();
+
+            if (i % 2 == 0) {
+                sketch1.addHashed(hash);
+                expected1.addHashed(hash);
+            } else {
+                sketch2.addHashed(hash);
+                expected2.addHashed(hash);
+            }
+        }
+
+        // Act
+        OddSketch<Divisible> result = sketch1.merge(sketch2);
+
+        // Assert
+        assertEquals(StripedOddSketch.class, result.getClass());
+        assertEquals(expected1.merge(expected2), result);
+    }
+}
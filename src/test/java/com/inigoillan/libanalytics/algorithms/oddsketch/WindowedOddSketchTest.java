@@ -0,0 +1,137 @@
+package com.inigoillan.libanalytics.algorithms.oddsketch;
+
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class WindowedOddSketchTest {
+    private static final int SIZE = 1000;
+    private static final int HASHES_PER_EPOCH = 300;
+
+    @Test
+    public void AdvanceEpoch_SeveralEpochs_SameAsSketchOfTheWindow() {
+        // Arrange
+        Random random = new Random(19);
+        long[][] hashes = new long[6][HASHES_PER_EPOCH];
+        WindowedOddSketch<Divisible> sketch = new WindowedOddSketch<>(BucketingStrategy.forWidth(SIZE), 3);
+        OddSketch<Divisible> expected = new OddSketch<>(BucketingStrategy.forWidth(SIZE));
+
+        // Act
+        for (int epoch = 0; epoch < hashes.length; epoch++) {
+            if (epoch > 0) {
+                sketch.advanceEpoch();
+            }
+
+            for (int i = 0; i < HASHES_PER_EPOCH; i++) {
+                hashes[epoch][i] = random.nextLong();
+                sketch.addHashed(hashes[epoch][i]);
+            }
+        }
+
+        for (int epoch = 3; epoch < hashes.length; epoch++) {
+            for (long hash : hashes[epoch]) {
+                expected.addHashed(hash);
+            }
+        }
+
+        // Assert
+        assertArrayEquals(expected.getWords(), sketch.getWords());
+        assertEquals(expected.getElementsAdded(), sketch.getElementsAdded());
+        assertEquals(expected.getOddBins(), sketch.getOddBins());
+        assertEquals(5, sketch.getCurrentEpoch());
+    }
+
+    @Test
+    public void AdvanceToEpoch_PastTheWholeWindow_ClearsTheSketch() {
+        // Arrange
+        WindowedOddSketch<Divisible> sketch = new WindowedOddSketch<>(BucketingStrategy.forWidth(SIZE), 4);
+        sketch.addHashed(1L);
+        sketch.advanceEpoch();
+        sketch.addHashed(2L);
+
+        // Act
+        sketch.advanceToEpoch(10);
+
+        // Assert
+        assertEquals(new OddSketch<>(BucketingStrategy.forWidth(SIZE)), sketch);
+        assertEquals(0, sketch.getOddBins());
+        assertEquals(10, sketch.getCurrentEpoch());
+    }
+
+    @Test
+    public void AdvanceToEpoch_WithinTheWindow_KeepsTheLastEpochs() {
+        // Arrange
+        WindowedOddSketch<Divisible> sketch = new WindowedOddSketch<>(BucketingStrategy.forWidth(SIZE), 3);
+        OddSketch<Divisible> expected = new OddSketch<>(BucketingStrategy.forWidth(SIZE));
+        sketch.addHashed(1L);
+        sketch.advanceToEpoch(1);
+        sketch.addHashed(2L);
+        expected.addHashed(2L);
+
+        // Act
+        sketch.advanceToEpoch(3);
+
+        // Assert
+        assertEquals(expected, sketch);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void AdvanceToEpoch_PreviousEpoch_ThrowsException() {
+        // Arrange
+        WindowedOddSketch<Divisible> sketch = new WindowedOddSketch<>(BucketingStrategy.forWidth(SIZE), 3);
+        sketch.advanceToEpoch(5);
+
+        // Act
+        sketch.advanceToEpoch(4);
+    }
+
+    @Test
+    public void MergeInto_WindowedSketch_MergedIntoTheCurrentEpoch() {
+        // Arrange
+        WindowedOddSketch<Divisible> sketch = new WindowedOddSketch<>(BucketingStrategy.forWidth(SIZE), 2);
+        WindowedOddSketch<Divisible> other = new WindowedOddSketch<>(BucketingStrategy.forWidth(SIZE), 2);
+        OddSketch<Divisible> expected = new OddSketch<>(BucketingStrategy.forWidth(SIZE));
+        other.addHashed(7L);
+        sketch.addHashed(3L);
+        sketch.advanceEpoch();
+        sketch.addHashed(5L);
+        expected.addHashed(5L);
+        expected.addHashed(7L);
+
+        // Act
+        other.mergeInto(sketch);
+        sketch.advanceEpoch();
+
+        // Assert
+        assertEquals(expected, sketch);
+    }
+
+    @Test
+    public void Clone_AdvancingTheClone_OriginalNotModified() {
+        // Arrange
+        WindowedOddSketch<Divisible> sketch = new WindowedOddSketch<>(BucketingStrategy.forWidth(SIZE), 2);
+        sketch.addHashed(3L);
+        sketch.advanceEpoch();
+        sketch.addHashed(5L);
+        OddSketch<Divisible> expected = new OddSketch<>(BucketingStrategy.forWidth(SIZE));
+        expected.addHashed(5L);
+
+        // Act
+        WindowedOddSketch<Divisible> clone = sketch.clone();
+        clone.advanceEpoch();
+
+        // Assert
+        assertEquals(2, sketch.getElementsAdded());
+        assertEquals(expected, clone);
+        assertEquals(1, sketch.getCurrentEpoch());
+    }
+}
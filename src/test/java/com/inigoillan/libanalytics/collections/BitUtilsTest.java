@@ -0,0 +1,98 @@
+package com.inigoillan.libanalytics.collections;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class BitUtilsTest {
+    @Test
+    public void Cardinality_GivenRandomWords_ReturnsSameAsBitSet() {
+        // Arrange
+        long[] words = randomWords(1, 13);
+
+        // Act
+        int result = BitUtils.cardinality(words, words.length);
+
+        // Assert
+        assertEquals(BitSet.valueOf(words).cardinality(), result);
+    }
+
+    @Test
+    public void XorCardinality_GivenRandomWords_ReturnsSameAsBitSet() {
+        // Arrange
+        long[] words = randomWords(1, 13);
+        long[] otherWords = randomWords(2, 13);
+
+        BitSet expected = BitSet.valueOf(words);
+        expected.xor(BitSet.valueOf(otherWords));
+
+        // Act
+        int result = BitUtils.xorCardinality(words, otherWords, words.length);
+
+        // Assert
+        assertEquals(expected.cardinality(), result);
+    }
+
+    @Test
+    public void Xor_GivenRandomWords_ReturnsSameAsBitSet() {
+        // Arrange
+        long[] words = randomWords(1, 13);
+        long[] otherWords = randomWords(2, 13);
+
+        BitSet expected = BitSet.valueOf(words);
+        expected.xor(BitSet.valueOf(otherWords));
+
+        // Act
+        BitUtils.xor(words, otherWords, words.length);
+
+        // Assert
+        assertEquals(expected, BitSet.valueOf(words));
+    }
+
+    @Test
+    public void CountEqualFields_IdenticalWords_ReturnsFieldCount() {
+        // Arrange
+        long[] words = randomWords(1, 4);
+
+        // Act
+        int result = BitUtils.countEqualFields(words, words.clone(), 4, 64);
+
+        // Assert
+        assertEquals(64, result);
+    }
+
+    @Test
+    public void CountEqualFields_OneBitDifferentInEachWord_ReturnsFieldCountMinusWords() {
+        // Arrange
+        long[] words = randomWords(1, 4);
+        long[] otherWords = words.clone();
+
+        for (int i = 0; i < otherWords.length; i++) {
+            otherWords[i] ^= 1L << (i * 7);
+        }
+
+        // Act
+        int result = BitUtils.countEqualFields(words, otherWords, 8, 32);
+
+        // Assert
+        assertEquals(28, result);
+    }
+
+    private long[] randomWords(int seed, int length) {
+        Random random = new Random(seed);
+        long[] words = new long[length];
+
+        for (int i = 0; i < length; i++) {
+            words[i] = random.nextLong();
+        }
+
+        return words;
+    }
+}
@@ -0,0 +1,59 @@
+package com.inigoillan.libanalytics.collections;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class LongHashSetTest {
+    @Test
+    public void Add_ExistingElement_ReturnsFalse() {
+        // Arrange
+        LongHashSet set = new LongHashSet(4);
+        set.add(42L);
+
+        // Act
+        boolean added = set.add(42L);
+
+        // Assert
+        assertFalse(added);
+        assertTrue(set.contains(42L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void AddAndRemove_RandomOperations_BehavesAsHashSet() {
+        // Arrange
+        LongHashSet set = new LongHashSet(0);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(2);
+
+        // Act
+        for (int i = 0; i < 100000; i++) {
+            // Few distinct elements, so the probe sequences collide and removals shift elements back
+            long element = random.nextInt(2000) * 1024L;
+
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(element), set.add(element));
+            } else {
+                assertEquals(expected.remove(element), set.remove(element));
+            }
+        }
+
+        // Assert
+        assertEquals(expected.size(), set.size());
+
+        for (long element = 0; element < 2000 * 1024L; element += 1024L) {
+            assertEquals(expected.contains(element), set.contains(element));
+        }
+    }
+}
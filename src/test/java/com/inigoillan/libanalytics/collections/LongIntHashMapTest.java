@@ -0,0 +1,88 @@
+package com.inigoillan.libanalytics.collections;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class LongIntHashMapTest {
+    @Test
+    public void Get_MissingKey_ReturnsMissingValue() {
+        // Arrange
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+
+        // Act
+        int result = map.get(42L);
+
+        // Assert
+        assertEquals(-1, result);
+    }
+
+    @Test
+    public void Put_ExistingKey_ReplacesValueAndReturnsPrevious() {
+        // Arrange
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+        map.put(42L, 1);
+
+        // Act
+        int previous = map.put(42L, 2);
+
+        // Assert
+        assertEquals(1, previous);
+        assertEquals(2, map.get(42L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void PutAndRemove_RandomOperations_BehavesAsHashMap() {
+        // Arrange
+        LongIntHashMap map = new LongIntHashMap(0, -1);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(1);
+
+        // Act
+        for (int i = 0; i < 100000; i++) {
+            // Few distinct keys, so the probe sequences collide and removals shift entries back
+            long key = random.nextInt(2000) * 1024L;
+
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertEquals((int) expected.getOrDefault(key, -1), map.remove(key));
+                expected.remove(key);
+            }
+        }
+
+        // Assert
+        assertEquals(expected.size(), map.size());
+
+        for (long key = 0; key < 2000 * 1024L; key += 1024) {
+            assertEquals((int) expected.getOrDefault(key, -1), map.get(key));
+        }
+    }
+
+    @Test
+    public void ContainsKey_RemovedKey_ReturnsFalse() {
+        // Arrange
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+        map.put(7L, 1);
+        map.put(8L, 2);
+
+        // Act
+        map.remove(7L);
+
+        // Assert
+        assertFalse(map.containsKey(7L));
+        assertTrue(map.containsKey(8L));
+    }
+}
@@ -78,6 +78,47 @@ public class PackedBitsSetTest {
         }
     }
 
+    @Test
+    public void CountEqualPositions_RandomSetsOfSeveralBitSizes_ReturnsSameAsComparingEachPosition() {
+        for (int bits = 1; bits < 31; bits++) {
+            // Arrange
+            int setSize = 77;
+            PackedBitsSet set = new PackedBitsSet(bits, setSize);
+            PackedBitsSet other = new PackedBitsSet(bits, setSize);
+            Random random = new Random(bits);
+            int mask = (1 << bits) - 1;
+
+            for (int i = 0; i < setSize; i++) {
+                int value = random.nextInt() & mask;
+                set.setIthBits(i, value);
+                other.setIthBits(i, random.nextBoolean() ? value : random.nextInt() & mask);
+            }
+
+            int expected = 0;
+
+            for (int i = 0; i < setSize; i++) {
+                if (set.getIthBits(i) == other.getIthBits(i)) {
+                    expected++;
+                }
+            }
+
+            // Act
+            int result = set.countEqualPositions(other);
+
+            // Assert
+            assertEquals("Bit size " + bits, expected, result);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void CountEqualPositions_DifferentBitSizes_ThrowsIllegalArgumentException() {
+        // Arrange
+        PackedBitsSet set = new PackedBitsSet(2, 64);
+        PackedBitsSet other = new PackedBitsSet(4, 64);
+
+        // Act
+        set.countEqualPositions(other);
+    }
 
     private int setAndGetIthBits(PackedBitsSet set, int position, int value) {
         set.setIthBits(position, value);
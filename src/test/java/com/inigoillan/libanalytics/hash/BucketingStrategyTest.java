@@ -0,0 +1,69 @@
+package com.inigoillan.libanalytics.hash;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class BucketingStrategyTest {
+
+    @Test
+    public void ForWidth_GivenPowerOfTwo_ReturnMaskStrategy() throws Exception {
+        // Act
+        BucketingStrategy strategy = BucketingStrategy.forWidth(1024);
+
+        // Assert
+        assertEquals(BucketingStrategy.mask(1024), strategy);
+    }
+
+    @Test
+    public void ForWidth_GivenNonPowerOfTwo_ReturnMultiplyShiftStrategy() throws Exception {
+        // Act
+        BucketingStrategy strategy = BucketingStrategy.forWidth(1000);
+
+        // Assert
+        assertEquals(BucketingStrategy.multiplyShift(1000), strategy);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Mask_GivenNonPowerOfTwo_Throws() throws Exception {
+        BucketingStrategy.mask(1000);
+    }
+
+    @Test
+    public void Bucket_GivenRandomHashes_ReturnBucketsInRange() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        BucketingStrategy[] strategies = new BucketingStrategy[] {BucketingStrategy.modulo(1000),
+                BucketingStrategy.mask(1024), BucketingStrategy.multiplyShift(1000)};
+
+        for (BucketingStrategy strategy : strategies) {
+            for (int i = 0; i < 10000; i++) {
+                // Act
+                int longBucket = strategy.bucket(random.nextLong());
+                int intBucket = strategy.bucket(random.nextInt());
+
+                // Assert
+                assertTrue(longBucket >= 0 && longBucket < strategy.getWidth());
+                assertTrue(intBucket >= 0 && intBucket < strategy.getWidth());
+            }
+        }
+    }
+
+    @Test
+    public void Bucket_MaskAndModuloWithPowerOfTwoWidth_ReturnSameBuckets() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        BucketingStrategy mask = BucketingStrategy.mask(64);
+        BucketingStrategy modulo = BucketingStrategy.modulo(64);
+
+        for (int i = 0; i < 1000; i++) {
+            long hash = random.nextLong();
+
+            // Act & Assert
+            assertEquals(modulo.bucket(hash), mask.bucket(hash));
+        }
+    }
+}
@@ -128,6 +128,36 @@ public class Hash64BitsTest {
     //endregion
 
 
+    //region Bucket tests
+
+    @Test
+    public void Bucket_NegativeHashWithModuloBucketing_SameBucketAsPrimitiveHash() throws Exception {
+        // Arrange
+        BucketingStrategy bucketing = BucketingStrategy.modulo(10);
+        Hash64Bits hash = new Hash64Bits(-1);
+
+        // Act
+        int result = hash.bucket(bucketing);
+
+        // Assert
+        assertEquals(bucketing.bucket(-1L), result);
+    }
+
+    @Test
+    public void Bucket_MaskBucketing_ReturnsTheLowBits() throws Exception {
+        // Arrange
+        Hash64Bits hash = new Hash64Bits(0xABCDL << 32 | 0x1234);
+
+        // Act
+        int result = hash.bucket(BucketingStrategy.mask(256));
+
+        // Assert
+        assertEquals(0x34, result);
+    }
+
+    //endregion
+
+
     //region Helper methods
 
     private String getErrorMessage(long hashValue, long expected, long result) {
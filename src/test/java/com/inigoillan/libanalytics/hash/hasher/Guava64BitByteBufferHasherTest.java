@@ -0,0 +1,58 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+
+public class Guava64BitByteBufferHasherTest {
+
+    @Test
+    public void HashToLong_GivenHeapBufferSlice_ReturnSameHashAsArray() throws Exception {
+        // Arrange
+        ByteBuffer buffer = ByteBuffer.wrap("xxa longer test stringxx".getBytes());
+        buffer.position(2);
+        buffer.limit(buffer.limit() - 2);
+
+        Guava64BitByteBufferHasher hasher = new Guava64BitByteBufferHasher(hashFunction());
+
+        // Act
+        long hash = hasher.hashToLong(buffer);
+
+        // Assert
+        assertEquals(expectedHash("a longer test string"), hash);
+        assertEquals(2, buffer.position());
+    }
+
+    @Test
+    public void HashToLong_GivenDirectBufferSlice_ReturnSameHashAsArray() throws Exception {
+        // Arrange
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            byte[] bytes = "xxa longer test stringxx".getBytes();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).order(order);
+            buffer.put(bytes);
+            buffer.position(2);
+            buffer.limit(bytes.length - 2);
+
+            Guava64BitByteBufferHasher hasher = new Guava64BitByteBufferHasher(hashFunction());
+
+            // Act
+            long hash = hasher.hashToLong(buffer);
+
+            // Assert
+            assertEquals(expectedHash("a longer test string"), hash);
+        }
+    }
+
+    private long expectedHash(String element) {
+        return new Guava64BitHasher(hashFunction()).hashToLong(element.getBytes());
+    }
+
+    private HashFunction hashFunction() {
+        return Hashing.murmur3_128(42);
+    }
+}
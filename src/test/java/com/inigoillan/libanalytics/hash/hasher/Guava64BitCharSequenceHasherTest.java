@@ -0,0 +1,23 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import com.google.common.hash.Hashing;
+import com.inigoillan.libanalytics.hash.Hash64Bits;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class Guava64BitCharSequenceHasherTest {
+
+    @Test
+    public void Hash_GivenStringAndStringBuilder_ReturnSameHash() throws Exception {
+        // Arrange
+        Guava64BitCharSequenceHasher hasher = new Guava64BitCharSequenceHasher(Hashing.murmur3_128());
+
+        // Act
+        Hash64Bits hash = hasher.hash("test");
+        long otherHash = hasher.hashToLong(new StringBuilder("te").append("st"));
+
+        // Assert
+        assertEquals(new Hash64Bits(otherHash), hash);
+    }
+}
@@ -2,9 +2,11 @@ package com.inigoillan.libanalytics.hash.hasher;
 
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import com.inigoillan.libanalytics.hash.Hash64Bits;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
@@ -29,4 +31,38 @@ public class Guava64BitHasherTest {
 
         assertEquals(expectedHash, hash);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void HashToLongBatch_GivenArrays_ReturnSameHashesAsOneByOne() throws Exception {
+        // Arrange
+        byte[][] elements = new byte[][] {"a".getBytes(), "test".getBytes(), "another".getBytes()};
+        Guava64BitHasher hasher = new Guava64BitHasher(Hashing.murmur3_128());
+        long[] hashes = new long[2];
+
+        // Act
+        hasher.hashToLongBatch(elements, 1, 2, hashes);
+
+        // Assert
+        long[] expected = new long[] {hasher.hashToLong(elements[1]), hasher.hashToLong(elements[2])};
+
+        assertArrayEquals(expected, hashes);
+    }
+
+    @Test
+    public void HashToLongBatch_GivenContiguousBuffer_ReturnSameHashesAsOneByOne() throws Exception {
+        // Arrange
+        byte[] buffer = "atestanother".getBytes();
+        int[] offsets = new int[] {0, 1, 5, 12};
+        Guava64BitHasher hasher = new Guava64BitHasher(Hashing.murmur3_128());
+        long[] hashes = new long[3];
+
+        // Act
+        hasher.hashToLongBatch(buffer, offsets, 3, hashes);
+
+        // Assert
+        long[] expected = new long[] {hasher.hashToLong("a".getBytes()), hasher.hashToLong("test".getBytes()),
+                hasher.hashToLong("another".getBytes())};
+
+        assertArrayEquals(expected, hashes);
+    }
+}
@@ -0,0 +1,55 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class Murmur3128HasherTest {
+
+    @Test
+    public void HashTo128_GivenRandomInputs_ReturnSameHashAsGuava() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        long[] hash = new long[2];
+
+        for (int length = 0; length < 100; length++) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            int seed = random.nextInt(Integer.MAX_VALUE);
+
+            Murmur3128Hasher hasher = new Murmur3128Hasher(seed);
+            byte[] expected = Hashing.murmur3_128(seed).hashBytes(bytes).asBytes();
+
+            // Act
+            hasher.hashTo128(bytes, 0, length, hash);
+
+            // Assert
+            byte[] result = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putLong(hash[0]).putLong(hash[1]).array();
+
+            assertArrayEquals(expected, result);
+            assertEquals(hash[0], hasher.hashToLong(bytes));
+        }
+    }
+
+    @Test
+    public void HashToLong_GivenLong_ReturnSameHashAsGuava() throws Exception {
+        // Arrange
+        Murmur3128Hasher hasher = new Murmur3128Hasher(42);
+        long value = 0x0123456789ABCDEFL;
+
+        // Act
+        long hash = hasher.hashToLong(value);
+
+        // Assert
+        HashCode expected = Hashing.murmur3_128(42).hashLong(value);
+
+        assertEquals(expected.asLong(), hash);
+    }
+}
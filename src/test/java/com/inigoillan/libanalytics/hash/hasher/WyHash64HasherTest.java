@@ -0,0 +1,43 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+
+public class WyHash64HasherTest {
+
+    @Test
+    public void HashToLong_GivenReferenceInputs_ReturnReferenceHashes() throws Exception {
+        // Arrange
+        String[] messages = new String[] {"", "a", "abc", "message digest", "abcdefghijklmnopqrstuvwxyz",
+                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789",
+                "12345678901234567890123456789012345678901234567890123456789012345678901234567890"};
+        long[] expected = new long[] {0x93228A4DE0EEC5A2L, 0xC5BAC3DB178713C4L, 0xA97F2F7B1D9B3314L,
+                0x786D1F1DF3801DF4L, 0xDCA5A8138AD37C87L, 0xB9E734F117CFAF70L, 0x6CC5EAB49A92D617L};
+
+        for (int i = 0; i < messages.length; i++) {
+            // Act
+            long hash = new WyHash64Hasher(i).hashToLong(messages[i].getBytes());
+
+            // Assert
+            assertEquals(expected[i], hash);
+        }
+    }
+
+    @Test
+    public void HashToLong_GivenLong_ReturnSameHashAsLittleEndianBytes() throws Exception {
+        // Arrange
+        WyHash64Hasher hasher = new WyHash64Hasher(42);
+        long value = 0x0123456789ABCDEFL;
+        byte[] bytes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array();
+
+        // Act
+        long hash = hasher.hashToLong(value);
+
+        // Assert
+        assertEquals(hasher.hashToLong(bytes), hash);
+    }
+}
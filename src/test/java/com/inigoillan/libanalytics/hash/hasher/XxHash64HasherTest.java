@@ -0,0 +1,91 @@
+package com.inigoillan.libanalytics.hash.hasher;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+
+public class XxHash64HasherTest {
+    private static final long PRIME32 = 2654435761L;
+
+    @Test
+    public void HashToLong_GivenReferenceInputs_ReturnReferenceHashes() throws Exception {
+        // Arrange
+        XxHash64Hasher hasher = new XxHash64Hasher();
+
+        // Act & Assert
+        assertEquals(0xEF46DB3751D8E999L, hasher.hashToLong(new byte[0]));
+        assertEquals(0xD24EC4F1A98C6E5BL, hasher.hashToLong("a".getBytes()));
+        assertEquals(0x44BC2CF5AD770999L, hasher.hashToLong("abc".getBytes()));
+    }
+
+    @Test
+    public void HashToLong_GivenInputsLongerThanAStripe_ReturnReferenceHashes() throws Exception {
+        // Arrange
+        XxHash64Hasher hasher = new XxHash64Hasher();
+
+        // Act & Assert
+        assertEquals(0x0B242D361FDA71BCL, hasher.hashToLong("The quick brown fox jumps over the lazy dog".getBytes()));
+        assertEquals(0x26AD65A8798B82A2L, hasher.hashToLong(sanityBuffer(32)));
+        assertEquals(0xFF8999AF2936375BL, hasher.hashToLong(sanityBuffer(222)));
+        assertEquals(0x338BA82BC8A5B767L, hasher.hashToLong(sanityBuffer(2048)));
+    }
+
+    @Test
+    public void HashToLong_GivenSeed_ReturnReferenceHashes() throws Exception {
+        // Arrange
+        XxHash64Hasher hasher = new XxHash64Hasher(PRIME32);
+
+        // Act & Assert
+        assertEquals(0xAC75FDA2929B17EFL, hasher.hashToLong(sanityBuffer(0)));
+        assertEquals(0x5014607643A9B4C3L, hasher.hashToLong(sanityBuffer(1)));
+        assertEquals(0xFB53F4DF60AEE33DL, hasher.hashToLong(sanityBuffer(14)));
+        assertEquals(0xA9B72B88DEE40F9FL, hasher.hashToLong(sanityBuffer(32)));
+        assertEquals(0xE7754079F0861361L, hasher.hashToLong(sanityBuffer(222)));
+    }
+
+    @Test
+    public void HashToLong_GivenSlice_ReturnSameHashAsArray() throws Exception {
+        // Arrange
+        XxHash64Hasher hasher = new XxHash64Hasher(42);
+        String element = "a string longer than thirty two bytes, so all the stages are used";
+        byte[] buffer = ("xx" + element + "xx").getBytes();
+
+        // Act
+        long hash = hasher.hashToLong(buffer, 2, element.length());
+
+        // Assert
+        assertEquals(hasher.hashToLong(element.getBytes()), hash);
+    }
+
+    @Test
+    public void HashToLong_GivenLong_ReturnSameHashAsLittleEndianBytes() throws Exception {
+        // Arrange
+        XxHash64Hasher hasher = new XxHash64Hasher(42);
+        long value = 0x0123456789ABCDEFL;
+        byte[] bytes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array();
+
+        // Act
+        long hash = hasher.hashToLong(value);
+
+        // Assert
+        assertEquals(hasher.hashToLong(bytes), hash);
+    }
+
+    /**
+     * Builds the sanity buffer the reference implementation (xxhsum) tests its hashes with
+     */
+    private static byte[] sanityBuffer(int length) {
+        byte[] buffer = new byte[length];
+        long generator = PRIME32;
+
+        for (int i = 0; i < length; i++) {
+            buffer[i] = (byte) (generator >>> 56);
+            generator *= 0x9E3779B97F4A7C15L;
+        }
+
+        return buffer;
+    }
+}
@@ -0,0 +1,57 @@
+package com.inigoillan.libanalytics.metrics;
+
+import com.inigoillan.libanalytics.algorithms.oddsketch.OddSketch;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Runs with no listener registered, as the one of {@link SketchMetricsTest} is only on the classpath of its own
+ * surefire execution
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class SketchMetricsDefaultListenerTest {
+
+    @Test
+    public void GetListener_NoListenerRegistered_ReturnsListenerWithoutTiming() {
+        // Act
+        SketchMetricsListener listener = SketchMetrics.getListener();
+
+        // Assert
+        assertFalse(listener instanceof SketchMetricsTest.CountingListener);
+        assertFalse(listener.isTimingEnabled());
+    }
+
+    @Test
+    public void StartEstimate_NoListenerRegistered_ReturnsZero() {
+        // Act
+        long start = SketchMetrics.startEstimate();
+
+        // Assert
+        assertEquals(0L, start);
+    }
+
+    @Test
+    public void OddSketch_AddMergeAndEstimate_SameResultsWithoutListener() {
+        // Arrange
+        OddSketch<Divisible> sketch = new OddSketch<>(BucketingStrategy.mask(1024));
+        OddSketch<Divisible> target = new OddSketch<>(BucketingStrategy.mask(512));
+        OddSketch<Divisible> expected = new OddSketch<>(BucketingStrategy.mask(512));
+        expected.addHashedBatch(new long[]{1L, 2L, 3L, 4L}, 0, 4);
+
+        // Act
+        sketch.addHashed(1L);
+        sketch.addHashedBatch(new long[]{2L, 3L, 4L}, 0, 3);
+        sketch.mergeInto(target);
+        SketchMetrics.onEstimate(SketchKind.ODD_SKETCH, SketchMetrics.startEstimate());
+
+        // Assert
+        assertEquals(expected, target);
+        assertEquals(expected.estimateSetSize(), target.estimateSetSize());
+    }
+}
@@ -0,0 +1,213 @@
+package com.inigoillan.libanalytics.metrics;
+
+import com.inigoillan.libanalytics.algorithms.countminsketch.CountMinSketch;
+import com.inigoillan.libanalytics.algorithms.minhash.MinHash;
+import com.inigoillan.libanalytics.algorithms.oddsketch.AdaptiveOddSketch;
+import com.inigoillan.libanalytics.algorithms.oddsketch.OddSketch;
+import com.inigoillan.libanalytics.algorithms.oddsketch.OffHeapOddSketch;
+import com.inigoillan.libanalytics.hash.BucketingStrategy;
+import com.inigoillan.libanalytics.hash.Divisible;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The listener counting the events is registered in META-INF/services under src/test/metrics, which is only on the
+ * classpath of the surefire execution running this class alone, so the rest of the tests use the default listener.
+ * The counts are compared before and after every action, which holds as long as the tests of this class run one
+ * after the other
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class SketchMetricsTest {
+
+    @Test
+    public void GetListener_ListenerRegisteredAsService_ReturnsIt() {
+        // Act
+        SketchMetricsListener listener = SketchMetrics.getListener();
+
+        // Assert
+        assertTrue(listener instanceof CountingListener);
+    }
+
+    @Test
+    public void OddSketch_AddMergeAndEstimate_Reported() {
+        // Arrange
+        OddSketch<Divisible> sketch = new OddSketch<>(BucketingStrategy.mask(1024));
+        OddSketch<Divisible> target = new OddSketch<>(BucketingStrategy.mask(512));
+        CountingListener.Counts before = CountingListener.getCounts(SketchKind.ODD_SKETCH);
+
+        // Act
+        sketch.addHashed(1L);
+        sketch.addHashedBatch(new long[]{2L, 3L, 4L}, 0, 3);
+        sketch.mergeInto(target);
+        sketch.estimateSetSize();
+
+        // Assert
+        CountingListener.Counts after = CountingListener.getCounts(SketchKind.ODD_SKETCH);
+
+        assertEquals(4, after.elementsAdded - before.elementsAdded);
+        assertEquals(1, after.merges - before.merges);
+        assertEquals(1, after.folds - before.folds);
+        assertEquals(1, after.estimates - before.estimates);
+    }
+
+    @Test
+    public void OddSketch_Allocated_ReportsTheBytesOfTheWords() {
+        // Arrange
+        CountingListener.Counts before = CountingListener.getCounts(SketchKind.ODD_SKETCH);
+
+        // Act
+        new OddSketch<>(BucketingStrategy.forWidth(1000));
+
+        // Assert
+        CountingListener.Counts after = CountingListener.getCounts(SketchKind.ODD_SKETCH);
+
+        assertEquals(16 * 8, after.bytesAllocated - before.bytesAllocated);
+    }
+
+    @Test
+    public void AdaptiveOddSketch_TurnedDense_ReportsTheBytesOfTheWords() {
+        // Arrange
+        AdaptiveOddSketch<Divisible> sketch = new AdaptiveOddSketch<>(BucketingStrategy.mask(1024));
+        CountingListener.Counts before = CountingListener.getCounts(SketchKind.ODD_SKETCH);
+
+        // Act
+        for (long hash = 0; hash < 1024; hash += 2) {
+            sketch.addHashed(hash);
+        }
+
+        // Assert
+        CountingListener.Counts after = CountingListener.getCounts(SketchKind.ODD_SKETCH);
+
+        assertFalse(sketch.isSparse());
+        assertTrue(after.bytesAllocated - before.bytesAllocated >= 16 * 8);
+    }
+
+    @Test
+    public void OffHeapOddSketch_AllocatedDirect_ReportsTheBytesOfTheBuffer() {
+        // Arrange
+        CountingListener.Counts before = CountingListener.getCounts(SketchKind.ODD_SKETCH);
+
+        // Act
+        OffHeapOddSketch<Divisible> sketch = OffHeapOddSketch.allocateDirect(BucketingStrategy.mask(1024));
+
+        // Assert
+        CountingListener.Counts after = CountingListener.getCounts(SketchKind.ODD_SKETCH);
+
+        assertEquals(sketch.getSerializedSize(), after.bytesAllocated - before.bytesAllocated);
+    }
+
+    @Test
+    public void CountMinSketch_AddCount_ReportsTheCount() {
+        // Arrange
+        CountMinSketch<Divisible> sketch = new CountMinSketch<>(3, 100);
+        CountingListener.Counts before = CountingListener.getCounts(SketchKind.COUNT_MIN_SKETCH);
+
+        // Act
+        sketch.addHashed(5, new long[]{1L, 2L, 3L});
+        sketch.estimatePointQuery(new long[]{1L, 2L, 3L});
+
+        // Assert
+        CountingListener.Counts after = CountingListener.getCounts(SketchKind.COUNT_MIN_SKETCH);
+
+        assertEquals(5, after.elementsAdded - before.elementsAdded);
+        assertEquals(1, after.estimates - before.estimates);
+    }
+
+    @Test
+    public void MinHash_MergeAndEstimate_Reported() {
+        // Arrange
+        MinHash<Integer> minHash = new MinHash<>(10);
+        MinHash<Integer> other = new MinHash<>(10);
+        minHash.addHashed(1);
+        other.addHashed(2);
+        CountingListener.Counts before = CountingListener.getCounts(SketchKind.MIN_HASH);
+
+        // Act
+        minHash.merge(other);
+        minHash.estimateJaccardIndex(other);
+
+        // Assert
+        CountingListener.Counts after = CountingListener.getCounts(SketchKind.MIN_HASH);
+
+        assertEquals(1, after.merges - before.merges);
+        assertEquals(1, after.estimates - before.estimates);
+    }
+
+    public static class CountingListener implements SketchMetricsListener {
+        private static final Map<SketchKind, LongAdder[]> COUNTERS = new EnumMap<>(SketchKind.class);
+
+        static {
+            for (SketchKind kind : SketchKind.values()) {
+                LongAdder[] counters = new LongAdder[5];
+
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] = new LongAdder();
+                }
+
+                COUNTERS.put(kind, counters);
+            }
+        }
+
+        static Counts getCounts(SketchKind kind) {
+            LongAdder[] counters = COUNTERS.get(kind);
+
+            return new Counts(counters[0].sum(), counters[1].sum(), counters[2].sum(), counters[3].sum(),
+                    counters[4].sum());
+        }
+
+        @Override
+        public boolean isTimingEnabled() {
+            return true;
+        }
+
+        @Override
+        public void onElementsAdded(SketchKind kind, long elements) {
+            COUNTERS.get(kind)[0].add(elements);
+        }
+
+        @Override
+        public void onMerge(SketchKind kind) {
+            COUNTERS.get(kind)[1].increment();
+        }
+
+        @Override
+        public void onFold(SketchKind kind, int fromSize, int toSize) {
+            COUNTERS.get(kind)[2].increment();
+        }
+
+        @Override
+        public void onEstimate(SketchKind kind, long nanos) {
+            COUNTERS.get(kind)[3].increment();
+        }
+
+        @Override
+        public void onAllocated(SketchKind kind, long bytes) {
+            COUNTERS.get(kind)[4].add(bytes);
+        }
+
+        static final class Counts {
+            final long elementsAdded;
+            final long merges;
+            final long folds;
+            final long estimates;
+            final long bytesAllocated;
+
+            Counts(long elementsAdded, long merges, long folds, long estimates, long bytesAllocated) {
+                this.elementsAdded = elementsAdded;
+                this.merges = merges;
+                this.folds = folds;
+                this.estimates = estimates;
+                this.bytesAllocated = bytesAllocated;
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.inigoillan.libanalytics.collections;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the Vector API kernels against the scalar ones, across lengths covering whole vectors plus every tail, and
+ * offsets not aligned to a vector
+ *
+ * @author <a href="mailto:inigo.illan@gmail.com">Inigo Illan</a>
+ * @since 1.0
+ */
+public class VectorBitUtilsTest {
+    private static final int MAX_LENGTH = 67;
+
+    @Test
+    public void Cardinality_EveryLength_SameAsScalar() {
+        // Arrange
+        Random random = new Random(10);
+
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            long[] words = randomWords(random, length + 3);
+
+            // Act
+            int result = VectorBitUtils.cardinality(words, length);
+
+            // Assert
+            assertEquals("length " + length, ScalarBitUtils.cardinality(words, length), result);
+        }
+    }
+
+    @Test
+    public void XorCardinality_EveryLengthAndOffset_SameAsScalar() {
+        // Arrange
+        Random random = new Random(11);
+
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            for (int offset = 0; offset < 5; offset++) {
+                int otherOffset = (offset * 3) % 7;
+                long[] words = randomWords(random, offset + length);
+                long[] otherWords = randomWords(random, otherOffset + length + 2);
+
+                // Act
+                int result = VectorBitUtils.xorCardinality(words, offset, otherWords, otherOffset, length);
+
+                // Assert
+                assertEquals("length " + length + ", offset " + offset,
+                        ScalarBitUtils.xorCardinality(words, offset, otherWords, otherOffset, length), result);
+            }
+        }
+    }
+
+    @Test
+    public void Xor_EveryLength_SameAsScalar() {
+        // Arrange
+        Random random = new Random(12);
+
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            long[] words = randomWords(random, length + 2);
+            long[] otherWords = randomWords(random, length + 2);
+            long[] expected = words.clone();
+
+            // Act
+            VectorBitUtils.xor(words, otherWords, length);
+            ScalarBitUtils.xor(expected, otherWords, length);
+
+            // Assert
+            assertArrayEquals("length " + length, expected, words);
+        }
+    }
+
+    @Test
+    public void CountEqualFields_EveryBitSizeAndFieldCount_SameAsScalar() {
+        // Arrange
+        Random random = new Random(13);
+
+        for (int bitSize = 1; bitSize < 32; bitSize++) {
+            for (int fieldCount = 0; fieldCount <= 300; fieldCount += 1 + fieldCount / 8) {
+                long[] words = randomFields(random, bitSize, fieldCount, null);
+                long[] otherWords = randomFields(random, bitSize, fieldCount, words);
+
+                // Act
+                int result = VectorBitUtils.countEqualFields(words, otherWords, bitSize, fieldCount);
+
+                // Assert
+                assertEquals("bit size " + bitSize + ", fields " + fieldCount,
+                        ScalarBitUtils.countEqualFields(words, otherWords, bitSize, fieldCount), result);
+            }
+        }
+    }
+
+    private static long[] randomWords(Random random, int length) {
+        long[] words = new long[length];
+
+        for (int i = 0; i < length; i++) {
+            words[i] = random.nextLong();
+        }
+
+        return words;
+    }
+
+    /**
+     * Builds packed fields with zero padding. When other fields are given, half of the fields are copied from them,
+     * so both equal and different fields are compared
+     */
+    private static long[] randomFields(Random random, int bitSize, int fieldCount, long[] other) {
+        long[] words = new long[(int) (((long) bitSize * fieldCount + Long.SIZE - 1) / Long.SIZE)];
+        long mask = (1L << bitSize) - 1;
+
+        for (int i = 0; i < fieldCount; i++) {
+            long value = other != null && random.nextBoolean()
+                    ? getField(other, bitSize, i)
+                    : random.nextLong() & mask;
+            long bit = (long) i * bitSize;
+            int word = (int) (bit >>> 6);
+            int offset = (int) (bit & 63);
+
+            words[word] |= value << offset;
+
+            if (offset + bitSize > Long.SIZE) {
+                words[word + 1] |= value >>> (Long.SIZE - offset);
+            }
+        }
+
+        return words;
+    }
+
+    private static long getField(long[] words, int bitSize, int position) {
+        long bit = (long) position * bitSize;
+        int word = (int) (bit >>> 6);
+        int offset = (int) (bit & 63);
+        long value = words[word] >>> offset;
+
+        if (offset + bitSize > Long.SIZE) {
+            value |= words[word + 1] << (Long.SIZE - offset);
+        }
+
+        return value & ((1L << bitSize) - 1);
+    }
+}